@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.source.generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IllegalFormatConversionException;
+import java.util.List;
+import java.util.Map;
+import java.util.MissingFormatArgumentException;
+import java.util.UnknownFormatConversionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * String template from stringTemplates, parsed once into literal segments and argument slots, so that generators
+ * filling the same template for thousands of enumerations and entities skip the format string parsing that
+ * String.format repeats on every call. Output is identical to String.format for the specifiers used by templates:
+ * %s and %d with sequential arguments, %1$s style with explicit argument index, %% and %n.
+ * <p>
+ * Templates are loaded through load() and shared by all generators in the JVM, for example dis7javalicense.txt.
+ * Instances are immutable and thread safe.
+ *
+ * @see String#format(String, Object...)
+ */
+public final class CompiledTemplate
+{
+    private static final Map<String, CompiledTemplate> cache = new ConcurrentHashMap<>();
+
+    /** per thread buffer reused by render(), trimmed when a large file leaves it oversized */
+    private static final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(1 << 14));
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+
+    private final String text;
+
+    /** parsed on first use, since templates used without arguments, such as dis7javalicense.txt, may contain any % characters */
+    private volatile Segments segments;
+
+    private CompiledTemplate(String text)
+    {
+        this.text = text;
+    }
+
+    /** Literal text and argument slots of a template */
+    private static final class Segments
+    {
+        final String[]  literals; // literals[i] precedes slot i, final literal follows last slot
+        final int[]     slots;    // argument index of each slot
+        final boolean[] decimal;  // whether slot is %d rather than %s
+        final int       length;   // total length of literals, used to size output
+
+        Segments(String text)
+        {
+            List<String>  literalList = new ArrayList<>();
+            List<Integer> slotList    = new ArrayList<>();
+            List<Boolean> decimalList = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            int ordinaryIndex = 0;
+            int i = 0;
+            while (i < text.length())
+            {
+                char c = text.charAt(i++);
+                if (c != '%')
+                {
+                    literal.append(c);
+                    continue;
+                }
+                int start = i;
+                while ((i < text.length()) && Character.isDigit(text.charAt(i)))
+                    i++;
+                int argumentIndex;
+                if ((i > start) && (i < text.length()) && (text.charAt(i) == '$'))
+                {
+                    argumentIndex = Integer.parseInt(text.substring(start, i)) - 1; // explicit index does not advance ordinary index
+                    i++;
+                }
+                else if (i > start)
+                    throw new UnknownFormatConversionException("width " + text.substring(start, i) + " not supported by CompiledTemplate");
+                else
+                    argumentIndex = -1;
+                if (i == text.length())
+                    throw new UnknownFormatConversionException("%");
+                char conversion = text.charAt(i++);
+                switch (conversion) {
+                    case '%':
+                        if (argumentIndex >= 0)
+                            throw new UnknownFormatConversionException("%");
+                        literal.append('%');
+                        break;
+                    case 'n':
+                        literal.append(System.lineSeparator());
+                        break;
+                    case 's':
+                    case 'd':
+                        literalList.add(literal.toString());
+                        literal.setLength(0);
+                        slotList.add((argumentIndex >= 0) ? argumentIndex : ordinaryIndex++);
+                        decimalList.add(conversion == 'd');
+                        break;
+                    default:
+                        throw new UnknownFormatConversionException(String.valueOf(conversion));
+                }
+            }
+            literalList.add(literal.toString());
+
+            literals = literalList.toArray(new String[0]);
+            slots    = new int[slotList.size()];
+            decimal  = new boolean[slotList.size()];
+            for (int s = 0; s < slots.length; s++)
+            {
+                slots[s]   = slotList.get(s);
+                decimal[s] = decimalList.get(s);
+            }
+            int literalLength = 0;
+            for (String l : literals)
+                literalLength += l.length();
+            length = literalLength;
+        }
+    }
+
+    /**
+     * Parse template text
+     * @param text template using %s, %d, %1$s, %% and %n specifiers
+     * @return compiled template, parsed when first rendered
+     */
+    public static CompiledTemplate compile(String text)
+    {
+        return new CompiledTemplate(text);
+    }
+
+    /**
+     * Load and parse a template resource, or provide the template already loaded by any generator
+     * @param anchor class relative to which the resource is named
+     * @param resourceName resource name, for example "../pdus/dis7javalicense.txt"
+     * @return shared compiled template
+     * @throws IOException if resource is missing or unreadable
+     */
+    public static CompiledTemplate load(Class<?> anchor, String resourceName) throws IOException
+    {
+        URL url = anchor.getResource(resourceName);
+        if (url == null)
+            throw new IOException("template not found: " + resourceName + " relative to " + anchor.getName());
+        String key = url.toString();
+        while (key.matches(".*/[^/]+/\\.\\./.*"))
+            key = key.replaceFirst("/[^/]+/\\.\\./", "/"); // so that ../pdus/dis7javalicense.txt is shared
+        CompiledTemplate template = cache.get(key);
+        if (template != null)
+            return template;
+        try (InputStream is = url.openStream()) {
+            template = new CompiledTemplate(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        CompiledTemplate previous = cache.putIfAbsent(key, template);
+        return (previous != null) ? previous : template;
+    }
+
+    /**
+     * Template text as loaded, for templates used without arguments
+     * @return unparsed text
+     */
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+     * Fill in template, equivalent to String.format(getText(), arguments)
+     * @param arguments values for slots; null is rendered as "null"
+     * @return filled-in template
+     */
+    public String render(Object... arguments)
+    {
+        StringBuilder sb = buffers.get();
+        sb.setLength(0);
+        renderTo(sb, arguments);
+        String result = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_BUFFER)
+            buffers.remove();
+        return result;
+    }
+
+    /**
+     * Append filled-in template, equivalent to sb.append(String.format(getText(), arguments)) without intermediate String
+     * @param sb receives output
+     * @param arguments values for slots; null is rendered as "null"
+     * @return sb
+     * @throws MissingFormatArgumentException if a slot refers beyond the arguments given
+     * @throws UnknownFormatConversionException if template uses specifiers other than %s, %d, %1$s, %% and %n
+     */
+    public StringBuilder renderTo(StringBuilder sb, Object... arguments)
+    {
+        Segments parsed = segments;
+        if (parsed == null)
+            segments = parsed = new Segments(text); // benign race, every thread parses the same result
+        String[]  literals = parsed.literals;
+        int[]     slots    = parsed.slots;
+        boolean[] decimal  = parsed.decimal;
+        sb.ensureCapacity(sb.length() + parsed.length + 16 * slots.length);
+        for (int s = 0; s < slots.length; s++)
+        {
+            sb.append(literals[s]);
+            if (slots[s] >= arguments.length)
+                throw new MissingFormatArgumentException("%" + (slots[s] + 1) + "$" + (decimal[s] ? 'd' : 's'));
+            Object argument = arguments[slots[s]];
+            if (decimal[s] && (argument != null) && !(argument instanceof Integer) && !(argument instanceof Long)
+                           && !(argument instanceof Short) && !(argument instanceof Byte) && !(argument instanceof BigInteger))
+                throw new IllegalFormatConversionException('d', argument.getClass());
+            sb.append(argument); // String.valueOf semantics, as %s and %d without flags
+        }
+        sb.append(literals[slots.length]);
+        return sb;
+    }
+}
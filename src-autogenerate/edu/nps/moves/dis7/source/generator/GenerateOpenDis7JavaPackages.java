@@ -6,6 +6,7 @@
 package edu.nps.moves.dis7.source.generator;
 
 import edu.nps.moves.dis7.source.generator.pdus.GeneratePdusForGivenLanguage;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * GenerateOpenDis7JavaPackages.java created on Jul 17, 2019
@@ -49,6 +50,9 @@ public class GenerateOpenDis7JavaPackages
   static String jammerPackage     = "edu.nps.moves.dis7.jammers";
   static String objectTypePackage = "edu.nps.moves.dis7.objectTypes";
   static String entitiesPackage   = "edu.nps.moves.dis7.entities";
+
+  /** whether generated pdus use synchronized methods; false produces unsynchronized single-owner classes, override with -Dxmlpg.synchronized=false */
+  static String pduSynchronized   = System.getProperty("xmlpg.synchronized", "true");
   // @formatter:on
 
     /** Command-line or solo invocation to run this object
@@ -59,10 +63,27 @@ public class GenerateOpenDis7JavaPackages
         String whichLanguage = DEFAULT_PROGRAMMING_LANGUAGE; // DEFAULT_PROGRAMMING_LANGUAGE JAVA_LANGUAGE PYTHON_LANGUAGE
         
         System.out.println (GenerateOpenDis7JavaPackages.class.getName() + "commencing...");
+        long startTime = System.currentTimeMillis(); // full-tree generation time, for comparing generator changes
         if (whichLanguage.equalsIgnoreCase("java"))
         {
             System.out.println("------------- opendis7-java generation commence -------------");
             System.out.println();
+            GenerationProfile.begin(); // with -Dxmlpg.profile=true, one report covers all generators below
+            // SISO XML is parsed once by the first generator below, then replayed from a shared SisoModel by the others
+            // with -Dxmlpg.incremental=<manifest directory>, each generator rewrites only changed files and is skipped when its inputs are unchanged
+            // ENTITIES do not depend on compiled enumerations, since names are read from the SISO model, so they are generated alongside
+            System.out.println("------------- Generating entity types in "+entitiesPackage+" concurrently -------------");
+            AtomicReference<Throwable> entityTypesFailure = new AtomicReference<>(); // rethrown below, as if generated sequentially
+            Thread entityTypesThread = new Thread(() -> {
+                try {
+                    edu.nps.moves.dis7.source.generator.entityTypes.GenerateEntityTypes.main(new String[]{DEFAULT_SISO_XML_FILE, entitiesOutputPath, entitiesPackage});
+                }
+                catch (RuntimeException | Error ex) {
+                    entityTypesFailure.set(ex);
+                }
+            }, "GenerateEntityTypes");
+            entityTypesThread.start();
+
             // ENUMERATIONS
             System.out.println("------------- Generating enumerations in "+enumPackage+" -------------");
             edu.nps.moves.dis7.source.generator.enumerations.GenerateEnumerations.main(new String[]{DEFAULT_SISO_XML_FILE, enumOutputPath, enumPackage});
@@ -71,6 +92,7 @@ public class GenerateOpenDis7JavaPackages
             System.out.println("------------- Generating pdus in "+pduPackage+" -------------");
             System.getProperties().setProperty("xmlpg.generatedSourceDir", pduOutputPath); // legacy parameter passing
             System.getProperties().setProperty("xmlpg.package", pduPackage);
+            System.getProperties().setProperty("xmlpg.synchronized", pduSynchronized);
             edu.nps.moves.dis7.source.generator.pdus.GeneratePdusForGivenLanguage.main(new String[]{DEFAULT_PDU_XML_FILE, "java"});
 
             // JAMMERS
@@ -82,10 +104,18 @@ public class GenerateOpenDis7JavaPackages
             edu.nps.moves.dis7.source.generator.entityTypes.GenerateObjectTypes.main(new String[]{DEFAULT_SISO_XML_FILE, objectTypeOutputPath, objectTypePackage});
 
             //ENTITIES
-            System.out.println("------------- Generating entity types in "+entitiesPackage+" -------------");
-            edu.nps.moves.dis7.source.generator.entityTypes.GenerateEntityTypes.main(new String[]{DEFAULT_SISO_XML_FILE, entitiesOutputPath, entitiesPackage});
+            try {
+                entityTypesThread.join();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                System.err.println("interrupted while generating entity types");
+            }
+            if (entityTypesFailure.get() != null)
+                throw new IllegalStateException("entity type generation failed", entityTypesFailure.get()); // exits non-zero
 
-            System.out.println("------------- opendis7-java generation complete -------------");
+            System.out.println("------------- opendis7-java generation complete in " + (System.currentTimeMillis() - startTime) + " msec -------------");
+            GenerationProfile.end("opendis7-java");
         }
         else if (whichLanguage.equalsIgnoreCase("python"))
         {
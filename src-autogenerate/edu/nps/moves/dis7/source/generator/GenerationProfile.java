@@ -0,0 +1,300 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.source.generator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Per-phase timing and allocation profile of source generation, showing where generator time goes:
+ * SAX parsing of XML, building models, rendering source text and writing files.
+ * Each generator records its phases, for example GenerateEnumerations render, with wall time, allocated bytes,
+ * and number and size of files written; SourceFileEmitter records rendering and writing done on its worker threads.
+ * <p>
+ * Enabled by system property xmlpg.profile: true prints a report when generation completes, any other value
+ * names a directory that additionally receives the report as JSON, for example build/profile/GenerateEnumerations.profile.json.
+ * When GenerateOpenDis7JavaPackages runs all generators, a single report covers them all.
+ * System property xmlpg.profileJfr=true emits each phase as JFR event edu.nps.moves.dis7.GeneratorPhase,
+ * recorded when the JVM runs with a flight recording, for example -XX:StartFlightRecording=filename=build/generator.jfr
+ * <p>
+ * Allocated bytes are measured per thread with com.sun.management.ThreadMXBean where the JVM supports it, otherwise reported as -1.
+ * Wall time and allocation are summed over all threads recording a phase, so that phases running concurrently,
+ * such as writing on several worker threads, may exceed elapsed time. When disabled, recording costs a field read.
+ */
+public final class GenerationProfile
+{
+    /** System property enabling report: true to print, or a directory also receiving JSON; disabled when absent, empty or false */
+    public static final String PROFILE_PROPERTY = "xmlpg.profile";
+
+    /** System property enabling JFR events of phases when true */
+    public static final String JFR_PROPERTY = "xmlpg.profileJfr";
+
+    /** Phase parsing XML input with SAX */
+    public static final String PARSE  = "parse";
+    /** Phase building generator model, such as collecting uids, from parsed input */
+    public static final String MODEL  = "model";
+    /** Phase rendering source text */
+    public static final String RENDER = "render";
+    /** Phase writing files */
+    public static final String WRITE  = "write";
+    /** Phase waiting for outstanding files and saving manifests */
+    public static final String FINISH = "finish";
+
+    private static final String  REPORT    = System.getProperty(PROFILE_PROPERTY, "");
+    private static final boolean REPORTING = !REPORT.isEmpty() && !REPORT.equalsIgnoreCase("false");
+    private static final boolean JFR       = Boolean.getBoolean(JFR_PROPERTY);
+    private static final boolean ENABLED   = REPORTING || JFR;
+
+    private static final com.sun.management.ThreadMXBean allocationBean = ENABLED ? allocationBean() : null;
+
+    private static final Map<String, Totals> totals = new ConcurrentHashMap<>(); // generator + " " + phase
+    private static final AtomicInteger order = new AtomicInteger();
+    private static final AtomicInteger depth = new AtomicInteger();
+    private static volatile long       startTime = System.nanoTime();
+
+    /** Phase not recorded, returned while profiling is disabled */
+    private static final Phase DISABLED = new Phase(null, null);
+
+    private GenerationProfile()
+    {
+    }
+
+    /** Accumulated measurements of one generator phase */
+    private static final class Totals
+    {
+        final String    generator;
+        final String    phase;
+        final int       order     = GenerationProfile.order.getAndIncrement(); // report in order first recorded
+        final LongAdder count     = new LongAdder();
+        final LongAdder wallNanos = new LongAdder();
+        final LongAdder allocated = new LongAdder();
+        final LongAdder files     = new LongAdder();
+        final LongAdder bytes     = new LongAdder();
+
+        Totals(String generator, String phase)
+        {
+            this.generator = generator;
+            this.phase     = phase;
+        }
+    }
+
+    /** One timed run of a phase on the current thread, recorded when closed */
+    public static final class Phase implements AutoCloseable
+    {
+        private final String generator;
+        private final String phase;
+        private long         startNanos;
+        private long         startAllocated;
+        private long         files;
+        private long         bytes;
+        private PhaseEvent   event;
+
+        private Phase(String generator, String phase)
+        {
+            this.generator = generator;
+            this.phase     = phase;
+            if (generator == null)
+                return;
+            if (JFR)
+            {
+                event = new PhaseEvent();
+                event.begin();
+            }
+            startAllocated = allocatedBytes();
+            startNanos     = System.nanoTime();
+        }
+
+        /**
+         * Count files produced by this phase
+         * @param fileCount number of files
+         * @param byteCount total size of files
+         */
+        public void addOutput(long fileCount, long byteCount)
+        {
+            files += fileCount;
+            bytes += byteCount;
+        }
+
+        /** Record phase; must be called on the thread that started it */
+        @Override
+        public void close()
+        {
+            if (generator == null)
+                return;
+            long wallNanos = System.nanoTime() - startNanos;
+            long allocated = (startAllocated < 0) ? -1 : allocatedBytes() - startAllocated;
+            Totals phaseTotals = totals.computeIfAbsent(generator + " " + phase, key -> new Totals(generator, phase));
+            phaseTotals.count.increment();
+            phaseTotals.wallNanos.add(wallNanos);
+            phaseTotals.allocated.add(allocated);
+            phaseTotals.files.add(files);
+            phaseTotals.bytes.add(bytes);
+            if (event != null)
+            {
+                event.end();
+                event.generator      = generator;
+                event.phase          = phase;
+                event.allocatedBytes = allocated;
+                event.filesWritten   = files;
+                event.bytesWritten   = bytes;
+                event.commit();
+            }
+        }
+    }
+
+    /** JFR event of one generator phase */
+    @Name("edu.nps.moves.dis7.GeneratorPhase")
+    @Label("Generator Phase")
+    @Category({"OpenDIS7", "Source Generator"})
+    @Description("Phase of opendis7 source generation, such as parsing, rendering or writing")
+    static final class PhaseEvent extends Event
+    {
+        @Label("Generator")
+        String generator;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+
+        @Label("Files Written")
+        long filesWritten;
+
+        @Label("Bytes Written")
+        @DataAmount
+        long bytesWritten;
+    }
+
+    /**
+     * Whether phases are recorded, so that callers can skip measuring work of their own
+     * @return true if xmlpg.profile or xmlpg.profileJfr enables profiling
+     */
+    public static boolean isEnabled()
+    {
+        return ENABLED;
+    }
+
+    /**
+     * Start timing a phase on the current thread, closed in a finally block or by try-with-resources
+     * @param generator generator name, for example GenerateEnumerations
+     * @param phase phase name, for example RENDER
+     * @return phase to close when done, doing nothing when profiling is disabled
+     */
+    public static Phase start(String generator, String phase)
+    {
+        return ENABLED ? new Phase(generator, phase) : DISABLED;
+    }
+
+    /**
+     * Begin a profiled generation run. Runs may nest, as when GenerateOpenDis7JavaPackages invokes each generator,
+     * in which case only the outermost run reports.
+     */
+    public static void begin()
+    {
+        if (ENABLED && (depth.getAndIncrement() == 0))
+        {
+            totals.clear();
+            startTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * End a profiled generation run begun by begin(), reporting all phases recorded if this is the outermost run
+     * @param title report title, also naming the JSON file, for example GenerateEnumerations
+     */
+    public static void end(String title)
+    {
+        if (!ENABLED || (depth.decrementAndGet() > 0))
+            return;
+        List<Totals> sorted = new ArrayList<>(totals.values());
+        sorted.sort((a, b) -> Integer.compare(a.order, b.order));
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        if (REPORTING)
+            printReport(title, sorted, elapsedMillis);
+        if (REPORTING && !REPORT.equalsIgnoreCase("true"))
+        {
+            Path jsonFile = Paths.get(REPORT, title + ".profile.json");
+            try {
+                writeJson(jsonFile, title, sorted, elapsedMillis);
+                System.out.println("GenerationProfile saved " + jsonFile);
+            }
+            catch (IOException ex) {
+                System.err.println("GenerationProfile could not save " + jsonFile + ": " + ex.getMessage()); // not fatal, report printed above
+            }
+        }
+    }
+
+    private static void printReport(String title, List<Totals> sorted, long elapsedMillis)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(title).append(" generation profile, ").append(elapsedMillis).append(" msec elapsed\n");
+        sb.append(String.format("%-30s %-8s %7s %11s %13s %7s %13s%n", "generator", "phase", "count", "wall msec", "allocated KB", "files", "bytes"));
+        for (Totals t : sorted)
+        {
+            long allocated = t.allocated.sum();
+            sb.append(String.format("%-30s %-8s %7d %11d %13s %7d %13d%n", t.generator, t.phase, t.count.sum(),
+                      t.wallNanos.sum() / 1_000_000, (allocated < 0) ? "n/a" : String.valueOf(allocated / 1024), t.files.sum(), t.bytes.sum()));
+        }
+        System.out.print(sb);
+    }
+
+    private static void writeJson(Path jsonFile, String title, List<Totals> sorted, long elapsedMillis) throws IOException
+    {
+        if (jsonFile.toAbsolutePath().getParent() != null)
+            Files.createDirectories(jsonFile.toAbsolutePath().getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(jsonFile, StandardCharsets.UTF_8)) {
+            writer.write("{\n  \"title\": \"" + title + "\",\n  \"elapsedMillis\": " + elapsedMillis + ",\n  \"phases\": [");
+            for (int i = 0; i < sorted.size(); i++)
+            {
+                Totals t = sorted.get(i);
+                writer.write(((i == 0) ? "" : ",") + "\n    { \"generator\": \"" + t.generator + "\", \"phase\": \"" + t.phase
+                             + "\", \"count\": " + t.count.sum() + ", \"wallNanos\": " + t.wallNanos.sum()
+                             + ", \"allocatedBytes\": " + t.allocated.sum() + ", \"filesWritten\": " + t.files.sum()
+                             + ", \"bytesWritten\": " + t.bytes.sum() + " }");
+            }
+            writer.write("\n  ]\n}\n");
+        }
+    }
+
+    /** Bytes allocated so far by the current thread, or -1 if not measurable */
+    private static long allocatedBytes()
+    {
+        return (allocationBean == null) ? -1 : allocationBean.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean()
+    {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!bean.isThreadAllocatedMemorySupported())
+            return null;
+        if (!bean.isThreadAllocatedMemoryEnabled())
+            bean.setThreadAllocatedMemoryEnabled(true);
+        return bean;
+    }
+}
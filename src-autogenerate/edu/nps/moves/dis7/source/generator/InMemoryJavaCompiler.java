@@ -0,0 +1,255 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.source.generator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles generated Java source held in memory, keeping the resulting class files in memory, so that generators
+ * can package classes without writing source files and reading them back. The class path of the running JVM,
+ * for example build/classes holding previously compiled PDU and enumeration classes, is available to all sources.
+ * <p>
+ * Independent groups of sources, such as the entity classes of different countries, are compiled concurrently,
+ * each group by its own compilation task. Classes compiled by earlier calls are visible to later ones,
+ * so that classes referring to many groups can be compiled once those groups are complete.
+ * Options match the Ant javac task of build.xml: release 17 with debug information.
+ */
+public final class InMemoryJavaCompiler
+{
+    /** Compiler options */
+    public static final List<String> OPTIONS = List.of("--release", "17", "-g", "-proc:none", "-nowarn", "-encoding", "UTF-8");
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final JavaCompiler compiler;
+    private final Map<String, byte[]> classes = new ConcurrentHashMap<>(); // class file path, e.g. edu/nps/moves/dis7/entities/X.class
+
+    /**
+     * Constructor
+     * @throws IllegalStateException if this JVM provides no Java compiler, for example a JRE rather than a JDK
+     */
+    public InMemoryJavaCompiler()
+    {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            throw new IllegalStateException("no system Java compiler available, run generator with a JDK rather than a JRE");
+    }
+
+    /**
+     * Compile groups of sources concurrently, one compilation task per group
+     * @param groups each mapping source path, for example edu/nps/moves/dis7/entities/usa/X.java, to source text;
+     * a group may only refer to classes of the class path, of earlier calls and of its own group
+     * @param threadCount maximum number of groups compiled at the same time
+     * @throws IOException if any group fails to compile, reporting errors of all failed groups
+     */
+    public void compile(List<Map<String, String>> groups, int threadCount) throws IOException
+    {
+        List<Map<String, String>> largestFirst = new ArrayList<>(groups);
+        largestFirst.sort((a, b) -> Integer.compare(b.size(), a.size())); // start long tasks early
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threadCount, groups.size())));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Map<String, String> group : largestFirst)
+                futures.add(executor.submit(() -> { compile(group); return null; }));
+            IOException failure = null;
+            for (Future<?> future : futures)
+            {
+                try {
+                    future.get();
+                }
+                catch (ExecutionException ex) {
+                    IOException ioe = (ex.getCause() instanceof IOException) ? (IOException) ex.getCause() : new IOException(ex.getCause());
+                    if (failure == null)
+                        failure = ioe;
+                    else
+                        failure.addSuppressed(ioe);
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted while compiling", ex);
+                }
+            }
+            if (failure != null)
+                throw failure;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Compile one group of sources
+     * @param sources maps source path, for example edu/nps/moves/dis7/entities/EntityTypeFactory.java, to source text
+     * @throws IOException if compilation fails, reporting the first errors
+     */
+    public void compile(Map<String, String> sources) throws IOException
+    {
+        if (sources.isEmpty())
+            return;
+        List<JavaFileObject> units = new ArrayList<>(sources.size());
+        for (Map.Entry<String, String> source : sources.entrySet())
+            units.add(new MemorySource(source.getKey(), source.getValue()));
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (MemoryFileManager fileManager = new MemoryFileManager(compiler.getStandardFileManager(diagnostics, null, null))) {
+            boolean success = compiler.getTask(null, fileManager, diagnostics, OPTIONS, null, units).call();
+            if (!success)
+            {
+                List<String> errors = diagnostics.getDiagnostics().stream()
+                        .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                        .limit(MAX_REPORTED_ERRORS)
+                        .map(d -> ((d.getSource() == null) ? "" : d.getSource().getName() + ":" + d.getLineNumber() + ": ") + d.getMessage(null))
+                        .collect(Collectors.toList());
+                throw new IOException("compilation of " + sources.size() + " sources failed:\n" + String.join("\n", errors));
+            }
+        }
+    }
+
+    /**
+     * Provide all class files compiled so far
+     * @return unmodifiable map of class file path, for example edu/nps/moves/dis7/entities/EntityTypeTrie$Node.class, to class file contents
+     */
+    public Map<String, byte[]> getClasses()
+    {
+        return Collections.unmodifiableMap(classes);
+    }
+
+    /** Source text held in memory */
+    private static final class MemorySource extends SimpleJavaFileObject
+    {
+        private final String text;
+
+        MemorySource(String path, String text)
+        {
+            super(URI.create("string:///" + path), Kind.SOURCE);
+            this.text = text;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors)
+        {
+            return text;
+        }
+    }
+
+    /** Class file held in memory, written by the compiler or read back by later compilation tasks */
+    private final class MemoryClass extends SimpleJavaFileObject
+    {
+        private final String path;
+        private final String binaryName;
+
+        MemoryClass(String binaryName)
+        {
+            this(binaryName.replace('.', '/') + Kind.CLASS.extension, binaryName);
+        }
+
+        private MemoryClass(String path, String binaryName)
+        {
+            super(URI.create("memory:///" + path), Kind.CLASS);
+            this.path       = path;
+            this.binaryName = binaryName;
+        }
+
+        @Override
+        public OutputStream openOutputStream()
+        {
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close()
+                {
+                    classes.put(path, toByteArray());
+                }
+            };
+        }
+
+        @Override
+        public InputStream openInputStream() throws IOException
+        {
+            byte[] bytes = classes.get(path);
+            if (bytes == null)
+                throw new IOException("class not compiled: " + path);
+            return new ByteArrayInputStream(bytes);
+        }
+    }
+
+    /** File manager writing class output to memory and listing classes compiled by earlier tasks along with the class path */
+    private final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager>
+    {
+        MemoryFileManager(StandardJavaFileManager fileManager)
+        {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(JavaFileManager.Location location, String className, JavaFileObject.Kind kind, FileObject sibling)
+        {
+            return new MemoryClass(className);
+        }
+
+        @Override
+        public Iterable<JavaFileObject> list(JavaFileManager.Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse) throws IOException
+        {
+            Iterable<JavaFileObject> listed = super.list(location, packageName, kinds, recurse);
+            if ((location != StandardLocation.CLASS_PATH) || !kinds.contains(JavaFileObject.Kind.CLASS))
+                return listed;
+            String prefix = packageName.isEmpty() ? "" : packageName.replace('.', '/') + "/";
+            List<JavaFileObject> combined = new ArrayList<>();
+            listed.forEach(combined::add);
+            for (String path : classes.keySet())
+            {
+                if (!path.startsWith(prefix))
+                    continue;
+                String rest = path.substring(prefix.length());
+                if (recurse || (rest.indexOf('/') < 0))
+                    combined.add(new MemoryClass(path, path.substring(0, path.length() - JavaFileObject.Kind.CLASS.extension.length()).replace('/', '.')));
+            }
+            return combined;
+        }
+
+        @Override
+        public String inferBinaryName(JavaFileManager.Location location, JavaFileObject file)
+        {
+            if (file instanceof MemoryClass)
+                return ((MemoryClass) file).binaryName;
+            return super.inferBinaryName(location, file);
+        }
+
+        @Override
+        public boolean isSameFile(FileObject a, FileObject b)
+        {
+            if ((a instanceof MemoryClass) || (b instanceof MemoryClass))
+                return a.toUri().equals(b.toUri());
+            return super.isSameFile(a, b);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.source.generator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * In-memory model of the SISO-REF-010 XML enumerations document, built in one streaming SAX pass and shared by
+ * GenerateEnumerations, GenerateJammers, GenerateObjectTypes and GenerateEntityTypes, each of which replays it
+ * into its own SAX handler rather than parsing the XML file again.
+ * Elements and attributes are recorded as indices into a table of distinct strings; character content is not
+ * recorded, since the SISO generators read only element names and attribute values.
+ * <p>
+ * Models are kept per file for the life of the JVM. When system property xmlpg.sisoCache names a directory,
+ * the model is also saved there in a compact binary form keyed by the SHA-256 hash of the XML file,
+ * so that later generator runs on an unchanged file skip XML parsing entirely.
+ *
+ * @see GenerateOpenDis7JavaPackages
+ */
+public final class SisoModel
+{
+    /** System property naming cache directory, for example build/sisoCache; no cache file is used when absent or empty */
+    public static final String CACHE_DIRECTORY_PROPERTY = "xmlpg.sisoCache";
+
+    private static final int MAGIC          = 0x5349534F; // "SISO"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int START_ELEMENT = 1; // uri, localName, qName, attribute count, then per attribute uri, localName, qName, value
+    private static final int END_ELEMENT   = 2; // uri, localName, qName
+
+    private static final Map<String, SisoModel> models = new HashMap<>();
+
+    private final String[] strings;
+    private final int[]    events;
+
+    private SisoModel(String[] strings, int[] events)
+    {
+        this.strings = strings;
+        this.events  = events;
+    }
+
+    /**
+     * Provide the model of a SISO XML file, parsing it on first request unless a current cache file exists
+     * @param sisoXmlFile path of SISO-REF-010.xml
+     * @return shared model
+     * @throws SAXException if XML cannot be parsed
+     * @throws IOException if XML file cannot be read
+     * @throws ParserConfigurationException if no suitable SAX parser is available
+     */
+    public static synchronized SisoModel load(String sisoXmlFile) throws SAXException, IOException, ParserConfigurationException
+    {
+        String key = new File(sisoXmlFile).getCanonicalPath();
+        SisoModel model = models.get(key);
+        if (model != null)
+            return model;
+
+        long   startTime      = System.currentTimeMillis();
+        String cacheDirectory = System.getProperty(CACHE_DIRECTORY_PROPERTY, "");
+        Path   cacheFile      = null;
+        GenerationProfile.Phase parse = GenerationProfile.start(SisoModel.class.getSimpleName(), GenerationProfile.PARSE);
+        try {
+            if (!cacheDirectory.isEmpty())
+            {
+                cacheFile = Paths.get(cacheDirectory, new File(sisoXmlFile).getName() + "." + sha256(Paths.get(sisoXmlFile)) + ".model");
+                model = readCache(cacheFile);
+            }
+            if (model != null)
+                System.out.println("SisoModel read " + cacheFile + " in " + (System.currentTimeMillis() - startTime) + " msec");
+            else
+            {
+                model = parse(sisoXmlFile);
+                System.out.println("SisoModel parsed " + sisoXmlFile + " in " + (System.currentTimeMillis() - startTime) + " msec, "
+                                   + model.strings.length + " distinct strings");
+                if (cacheFile != null)
+                    writeCache(model, cacheFile);
+            }
+        }
+        finally {
+            parse.close();
+        }
+        models.put(key, model);
+        return model;
+    }
+
+    /**
+     * Deliver the recorded document to a SAX handler, as a parser would
+     * @param handler receives startDocument, startElement, endElement and endDocument events;
+     * as usual for SAX, the Attributes object is reused and must not be retained
+     * @throws SAXException if thrown by handler
+     */
+    public void replay(ContentHandler handler) throws SAXException
+    {
+        AttributesImpl attributes = new AttributesImpl();
+        handler.startDocument();
+        int i = 0;
+        while (i < events.length)
+        {
+            int event = events[i++];
+            String uri       = strings[events[i++]];
+            String localName = strings[events[i++]];
+            String qName     = strings[events[i++]];
+            if (event == START_ELEMENT)
+            {
+                attributes.clear();
+                int count = events[i++];
+                for (int a = 0; a < count; a++, i += 4)
+                    attributes.addAttribute(strings[events[i]], strings[events[i + 1]], strings[events[i + 2]], "CDATA", strings[events[i + 3]]);
+                handler.startElement(uri, localName, qName, attributes);
+            }
+            else
+                handler.endElement(uri, localName, qName);
+        }
+        handler.endDocument();
+    }
+
+    private static SisoModel parse(String sisoXmlFile) throws SAXException, IOException, ParserConfigurationException
+    {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setValidating(false);
+        factory.setNamespaceAware(true);
+        factory.setXIncludeAware(true);
+        Recorder recorder = new Recorder();
+        factory.newSAXParser().parse(new File(sisoXmlFile), recorder);
+        return new SisoModel(recorder.strings.toArray(new String[0]), Arrays.copyOf(recorder.events, recorder.eventLength));
+    }
+
+    /** SAX handler recording element events */
+    private static class Recorder extends DefaultHandler
+    {
+        final List<String>         strings  = new ArrayList<>();
+        final Map<String, Integer> indices  = new HashMap<>();
+        int[] events = new int[1 << 16];
+        int   eventLength;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+        {
+            add(START_ELEMENT);
+            add(indexOf(uri));
+            add(indexOf(localName));
+            add(indexOf(qName));
+            add(attributes.getLength());
+            for (int a = 0; a < attributes.getLength(); a++)
+            {
+                add(indexOf(attributes.getURI(a)));
+                add(indexOf(attributes.getLocalName(a)));
+                add(indexOf(attributes.getQName(a)));
+                add(indexOf(attributes.getValue(a)));
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+        {
+            add(END_ELEMENT);
+            add(indexOf(uri));
+            add(indexOf(localName));
+            add(indexOf(qName));
+        }
+
+        private int indexOf(String value)
+        {
+            return indices.computeIfAbsent((value == null) ? "" : value, s -> {
+                strings.add(s);
+                return strings.size() - 1;
+            });
+        }
+
+        private void add(int value)
+        {
+            if (eventLength == events.length)
+                events = Arrays.copyOf(events, eventLength * 2);
+            events[eventLength++] = value;
+        }
+    }
+
+    private static String sha256(Path file) throws IOException
+    {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Files.readAllBytes(file));
+            return HexFormat.of().formatHex(digest.digest());
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex); // SHA-256 is required of every Java platform
+        }
+    }
+
+    /** Read cache file, or provide null if it is missing or unusable so that the XML is parsed instead */
+    private static SisoModel readCache(Path cacheFile)
+    {
+        if (!Files.isReadable(cacheFile))
+            return null;
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile), 1 << 16))) {
+            if ((dis.readInt() != MAGIC) || (dis.readInt() != FORMAT_VERSION))
+                return null;
+            String[] strings = new String[dis.readInt()];
+            for (int s = 0; s < strings.length; s++)
+            {
+                byte[] bytes = new byte[dis.readInt()];
+                dis.readFully(bytes);
+                strings[s] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int[] events = new int[dis.readInt()];
+            for (int e = 0; e < events.length; e++)
+                events[e] = dis.readInt();
+            return new SisoModel(strings, events);
+        }
+        catch (IOException | RuntimeException ex) {
+            System.err.println("SisoModel ignoring unreadable cache " + cacheFile + ": " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /** Write cache file via a temporary file, so that concurrent or interrupted builds never see a partial cache */
+    private static void writeCache(SisoModel model, Path cacheFile)
+    {
+        try {
+            Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+            Path temporaryFile = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), "siso", ".tmp");
+            try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), 1 << 16))) {
+                dos.writeInt(MAGIC);
+                dos.writeInt(FORMAT_VERSION);
+                dos.writeInt(model.strings.length);
+                for (String s : model.strings)
+                {
+                    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                    dos.writeInt(bytes.length);
+                    dos.write(bytes);
+                }
+                dos.writeInt(model.events.length);
+                for (int e : model.events)
+                    dos.writeInt(e);
+            }
+            Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("SisoModel saved " + cacheFile);
+        }
+        catch (IOException ex) {
+            System.err.println("SisoModel could not save cache " + cacheFile + ": " + ex.getMessage()); // not fatal, parse again next time
+        }
+    }
+}
@@ -0,0 +1,493 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.source.generator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes generated source files on a pool of worker threads, so that generators can keep building their model
+ * while earlier files are rendered and written. Each file is written with a single NIO bulk write of its UTF-8 bytes.
+ * Work that depends on generator state is rendered by the caller and passed as a String;
+ * independent rendering can be passed as a Callable and then also runs on the pool.
+ * <p>
+ * The number of worker threads defaults to the number of available processors, overridden by system property
+ * xmlpg.emitThreads; a value of 1 writes files in submission order. At most MAX_PENDING files are queued,
+ * after which submitting waits, bounding memory held by rendered sources.
+ * Failures are collected and reported by await() or close(), which wait for all files to be written.
+ * <p>
+ * When system property xmlpg.incremental names a manifest directory, an emitter constructed with a manifest name
+ * generates incrementally: a file whose rendered content is unchanged since the previous run is not rewritten,
+ * keeping its timestamp so that later compilation and packaging steps see no change. After a successful run,
+ * finish() deletes files that the previous run produced but this run did not, and saves the manifest,
+ * which records content hash and size of each output file together with a fingerprint of all inputs:
+ * input files such as the SISO XML, generator classes and templates, and xmlpg system properties.
+ * A generator whose fingerprint and outputs are unchanged can skip generation entirely, see isUpToDate().
+ * <p>
+ * An emitter can instead keep all files in memory, for generators that compile and package their output
+ * directly, see keepInMemory().
+ * <p>
+ * When GenerationProfile is enabled, rendering and writing on worker threads are recorded as phases of the generator
+ * named by the constructor, together with the number and size of files written.
+ */
+public final class SourceFileEmitter implements AutoCloseable
+{
+    /** System property overriding the number of worker threads */
+    public static final String THREADS_PROPERTY = "xmlpg.emitThreads";
+
+    /** System property naming manifest directory, for example src-generated/manifests; generation is not incremental when absent or empty */
+    public static final String INCREMENTAL_PROPERTY = "xmlpg.incremental";
+
+    /** Maximum number of files queued but not yet written */
+    public static final int MAX_PENDING = 1024;
+
+    /**
+     * Legacy parameters of PDU generators, whose emitters have no input files and hence no fingerprint. These are not hashed,
+     * since GenerateOpenDis7JavaPackages sets them while GenerateEntityTypes is fingerprinting concurrently
+     */
+    private static final Set<String> PDU_PROPERTIES = Set.of("xmlpg.generatedSourceDir", "xmlpg.package", "xmlpg.synchronized");
+
+    private static final String MANIFEST_HEADER = "# xmlpg incremental generation manifest, version 1";
+
+    /** Content hash and size of one output file */
+    private static final class ManifestEntry
+    {
+        final String hash;
+        final long   size;
+
+        ManifestEntry(String hash, long size)
+        {
+            this.hash = hash;
+            this.size = size;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final Semaphore       pending   = new Semaphore(MAX_PENDING);
+    private final Set<File>       submitted = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger   written   = new AtomicInteger();
+    private final AtomicInteger   unchanged = new AtomicInteger();
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+    // incremental generation, all null or empty unless enabled, set before any file is submitted
+    private String       manifestName;
+    private Path         manifestFile;
+    private Path         outputRoot;
+    private String       fingerprint;
+    private String       previousFingerprint;
+    private final Map<String, ManifestEntry> previous = new HashMap<>();
+    private final Map<String, ManifestEntry> current  = new ConcurrentHashMap<>();
+    private boolean      upToDate;
+
+    private volatile Map<Path, byte[]> retained; // files kept in memory rather than written, null unless keepInMemory()
+
+    private String profileName = SourceFileEmitter.class.getSimpleName(); // generator named in GenerationProfile
+
+    /** Constructor creates worker threads per system property xmlpg.emitThreads, default one per available processor */
+    public SourceFileEmitter()
+    {
+        this(Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Constructor
+     * @param threadCount number of worker threads, at least one
+     */
+    public SourceFileEmitter(int threadCount)
+    {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, threadCount), runnable -> {
+            Thread thread = new Thread(runnable, "SourceFileEmitter-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Constructor for a generator supporting incremental generation, which is enabled by system property xmlpg.incremental
+     * @param manifestName name of manifest, unique among generators sharing a manifest directory
+     * @param outputDirectory directory containing all output files, relative to which manifest paths are recorded
+     * @param inputFiles files from which output is generated, such as the SISO XML;
+     * if none are given, unchanged files are still skipped but isUpToDate() is always false
+     * @throws IOException if an input file cannot be read
+     */
+    public SourceFileEmitter(String manifestName, File outputDirectory, File... inputFiles) throws IOException
+    {
+        this(Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+        profileName = manifestName;
+        String manifestDirectory = System.getProperty(INCREMENTAL_PROPERTY, "");
+        if (!manifestDirectory.isEmpty())
+        {
+            this.manifestName = manifestName;
+            manifestFile = Paths.get(manifestDirectory, manifestName + ".manifest");
+            outputRoot   = outputDirectory.toPath().toAbsolutePath().normalize();
+            fingerprint  = (inputFiles.length == 0) ? null : fingerprint(inputFiles);
+            readManifest();
+        }
+    }
+
+    /**
+     * Whether incremental generation is enabled for this emitter
+     * @return true if unchanged files are skipped and a manifest is kept
+     */
+    public boolean isIncremental()
+    {
+        return outputRoot != null;
+    }
+
+    /**
+     * Keep all files in memory rather than writing them, for generators that process their output further,
+     * such as compiling it directly to jars. Incremental generation does not apply to files kept in memory.
+     * Must be called before any file is submitted.
+     * @see #getRetainedFiles()
+     */
+    public void keepInMemory()
+    {
+        if (!submitted.isEmpty())
+            throw new IllegalStateException("keepInMemory() must be called before any file is submitted");
+        outputRoot = null;
+        retained   = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Wait until all submitted files are rendered, then provide those kept in memory
+     * @return map of absolute normalized file path to file contents
+     * @throws IOException first failure, with any later failures suppressed
+     * @throws IllegalStateException if files are written rather than kept in memory
+     */
+    public Map<Path, byte[]> getRetainedFiles() throws IOException
+    {
+        if (retained == null)
+            throw new IllegalStateException("files are written, not kept in memory");
+        await();
+        return retained;
+    }
+
+    /**
+     * Whether all inputs and outputs are unchanged since the previous successful run, in which case the generator
+     * can skip generation, leaving all previously generated files and the manifest as they are
+     * @return true if incremental, the input fingerprint matches the manifest, and every recorded output file is present with its recorded size
+     * @throws IOException if an output file cannot be examined
+     */
+    public boolean isUpToDate() throws IOException
+    {
+        if (!isIncremental() || (fingerprint == null) || !fingerprint.equals(previousFingerprint) || previous.isEmpty())
+            return false;
+        for (Map.Entry<String, ManifestEntry> entry : previous.entrySet())
+        {
+            Path path = outputRoot.resolve(entry.getKey());
+            if (!Files.isRegularFile(path) || (Files.size(path) != entry.getValue().size))
+                return false;
+        }
+        upToDate = true;
+        System.out.println(manifestName + " inputs unchanged, " + previous.size() + " previously generated files are up to date");
+        return true;
+    }
+
+    /**
+     * Write a file asynchronously, creating its parent directories as needed
+     * @param file output file, replaced if present
+     * @param contents complete source text
+     */
+    public void write(File file, String contents)
+    {
+        render(file, () -> contents);
+    }
+
+    /**
+     * Write a binary file asynchronously, creating its parent directories as needed
+     * @param file output file, replaced if present
+     * @param contents complete file contents, which must not be modified afterwards
+     */
+    public void write(File file, byte[] contents)
+    {
+        submit(file, () -> contents);
+    }
+
+    /**
+     * Render and write a file asynchronously, creating its parent directories as needed
+     * @param file output file, replaced if present
+     * @param renderer produces complete source text on a worker thread, so must not modify shared generator state
+     */
+    public void render(File file, Callable<String> renderer)
+    {
+        submit(file, () -> renderer.call().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void submit(File file, Callable<byte[]> renderer)
+    {
+        submitted.add(file.getAbsoluteFile());
+        pending.acquireUninterruptibly();
+        executor.execute(() -> {
+            try {
+                byte[] bytes;
+                GenerationProfile.Phase render = GenerationProfile.start(profileName, GenerationProfile.RENDER);
+                try {
+                    bytes = renderer.call();
+                }
+                finally {
+                    render.close();
+                }
+                try (GenerationProfile.Phase phase = GenerationProfile.start(profileName, GenerationProfile.WRITE)) {
+                    Path path = file.toPath().toAbsolutePath().normalize();
+                    if (retained != null)
+                        retained.put(path, bytes);
+                    else if (isIncremental() && !isChanged(path, bytes))
+                        unchanged.incrementAndGet();
+                    else
+                    {
+                        Files.createDirectories(path.getParent());
+                        Files.write(path, bytes);
+                        written.incrementAndGet();
+                        phase.addOutput(1, bytes.length);
+                    }
+                }
+            }
+            catch (Exception | Error ex) {
+                IOException ioe = new IOException("Error saving " + file + ": " + ex.getLocalizedMessage(), ex);
+                if (!failure.compareAndSet(null, ioe))
+                    failure.get().addSuppressed(ioe);
+            }
+            finally {
+                pending.release();
+            }
+        });
+    }
+
+    /** Record output file in manifest and compare it with the present file, trusting the previous manifest when its hash matches */
+    private boolean isChanged(Path path, byte[] bytes) throws IOException
+    {
+        String key  = manifestKey(path);
+        String hash = sha256(bytes);
+        current.put(key, new ManifestEntry(hash, bytes.length));
+        if (!Files.isRegularFile(path) || (Files.size(path) != bytes.length))
+            return true;
+        ManifestEntry entry = previous.get(key);
+        if ((entry != null) && entry.hash.equals(hash))
+            return false;
+        return !Arrays.equals(Files.readAllBytes(path), bytes); // no manifest yet, or content differs from previous run
+    }
+
+    /**
+     * Whether a file has been submitted, or exists from an earlier run unless generating incrementally or in memory,
+     * for generators choosing unique file names
+     * @param file file of interest
+     * @return true if file is pending or written by this emitter, or present on disk and neither incremental nor kept in memory
+     */
+    public boolean exists(File file)
+    {
+        if (submitted.contains(file.getAbsoluteFile()))
+            return true;
+        return !isIncremental() && (retained == null) && file.exists(); // files of the previous run are replaced, not avoided
+    }
+
+    /**
+     * Wait until all submitted files are written
+     * @return number of files written so far, not counting unchanged files skipped by incremental generation
+     * @throws IOException first failure, with any later failures suppressed
+     */
+    public int await() throws IOException
+    {
+        pending.acquireUninterruptibly(MAX_PENDING);
+        pending.release(MAX_PENDING);
+        IOException ex = failure.getAndSet(null);
+        if (ex != null)
+            throw ex;
+        return written.get();
+    }
+
+    /**
+     * Complete a successful generator run: wait until all submitted files are written and, when incremental,
+     * delete files produced by the previous run but not by this one, then save the manifest.
+     * Not calling finish() after a failure keeps the previous manifest, so that nothing is deleted.
+     * @throws IOException first failure, with any later failures suppressed, or if the manifest cannot be saved
+     */
+    public void finish() throws IOException
+    {
+        GenerationProfile.Phase finish = GenerationProfile.start(profileName, GenerationProfile.FINISH);
+        try {
+            await();
+            if (isIncremental() && !(upToDate && submitted.isEmpty()))
+                deleteObsoleteFiles();
+        }
+        finally {
+            finish.close();
+        }
+    }
+
+    /** Delete files produced by the previous run but not by this one, then save the manifest */
+    private void deleteObsoleteFiles() throws IOException
+    {
+        int deleted = 0;
+        for (String key : previous.keySet())
+        {
+            if (!current.containsKey(key) && Files.deleteIfExists(outputRoot.resolve(key)))
+                deleted++;
+        }
+        writeManifest();
+        System.out.println(manifestName + " incremental generation: " + written.get() + " files written, "
+                           + unchanged.get() + " unchanged, " + deleted + " no longer generated and deleted");
+    }
+
+    /**
+     * Wait until all submitted files are written, then stop worker threads
+     * @throws IOException first failure, with any later failures suppressed
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try {
+            await();
+        }
+        finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private String manifestKey(Path path)
+    {
+        return outputRoot.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    /** Read previous manifest, ignoring one that is missing, unreadable or recorded for another output directory */
+    private void readManifest()
+    {
+        if (!Files.isReadable(manifestFile))
+            return;
+        try {
+            List<String> lines = Files.readAllLines(manifestFile, StandardCharsets.UTF_8);
+            if ((lines.size() < 3) || !lines.get(0).equals(MANIFEST_HEADER) || !lines.get(1).equals("root " + outputRoot))
+                return;
+            previousFingerprint = lines.get(2).substring("inputs ".length());
+            for (String line : lines.subList(3, lines.size()))
+            {
+                String[] fields = line.split(" ", 3); // hash, size, path which may contain spaces
+                previous.put(fields[2], new ManifestEntry(fields[0], Long.parseLong(fields[1])));
+            }
+        }
+        catch (IOException | RuntimeException ex) {
+            System.err.println(manifestName + " ignoring unreadable manifest " + manifestFile + ": " + ex.getMessage());
+            previousFingerprint = null;
+            previous.clear();
+        }
+    }
+
+    /** Write manifest via a temporary file, so that an interrupted build never leaves a partial manifest */
+    private void writeManifest() throws IOException
+    {
+        Path directory = manifestFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporaryFile = Files.createTempFile(directory, manifestName, ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+            writer.write(MANIFEST_HEADER + "\n");
+            writer.write("root " + outputRoot + "\n");
+            writer.write("inputs " + ((fingerprint == null) ? "-" : fingerprint) + "\n");
+            for (Map.Entry<String, ManifestEntry> entry : new TreeMap<>(current).entrySet())
+                writer.write(entry.getValue().hash + " " + entry.getValue().size + " " + entry.getKey() + "\n");
+        }
+        Files.move(temporaryFile, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Hash everything that determines generated output: input files, generator classes and templates in every
+     * class path entry providing this package, and xmlpg system properties other than those only affecting performance or profiling
+     * and the PDU_PROPERTIES of PDU generators
+     */
+    private String fingerprint(File[] inputFiles) throws IOException
+    {
+        MessageDigest digest = newDigest();
+        for (File inputFile : inputFiles)
+        {
+            digest.update(("input " + inputFile.getName() + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(Files.readAllBytes(inputFile.toPath()));
+        }
+        String generatorPackage = SourceFileEmitter.class.getPackageName().replace('.', '/');
+        Enumeration<URL> roots = SourceFileEmitter.class.getClassLoader().getResources(generatorPackage);
+        while (roots.hasMoreElements())
+        {
+            URL root = roots.nextElement();
+            try {
+                if (root.getProtocol().equals("jar"))
+                    digest.update(Files.readAllBytes(Paths.get(((JarURLConnection) root.openConnection()).getJarFileURL().toURI())));
+                else
+                {
+                    Path directory = Paths.get(root.toURI());
+                    List<Path> files;
+                    try (Stream<Path> walk = Files.walk(directory)) {
+                        files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                    }
+                    for (Path file : files)
+                    {
+                        digest.update((directory.relativize(file) + "\n").getBytes(StandardCharsets.UTF_8));
+                        digest.update(Files.readAllBytes(file));
+                    }
+                }
+            }
+            catch (URISyntaxException ex) {
+                throw new IOException("cannot locate generator classes " + root, ex);
+            }
+        }
+        for (Map.Entry<Object, Object> property : new TreeMap<>(System.getProperties()).entrySet())
+        {
+            String key = property.getKey().toString();
+            if (key.startsWith("xmlpg.") && !key.equals(INCREMENTAL_PROPERTY) && !key.equals(THREADS_PROPERTY) &&
+                !key.equals(SisoModel.CACHE_DIRECTORY_PROPERTY) && !key.equals(GenerationProfile.PROFILE_PROPERTY) &&
+                !key.equals(GenerationProfile.JFR_PROPERTY) && !PDU_PROPERTIES.contains(key))
+                digest.update((key + "=" + property.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String sha256(byte[] bytes) throws IOException
+    {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    private static MessageDigest newDigest() throws IOException
+    {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex); // SHA-256 is required of every Java platform
+        }
+    }
+}
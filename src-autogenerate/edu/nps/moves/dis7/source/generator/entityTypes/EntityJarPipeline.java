@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.source.generator.entityTypes;
+
+import edu.nps.moves.dis7.source.generator.InMemoryJavaCompiler;
+import edu.nps.moves.dis7.source.generator.SourceFileEmitter;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles entity classes rendered in memory by GenerateEntityTypes and packages them directly into the
+ * opendis7-entities-*.jar archives, without writing source files, reading them back or copying class files.
+ * Enabled by system property xmlpg.entityJars naming the jar directory, for example dist.
+ * <p>
+ * Entity classes of all countries are independent of each other, so they are compiled concurrently in balanced
+ * groups of neighboring packages. Root classes such as EntityTypeFactory, which refers to every entity class,
+ * are compiled afterwards. Jar names and contents match the package-dis7-entities-*-jar targets of build.xml.
+ * @see InMemoryJavaCompiler
+ */
+public final class EntityJarPipeline
+{
+    /** System property naming directory for entity jars; sources are written as usual when absent or empty */
+    public static final String JAR_DIRECTORY_PROPERTY = "xmlpg.entityJars";
+
+    /** Files of the entities package included in every entity jar */
+    private static final String[] ROOT_INCLUDES = {
+        "EntityTypeFactory*.class", "uid2EntityClass.properties", "EntityTypeIndex.class", "EntityTypeTrie*.class",
+        "EntityTypeCatalog.class", "entityTypeCatalog.bin", "entityTypeIndex.txt"
+    };
+
+    /** Jar name, specification title and included subpackages of the entities package, as in build.xml */
+    private static final String[][] JARS = {
+        { "opendis7-entities-chn",           "OpenDIS7 Chinese Entities",           "chn/**" },
+        { "opendis7-entities-deu",           "OpenDIS7 German Entities",            "deu/**" },
+        { "opendis7-entities-rus",           "OpenDIS7 Russian Entities",           "rus/**" },
+        { "opendis7-entities-usa-all",       "OpenDIS7 American Entities",          "usa/**" },
+        { "opendis7-entities-usa-munitions", "OpenDIS7 American Munition Entities", "usa/munition/**" },
+        { "opendis7-entities-usa-air",       "OpenDIS7 American Air Entities",      "usa/platform/air/**" },
+        { "opendis7-entities-usa-land",      "OpenDIS7 American Land Entities",     "usa/platform/land/**" },
+        { "opendis7-entities-usa-surface",   "OpenDIS7 American Surface Entities",  "usa/platform/surface/**" },
+        { "opendis7-entities-nato",          "OpenDIS7 Nato Entities",
+          "alb/**", "bel/**", "bgr/**", "can/**", "cze/**", "deu/**", "dnk/**", "esp/**", "est/**", "fra/**", "gbr/**",
+          "grc/**", "hrv/**", "hun/**", "ita/**", "ltu/**", "lva/**", "mne/**", "nld/**", "nor/**", "pol/**", "prt/**",
+          "roy/**", "svk/**", "tur/**" }
+    };
+
+    private final Path   outputDirectory;
+    private final String packagePath;
+    private final int    threadCount = Integer.getInteger(SourceFileEmitter.THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Constructor
+     * @param outputDirectory directory of the entities package, under which rendered files are named
+     * @param packageName entities package name, for example edu.nps.moves.dis7.entities
+     */
+    public EntityJarPipeline(File outputDirectory, String packageName)
+    {
+        this.outputDirectory = outputDirectory.toPath().toAbsolutePath().normalize();
+        this.packagePath     = packageName.replace('.', '/') + "/";
+    }
+
+    /**
+     * Compile rendered sources and write entity jars
+     * @param files rendered files kept in memory by SourceFileEmitter, keyed by absolute normalized path
+     * @param jarDirectory directory receiving jars, created if necessary
+     * @throws IOException if compilation fails or a jar cannot be written
+     */
+    public void build(Map<Path, byte[]> files, File jarDirectory) throws IOException
+    {
+        TreeMap<String, String> entitySources = new TreeMap<>(); // sorted, so neighboring packages share a group
+        TreeMap<String, String> rootSources   = new TreeMap<>();
+        TreeMap<String, byte[]> entries       = new TreeMap<>();
+        for (Map.Entry<Path, byte[]> file : files.entrySet())
+        {
+            String relativePath = outputDirectory.relativize(file.getKey()).toString().replace(File.separatorChar, '/');
+            String name = packagePath + relativePath;
+            if (!name.endsWith(".java"))
+                entries.put(name, file.getValue()); // resources such as uid2EntityClass.properties
+            else if (relativePath.indexOf('/') < 0)
+                rootSources.put(name, new String(file.getValue(), StandardCharsets.UTF_8));
+            else
+                entitySources.put(name, new String(file.getValue(), StandardCharsets.UTF_8));
+        }
+
+        long startTime = System.currentTimeMillis();
+        InMemoryJavaCompiler compiler = new InMemoryJavaCompiler();
+        compiler.compile(partition(entitySources, 2 * threadCount), threadCount);
+        compiler.compile(rootSources); // refers to entity classes compiled above
+        entries.putAll(compiler.getClasses());
+        System.out.println("EntityJarPipeline compiled " + (entitySources.size() + rootSources.size()) + " sources to "
+                           + compiler.getClasses().size() + " classes in " + (System.currentTimeMillis() - startTime) + " msec");
+
+        startTime = System.currentTimeMillis();
+        Files.createDirectories(jarDirectory.toPath());
+        String version = DateTimeFormatter.ofPattern("d MMMM yyyy HH:mm:ss").format(LocalDateTime.now()); // as build.xml timestamp
+        try {
+            List.of(JARS).parallelStream().forEach(jar -> {
+                try {
+                    writeJar(new File(jarDirectory, jar[0] + ".jar").toPath(), jar, entries, version);
+                }
+                catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+        catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        System.out.println("EntityJarPipeline wrote " + JARS.length + " jars to " + jarDirectory + " in " + (System.currentTimeMillis() - startTime) + " msec");
+    }
+
+    /** Split sorted sources into at most count groups of similar size, keeping each group contiguous */
+    private static List<Map<String, String>> partition(TreeMap<String, String> sources, int count)
+    {
+        List<Map<String, String>> groups = new ArrayList<>();
+        int groupSize = Math.max(1, (sources.size() + count - 1) / count);
+        TreeMap<String, String> group = new TreeMap<>();
+        for (Map.Entry<String, String> source : sources.entrySet())
+        {
+            group.put(source.getKey(), source.getValue());
+            if (group.size() == groupSize)
+            {
+                groups.add(group);
+                group = new TreeMap<>();
+            }
+        }
+        if (!group.isEmpty())
+            groups.add(group);
+        return groups;
+    }
+
+    /** Write one jar via a temporary file, with manifest, directory entries and all matching entries in sorted order */
+    private void writeJar(Path jarFile, String[] jar, TreeMap<String, byte[]> entries, String version) throws IOException
+    {
+        List<Pattern> includes = new ArrayList<>();
+        for (String include : ROOT_INCLUDES)
+            includes.add(antPattern(packagePath + include));
+        for (int i = 2; i < jar.length; i++)
+            includes.add(antPattern(packagePath + jar[i]));
+
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue("Created-By",             EntityJarPipeline.class.getName());
+        attributes.putValue("Built-By",               "opendis7-source-generator https://github.com/open-dis/opendis7-source-generator");
+        attributes.putValue("Specification-Title",    jar[1]);
+        attributes.putValue("Specification-Version",  "Reference for Enumerations for Simulation Interoperability SISO-REF-010-v33");
+        attributes.putValue("Specification-Vendor",   "Naval Postgraduate School (NPS)");
+        attributes.putValue("Implementation-Title",   "edu.nps.moves.dis7");
+        attributes.putValue("Implementation-Version", version);
+        attributes.putValue("Implementation-Vendor",  "Naval Postgraduate School (NPS)");
+
+        Path temporaryFile = Files.createTempFile(jarFile.toAbsolutePath().getParent(), jar[0], ".tmp");
+        int count = 0;
+        try (JarOutputStream jos = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), 1 << 16), manifest)) {
+            Set<String> directories = new HashSet<>();
+            for (Map.Entry<String, byte[]> entry : entries.entrySet())
+            {
+                if (includes.stream().noneMatch(pattern -> pattern.matcher(entry.getKey()).matches()))
+                    continue;
+                for (int slash = entry.getKey().indexOf('/'); slash >= 0; slash = entry.getKey().indexOf('/', slash + 1))
+                {
+                    String directory = entry.getKey().substring(0, slash + 1);
+                    if (directories.add(directory))
+                    {
+                        jos.putNextEntry(new JarEntry(directory));
+                        jos.closeEntry();
+                    }
+                }
+                jos.putNextEntry(new JarEntry(entry.getKey()));
+                jos.write(entry.getValue());
+                jos.closeEntry();
+                count++;
+            }
+        }
+        Files.move(temporaryFile, jarFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.out.println("Created " + jarFile + ", " + count + " entries");
+    }
+
+    /** Convert an Ant include pattern, where ** matches any path and * matches within one path segment */
+    private static Pattern antPattern(String include)
+    {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < include.length(); i++)
+        {
+            char c = include.charAt(i);
+            if ((c == '*') && (i + 1 < include.length()) && (include.charAt(i + 1) == '*'))
+            {
+                regex.append(".*");
+                i++;
+            }
+            else if (c == '*')
+                regex.append("[^/]*");
+            else
+                regex.append(Pattern.quote(String.valueOf(c)));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -4,21 +4,27 @@
  */
 package edu.nps.moves.dis7.source.generator.entityTypes;
 
+import edu.nps.moves.dis7.source.generator.CompiledTemplate;
+import edu.nps.moves.dis7.source.generator.GenerationProfile;
+import edu.nps.moves.dis7.source.generator.SisoModel;
+import edu.nps.moves.dis7.source.generator.SourceFileEmitter;
 import edu.nps.moves.dis7.source.generator.enumerations.GenerateEnumerations;
-import java.io.BufferedWriter;
+import edu.nps.moves.dis7.source.generator.enumerations.SisoEnumerationNames;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParserFactory;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
@@ -41,11 +47,30 @@ public class GenerateEntityTypes
     private static String         sisoXmlFile = edu.nps.moves.dis7.source.generator.GenerateOpenDis7JavaPackages.DEFAULT_SISO_XML_FILE;
     private static String       sisoSpecificationTitleDate = "";
 
-    private BufferedWriter uid2ClassWriter = null;
+    private StringBuilder uid2ClassProperties = null; // contents of uid2EntityClass.properties
 
-    String entitytypecommonTemplate;
-    String       uidfactoryTemplate;
-    String          licenseTemplate;
+    CompiledTemplate entitytypecommonTemplate;
+    CompiledTemplate       uidfactoryTemplate;
+    String            entitytypeindexTemplate;
+    String             entitytypetrieTemplate;
+    String          entitytypecatalogTemplate;
+    String                    licenseTemplate;
+
+    /** One generated entity class, recorded for the index written after parsing completes */
+    class EntityTypeRecord
+    {
+      int uid;
+      int kind;
+      int domain;
+      int country;
+      int category;
+      int subCategory;
+      int specific;
+      int extra;
+      String className;   // fully qualified
+      String description;
+    }
+    private final List<EntityTypeRecord> entityTypeRecords = new ArrayList<>();
 
     class TypeClassData
     {
@@ -97,193 +122,253 @@ public class GenerateEntityTypes
         packageInfoPath = outputDirectoryPath + "/" + "package-info.java";
         packageInfoFile = new File(packageInfoPath);
         
-        FileWriter packageInfoFileWriter;
-        try {
-            packageInfoFile.createNewFile();
-            packageInfoFileWriter = new FileWriter(packageInfoFile, StandardCharsets.UTF_8);
-            packageInfoBuilder = new StringBuilder();
-            packageInfoBuilder.append("/**\n");
-            packageInfoBuilder.append(" * The <code>entities</code>  packages provide a large number of autogenerated utility classes for world entities of interest.");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append(" * <p> Online references: </p>\n");
-            packageInfoBuilder.append(" * <ul>\n");
-            packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"_blank\">open-dis7-java library</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/open-dis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/open-dis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/open-dis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append(" * @see java.lang.Package\n");
-            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">Stack Overflow: why-is-package-info-java-useful</a>\n");
-            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">Stack Overflow: how-do-i-document-packages-in-java</a>\n");
-            packageInfoBuilder.append(" */\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append("package edu.nps.moves.dis7.entities;\n");
+        packageInfoBuilder = new StringBuilder();
+        packageInfoBuilder.append("/**\n");
+        packageInfoBuilder.append(" * The <code>entities</code>  packages provide a large number of autogenerated utility classes for world entities of interest.");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append(" * <p> Online references: </p>\n");
+        packageInfoBuilder.append(" * <ul>\n");
+        packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"_blank\">open-dis7-java library</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/open-dis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/open-dis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/open-dis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append(" * @see java.lang.Package\n");
+        packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">Stack Overflow: why-is-package-info-java-useful</a>\n");
+        packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">Stack Overflow: how-do-i-document-packages-in-java</a>\n");
+        packageInfoBuilder.append(" */\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append("package edu.nps.moves.dis7.entities;\n");
+        // written by run(), unless incremental generation finds nothing changed
+  }
 
-            packageInfoFileWriter.write(packageInfoBuilder.toString());
-            packageInfoFileWriter.flush();
-            packageInfoFileWriter.close();
-            System.out.println("Created " + packageInfoPath);
+  /** constant names and descriptions of Country, EntityKind and domain enumerations, taken from the SISO model
+   *  so that enumerations need not be compiled first */
+  private SisoEnumerationNames enumerationNames;
+
+  /** writes generated files on worker threads while the SISO model is replayed */
+  private SourceFileEmitter emitter;
+
+  private void run() throws SAXException, IOException, ParserConfigurationException
+  {
+    GenerationProfile.begin();
+    try (SourceFileEmitter sourceFileEmitter = new SourceFileEmitter(GenerateEntityTypes.class.getSimpleName(), outputDirectory, new File(sisoXmlFile))) {
+      emitter = sourceFileEmitter;
+      String jarDirectory = System.getProperty(EntityJarPipeline.JAR_DIRECTORY_PROPERTY, "");
+      if (!jarDirectory.isEmpty())
+        emitter.keepInMemory(); // compiled and packaged directly, no source files written
+      if (emitter.isUpToDate())
+        return; // incremental generation, nothing changed since previous run
+      emitter.write(packageInfoFile, packageInfoBuilder.toString());
+      generate();
+      if (!jarDirectory.isEmpty())
+      {
+        GenerationProfile.Phase compile = GenerationProfile.start(GenerateEntityTypes.class.getSimpleName(), "compile");
+        try {
+          new EntityJarPipeline(outputDirectory, packageName).build(emitter.getRetainedFiles(), new File(jarDirectory));
         }
-        catch (IOException ex) {
-            System.out.flush(); // avoid intermingled output
-            System.err.println (ex.getMessage()
-               + packageInfoFile.getAbsolutePath()
-            );
-            ex.printStackTrace(System.err);
+        finally {
+          compile.close();
         }
+      }
+      emitter.finish(); // when incremental, deletes files no longer generated and saves manifest
+    } // waits for all files, reporting any failure
+    finally {
+      GenerationProfile.end(GenerateEntityTypes.class.getSimpleName()); // reports phases when xmlpg.profile is set
+    }
   }
 
-  Method methodPlatformDomainFromIntMethod;
-  Method methodPlatformDomainNameMethod;
-  Method methodPlatformDomainDescriptionMethod;
-  
-  Method countryFromIntMethod;
-  Method countryNameMethod;
-  Method countryDescriptionMethod;
-  
-  Method kindFromIntMethod;
-  Method kindNameMethod;
-  Method kindDescriptionMethod;
+  private void generate() throws SAXException, IOException, ParserConfigurationException
+  {
+    SisoModel sisoModel = SisoModel.load(sisoXmlFile); // shared, parsed once
 
-  Method munitionDomainFromIntMethod;
-  Method munitionDomainNameMethod;
-  Method munitionDomainDescriptionMethod;
-  
-  Method supplyDomainFromIntMethod;
-  Method supplyDomainNameMethod;
-  Method supplyDomainDescriptionMethod;
+    loadTemplates();
+    GenerationProfile.Phase model = GenerationProfile.start(GenerateEntityTypes.class.getSimpleName(), GenerationProfile.MODEL);
+    try {
+      enumerationNames = SisoEnumerationNames.collect(sisoModel, "Country", "EntityKind", "PlatformDomain", "MunitionDomain", "SupplyDomain");
+    }
+    finally {
+      model.close();
+    }
+    
+    System.out.println("Generating entities:");
+    MyHandler handler = new MyHandler();
+    GenerationProfile.Phase render = GenerationProfile.start(GenerateEntityTypes.class.getSimpleName(), GenerationProfile.RENDER);
+    try {
+      sisoModel.replay(handler);
+    
+      if(uid2ClassProperties != null) 
+         emitter.write(new File(outputDirectory, "uid2EntityClass.properties"), uid2ClassProperties.toString());
+      saveUidFactory();
+      saveEntityTypeIndex();
+    }
+    finally {
+      render.close();
+    }
+    System.out.println (GenerateEntityTypes.class.getName() + " complete."); // TODO  + handler.enums.size() + " enums created.");
+  }
 
-  // Don't put imports in code for this, needs to have enumerations built first; do it this way
-  // Update, this might now be unnecessary with the re-structuring of the projects
-  private void buildKindDomainCountryInstances()
+  private void loadTemplates()
   {
-    Method[] ma;
     try {
-      ma = getEnumMethods("edu.nps.moves.dis7.enumerations.PlatformDomain");
-      methodPlatformDomainFromIntMethod     = ma[FORVALUE];
-      methodPlatformDomainNameMethod        = ma[NAME];
-      methodPlatformDomainDescriptionMethod = ma[DESCRIPTION];
-
-      ma = getEnumMethods("edu.nps.moves.dis7.enumerations.Country");
-      countryFromIntMethod     = ma[FORVALUE];
-      countryNameMethod        = ma[NAME];
-      countryDescriptionMethod = ma[DESCRIPTION];
-
-      ma = getEnumMethods("edu.nps.moves.dis7.enumerations.EntityKind");
-      kindFromIntMethod     = ma[FORVALUE];
-      kindNameMethod        = ma[NAME];
-      kindDescriptionMethod = ma[DESCRIPTION];
-
-      ma = getEnumMethods("edu.nps.moves.dis7.enumerations.MunitionDomain");
-      munitionDomainFromIntMethod     = ma[FORVALUE];
-      munitionDomainNameMethod        = ma[NAME];
-      munitionDomainDescriptionMethod = ma[DESCRIPTION];
-
-      ma = getEnumMethods("edu.nps.moves.dis7.enumerations.SupplyDomain");
-      supplyDomainFromIntMethod     = ma[FORVALUE];
-      supplyDomainNameMethod        = ma[NAME];
-      supplyDomainDescriptionMethod = ma[DESCRIPTION];
+      licenseTemplate          = loadOneTemplate("../pdus/dis7javalicense.txt").getText();
+      entitytypecommonTemplate = loadOneTemplate("entitytypecommon.txt");
+      uidfactoryTemplate       = loadOneTemplate("uidfactory.txt");
+      entitytypeindexTemplate  = loadOneTemplate("entitytypeindex.txt").getText();
+      entitytypetrieTemplate   = loadOneTemplate("entitytypetrie.txt").getText();
+      entitytypecatalogTemplate= loadOneTemplate("entitytypecatalog.txt").getText();
     }
     catch (Exception ex) {
-      throw new RuntimeException(ex.getClass().getName() + ": " + ex.getLocalizedMessage());
+      throw new RuntimeException(ex);
     }
   }
-  private static final int FORVALUE = 0;
-  private static final int NAME = 1;
-  private static final int DESCRIPTION = 2;
 
-  private Method[] getEnumMethods(String className) throws Exception
+  private CompiledTemplate loadOneTemplate(String s) throws Exception
   {
-    Method[] ma = new Method[3];
-
-    Class<?> cls = Class.forName(className);
-    ma[FORVALUE] = cls.getDeclaredMethod("getEnumForValue", int.class);
-    ma[NAME] = cls.getMethod("name", (Class[]) null);
-    ma[DESCRIPTION] = cls.getDeclaredMethod("getDescription", (Class[]) null);
-
-    return ma;
+    return CompiledTemplate.load(getClass(), s); // parsed once, shared with other generators
   }
+  
+  /** uids per nested range class of EntityTypeFactory, small enough to keep each switch method and constant pool within class-file limits */
+  private static final int UIDS_PER_RANGE = 1024;
 
-  String getDescription(Method enumGetter, Method descriptionGetter, int i) throws Exception
+  /** Write EntityTypeFactory with one switch case per uid, creating each entity class directly */
+  private void saveUidFactory()
   {
-      String result = "";
-      if ((enumGetter == null) || (descriptionGetter == null))
-          return result;
-      try 
-      {
-        Object enumObj = getEnum(enumGetter, i);
-        result = (String) descriptionGetter.invoke(enumObj, (Object[]) null);
-      }
-      catch (Exception e)
+    TreeMap<Integer, String> uid2ClassName = new TreeMap<>();
+    for (EntityTypeRecord r : entityTypeRecords)
+      uid2ClassName.putIfAbsent(r.uid, r.className);
+
+    StringBuilder dispatch = new StringBuilder();
+    StringBuilder ranges   = new StringBuilder();
+    int range = -1;
+    for (Map.Entry<Integer, String> entry : uid2ClassName.entrySet())
+    {
+      int uid = entry.getKey();
+      if (uid / UIDS_PER_RANGE != range)
       {
-          System.err.println (this.getClass().getName() + ".getDescription() exception:" + e);
+        if (range >= 0)
+          ranges.append("        default: return null;\n      }\n    }\n  }\n");
+        range = uid / UIDS_PER_RANGE;
+        dispatch.append("      case ").append(range).append(": return UidRange").append(range).append(".newEntity(uid);\n");
+        ranges.append("\n  /** uids ").append(range * UIDS_PER_RANGE).append(" to ").append((range + 1) * UIDS_PER_RANGE - 1).append(" */\n");
+        ranges.append("  private static final class UidRange").append(range).append("\n  {\n");
+        ranges.append("    static Object newEntity(int uid)\n    {\n      switch (uid)\n      {\n");
       }
-      return result;
-  }
+      ranges.append("        case ").append(uid).append(": return new ").append(entry.getValue()).append("();\n");
+    }
+    if (range >= 0)
+      ranges.append("        default: return null;\n      }\n    }\n  }\n");
 
-  String getName(Method enumGetter, Method nameGetter, int i) throws Exception
-  {
-      if (enumGetter == null)
-          return ""; // TODO fix
-    Object enumObj = getEnum(enumGetter, i);
-    return (String) nameGetter.invoke(enumObj, (Object[]) null);
+    String contents = uidfactoryTemplate.render(UIDS_PER_RANGE, dispatch.toString(), ranges.toString());
+    saveFile(outputDirectory, "EntityTypeFactory.java", contents);
   }
 
-  Object getEnum(Method enumGetter, int i) throws Exception
+  /** Write EntityTypeIndex class and its resource, one tab-separated line per generated entity class */
+  private void saveEntityTypeIndex()
   {
-    if (enumGetter == null)
+    StringBuilder sb = new StringBuilder();
+    sb.append("# uid, kind, domain, country, category, subcategory, specific, extra, class name, description\n");
+    for (EntityTypeRecord r : entityTypeRecords)
     {
-        System.err.println ("NPE: getEnum (enumGetter == null, i=" + i + ")");
-        return null;
+      sb.append(r.uid).append('\t')
+        .append(r.kind).append('\t').append(r.domain).append('\t').append(r.country).append('\t')
+        .append(r.category).append('\t').append(r.subCategory).append('\t').append(r.specific).append('\t').append(r.extra).append('\t')
+        .append(r.className).append('\t')
+        .append(r.description.replaceAll("\\s", " ")).append('\n');
     }
-    return enumGetter.invoke(null, i);
+    saveFile(outputDirectory, "entityTypeIndex.txt",  sb.toString());
+    saveFile(outputDirectory, "EntityTypeIndex.java", entitytypeindexTemplate);
+    saveFile(outputDirectory, "EntityTypeTrie.java",  entitytypetrieTemplate); // catalog trie is built from index records
+    saveFile(outputDirectory, "EntityTypeCatalog.java", entitytypecatalogTemplate);
+    System.out.println("Indexed " + entityTypeRecords.size() + " entity types");
+    if (Boolean.parseBoolean(System.getProperty("xmlpg.entityTypeCatalog"))) // optional
+      saveEntityTypeCatalog(new File(outputDirectory, "entityTypeCatalog.bin"));
   }
 
-  private void run() throws SAXException, IOException, ParserConfigurationException
+  /** Write binary catalog read by EntityTypeCatalog: header, fixed-width records sorted by packed entity type,
+   * uid index and UTF-8 string table, all big-endian */
+  private void saveEntityTypeCatalog(File target)
   {
-    SAXParserFactory factory = SAXParserFactory.newInstance();
-    factory.setValidating(false);
-    factory.setNamespaceAware(true);
-    factory.setXIncludeAware(true);
-
-    loadTemplates();
-    buildKindDomainCountryInstances(); // TODO questionable invocation, now working...
-    
-    System.out.println("Generating entities:");
-    MyHandler handler = new MyHandler();
-    factory.newSAXParser().parse(new File(sisoXmlFile), handler);
-    
-    if(uid2ClassWriter != null) 
+    final int HEADER_SIZE = 32;
+    final int RECORD_SIZE = 20;
+    List<EntityTypeRecord> sorted = new ArrayList<>(entityTypeRecords);
+    sorted.sort(Comparator.comparingLong(r -> packEntityType(r)));
+    Integer[] byUid = new Integer[sorted.size()];
+    for (int i = 0; i < byUid.length; i++)
+      byUid[i] = i;
+    Arrays.sort(byUid, Comparator.comparingInt(i -> sorted.get(i).uid));
+
+    ByteArrayOutputStream strings = new ByteArrayOutputStream();
+    Map<String, Integer> stringOffsets = new HashMap<>(); // shared descriptions and names are written once
+    int[] classNameOffsets   = new int[sorted.size()];
+    int[] descriptionOffsets = new int[sorted.size()];
+    for (int i = 0; i < sorted.size(); i++)
     {
-       uid2ClassWriter.flush();
-       uid2ClassWriter.close();
+      classNameOffsets[i]   = addCatalogString(sorted.get(i).className,   strings, stringOffsets);
+      descriptionOffsets[i] = addCatalogString(sorted.get(i).description, strings, stringOffsets);
     }
-    saveUidFactory();
-    System.out.println (GenerateEntityTypes.class.getName() + " complete."); // TODO  + handler.enums.size() + " enums created.");
-  }
-
-  private void loadTemplates()
-  {
-    try {
-      licenseTemplate          = loadOneTemplate("../pdus/dis7javalicense.txt");
-      entitytypecommonTemplate = loadOneTemplate("entitytypecommon.txt");
-      uidfactoryTemplate       = loadOneTemplate("uidfactory.txt");
+    int recordsOffset  = HEADER_SIZE;
+    int uidIndexOffset = recordsOffset  + sorted.size() * RECORD_SIZE;
+    int stringsOffset  = uidIndexOffset + sorted.size() * Integer.BYTES;
+
+    ByteArrayOutputStream catalog = new ByteArrayOutputStream(stringsOffset + strings.size());
+    try (DataOutputStream dos = new DataOutputStream(catalog)) {
+      dos.writeInt(0x44495345); // "DISE"
+      dos.writeShort(1);        // version
+      dos.writeShort(RECORD_SIZE);
+      dos.writeInt(sorted.size());
+      dos.writeInt(recordsOffset);
+      dos.writeInt(uidIndexOffset);
+      dos.writeInt(stringsOffset);
+      dos.writeInt(strings.size());
+      dos.writeInt(0);          // reserved
+      for (int i = 0; i < sorted.size(); i++)
+      {
+        dos.writeLong(packEntityType(sorted.get(i)));
+        dos.writeInt(sorted.get(i).uid);
+        dos.writeInt(classNameOffsets[i]);
+        dos.writeInt(descriptionOffsets[i]);
+      }
+      for (Integer index : byUid)
+        dos.writeInt(index);
+      strings.writeTo(dos);
     }
-    catch (Exception ex) {
-      throw new RuntimeException(ex);
+    catch (IOException ex) {
+      throw new RuntimeException("Error saving " + target.getName() + ": " + ex.getLocalizedMessage(), ex);
     }
+    emitter.write(target, catalog.toByteArray());
+    System.out.println("Created " + target.getPath() + ", " + catalog.size() + " bytes");
   }
 
-  private String loadOneTemplate(String s) throws Exception
+  private int addCatalogString(String value, ByteArrayOutputStream strings, Map<String, Integer> stringOffsets)
   {
-    return new String(Files.readAllBytes(Paths.get(getClass().getResource(s).toURI())), StandardCharsets.UTF_8.name());
+    Integer offset = stringOffsets.get(value);
+    if (offset == null)
+    {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      if (bytes.length > 0xFFFF)
+        bytes = Arrays.copyOf(bytes, 0xFFFF); // not expected for SISO descriptions
+      offset = strings.size();
+      strings.write(bytes.length >>> 8);
+      strings.write(bytes.length);
+      strings.write(bytes, 0, bytes.length);
+      stringOffsets.put(value, offset);
+    }
+    return offset;
   }
-  
-  private void saveUidFactory()
+
+  /** Same 64-bit packing in wire order as EntityTypeIndex.pack() */
+  private static long packEntityType(EntityTypeRecord r)
   {
-    saveFile(outputDirectory, "EntityTypeFactory.java",uidfactoryTemplate);
+    return ((long) (r.kind        & 0xFF)   << 56) |
+           ((long) (r.domain      & 0xFF)   << 48) |
+           ((long) (r.country     & 0xFFFF) << 32) |
+           ((long) (r.category    & 0xFF)   << 24) |
+           ((long) (r.subCategory & 0xFF)   << 16) |
+           ((long) (r.specific    & 0xFF)   <<  8) |
+            (long) (r.extra       & 0xFF);
   }
   
   class DescriptionElem
@@ -554,24 +639,39 @@ public class GenerateEntityTypes
     
     private void addToPropertiesFile(String pkg, String className, String uid)
     {
-      try {
-        if(uid2ClassWriter == null)
-          buildUid2ClassWriter();
-        uid2ClassWriter.write(uid+"="+pkg+"."+className);
-        uid2ClassWriter.newLine();
-      }
-      catch(IOException ex) {
-        throw new RuntimeException (ex);
-      }
+      if(uid2ClassProperties == null)
+        uid2ClassProperties = new StringBuilder();
+      uid2ClassProperties.append(uid).append('=').append(pkg).append('.').append(className).append('\n');
     }
     
-    private void buildUid2ClassWriter() throws IOException
+    /** Current category, subcategory, specific and extra elements are exactly those of the entity class being saved,
+     * since each is reset when its XML element ends */
+    private void addToEntityTypeRecords(TypeClassData data, String uid)
     {
-      File f = new File(outputDirectory,"uid2EntityClass.properties");
-      f.createNewFile();
-      uid2ClassWriter = new BufferedWriter(new FileWriter(f));
+      EntityTypeRecord r = new EntityTypeRecord();
+      r.uid         = parseValue(uid);
+      r.kind        = parseValue(currentEntity.kind);
+      r.domain      = parseValue(currentEntity.domain);
+      r.country     = parseValue(currentEntity.country);
+      r.category    = (currentCategory    == null) ? 0 : parseValue(currentCategory.value);
+      r.subCategory = (currentSubCategory == null) ? 0 : parseValue(currentSubCategory.value);
+      r.specific    = (currentSpecific    == null) ? 0 : parseValue(currentSpecific.value);
+      r.extra       = (currentExtra       == null) ? 0 : parseValue(currentExtra.value);
+      r.className   = data.pkg + "." + data.className;
+      DescriptionElem elem = (currentExtra       != null) ? currentExtra :
+                             (currentSpecific    != null) ? currentSpecific :
+                             (currentSubCategory != null) ? currentSubCategory : currentCategory;
+      r.description = ((elem == null) || (elem.description == null)) ? "" : elem.description;
+      entityTypeRecords.add(r);
     }
-    
+
+    private int parseValue(String value)
+    {
+      if ((value == null) || value.isEmpty())
+        return 0;
+      return Integer.parseInt(value.trim());
+    }
+
     private void saveEntityFile(TypeClassData data, String uid)
     {
         data.sb.append("    }\n");
@@ -581,62 +681,59 @@ public class GenerateEntityTypes
         data.sb.append("    {\n");
         data.sb.append("            return new ").append(data.className).append("();\n");
         data.sb.append("    }\n");
+        data.sb.append("    private static volatile EntityType canonical; // interned on first request\n");
+        data.sb.append("    /** Provide the shared immutable instance of this entity type, a plain EntityType, which is also returned when\n");
+        data.sb.append("      * unmarshalling this entity type with EntityType.setInternOnUnmarshal(true)\n");
+        data.sb.append("      * @return canonical instance, which rejects modification */\n");
+        data.sb.append("    public static EntityType canonicalInstance()\n");
+        data.sb.append("    {\n");
+        data.sb.append("        EntityType instance = canonical;\n");
+        data.sb.append("        if (instance == null)\n");
+        data.sb.append("            canonical = instance = EntityType.intern(new ").append(data.className).append("());\n");
+        data.sb.append("        return instance;\n");
+        data.sb.append("    }\n");
         data.sb.append("}\n");
         saveFile(data.directory, data.className + ".java", data.sb.toString());
         addToPropertiesFile(data.pkg, data.className, uid);
+        addToEntityTypeRecords(data, uid);
         
         packageInfoPath = data.directory + "/" + "package-info.java";
         File   packageInfoFile = new File(packageInfoPath);
       
-        if (!packageInfoFile.exists()) // write package-info.java during first time through
+        if (!emitter.exists(packageInfoFile)) // write package-info.java during first time through
         {
-            FileWriter packageInfoFileWriter;
-            try {
-                packageInfoFile.createNewFile();
-                packageInfoFileWriter = new FileWriter(packageInfoFile, StandardCharsets.UTF_8);
-                packageInfoBuilder = new StringBuilder();
-                packageInfoBuilder.append("/**\n");
-                if (!data.countryValue.isEmpty())
-                    packageInfoBuilder.append(" ").append(data.countryNamePretty);
-                if (!data.entityKindName.isEmpty())
-                    packageInfoBuilder.append(" ").append(data.entityKindName);
-                if (!data.entityDomainName.isEmpty())
-                    packageInfoBuilder.append(" ").append(data.entityDomainValue);
-                if (!data.countryValue.isEmpty() && !data.entityKindName.isEmpty() && !data.entityDomainValue.isEmpty())
-                    packageInfoBuilder.append(" t");
-                else
-                    packageInfoBuilder.append(" T");
-                packageInfoBuilder.append("yped classes for world entities defined by ").append(sisoSpecificationTitleDate).append(" enumerations.\n");
-                packageInfoBuilder.append("\n");
-                packageInfoBuilder.append(" * <p> Online references: </p>\n");
-                packageInfoBuilder.append(" * <ul>\n");
-                packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"_blank\">open-dis7-java library</a> </li> \n");
-                packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
-                packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
-                packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
-                packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
-                packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/open-dis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/open-dis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/open-dis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
-                packageInfoBuilder.append("\n");
-                packageInfoBuilder.append(" * @see java.lang.Package\n");
-                packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">Stack Overflow: why-is-package-info-java-useful</a>\n");
-                packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">Stack Overflow: how-do-i-document-packages-in-java</a>\n");
-                packageInfoBuilder.append(" */\n");
-                packageInfoBuilder.append("// created by edu/nps/moves/dis7/source/generator/entityTypes/GenerateEntityTypes.java\n");
-                packageInfoBuilder.append("\n");
-                packageInfoBuilder.append("package ").append(data.pkg).append(";\n");
-
-                packageInfoFileWriter.write(packageInfoBuilder.toString());
-                packageInfoFileWriter.flush();
-                packageInfoFileWriter.close();
-                System.out.println("Created " + packageInfoPath);
-            }
-            catch (IOException ex) {
-                System.out.flush(); // avoid intermingled output
-                System.err.println (ex.getMessage()
-                   + packageInfoFile.getAbsolutePath()
-                );
-                ex.printStackTrace(System.err);
-            }
+            packageInfoBuilder = new StringBuilder();
+            packageInfoBuilder.append("/**\n");
+            if (!data.countryValue.isEmpty())
+                packageInfoBuilder.append(" ").append(data.countryNamePretty);
+            if (!data.entityKindName.isEmpty())
+                packageInfoBuilder.append(" ").append(data.entityKindName);
+            if (!data.entityDomainName.isEmpty())
+                packageInfoBuilder.append(" ").append(data.entityDomainValue);
+            if (!data.countryValue.isEmpty() && !data.entityKindName.isEmpty() && !data.entityDomainValue.isEmpty())
+                packageInfoBuilder.append(" t");
+            else
+                packageInfoBuilder.append(" T");
+            packageInfoBuilder.append("yped classes for world entities defined by ").append(sisoSpecificationTitleDate).append(" enumerations.\n");
+            packageInfoBuilder.append("\n");
+            packageInfoBuilder.append(" * <p> Online references: </p>\n");
+            packageInfoBuilder.append(" * <ul>\n");
+            packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"_blank\">open-dis7-java library</a> </li> \n");
+            packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
+            packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
+            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
+            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
+            packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/open-dis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/open-dis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/open-dis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
+            packageInfoBuilder.append("\n");
+            packageInfoBuilder.append(" * @see java.lang.Package\n");
+            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">Stack Overflow: why-is-package-info-java-useful</a>\n");
+            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">Stack Overflow: how-do-i-document-packages-in-java</a>\n");
+            packageInfoBuilder.append(" */\n");
+            packageInfoBuilder.append("// created by edu/nps/moves/dis7/source/generator/entityTypes/GenerateEntityTypes.java\n");
+            packageInfoBuilder.append("\n");
+            packageInfoBuilder.append("package ").append(data.pkg).append(";\n");
+            emitter.write(packageInfoFile, packageInfoBuilder.toString());
+            System.out.println("Created " + packageInfoPath);
         }
     }
   
@@ -675,35 +772,34 @@ public class GenerateEntityTypes
           seeCurrentSubcategory = " * @see SubCategory\n";
           // TODO often package-specific since repeated, sometimes numeric:  + " * @see " + currentSubCategoryName;
       
-      String contents = String.format(entitytypecommonTemplate,       data.pkg,     // Class definition 
-                                      data.className,                                     // Opening sentence
-                                      data.className,                 data.className, // Usage 
-                                      data.countryNamePretty,         data.countryValue,
-                                      data.entityDomainName,          data.entityDomainValue,
-                                      data.entityKindNameDescription, data.entityKindValue,
-                                      currentCategory.description,    currentCategory.value,
-                                      currentSubCategoryName,         currentSubCategoryValue,
-                                      currentSpecificName,            currentSpecificValue,
-                                      data.entityUid,
-                                      sisoSpecificationTitleDate,    
-                                      data.fullName,                                      // Full name
-                                      data.countryName,                                   // @see Country#*
-                                      data.entityKindName,                                // @see EntityKind#*
-                                      data.entityDomainName,                              // @see %s (interface Domain)
-                                      seeCurrentCategory,                                 // @see Category (if present)
-                                      seeCurrentSubcategory,                              // @see SubCategory (if present)
-                                      data.className, data.className,                 // class definition
-                                      data.countryName, 
-                                      data.entityKindName, 
-                                      data.entityDomainName, 
-                                      data.entityDomainValue);
       data.sb.append(licenseTemplate);
-      data.sb.append(contents);
+      entitytypecommonTemplate.renderTo(data.sb,
+                                        data.pkg,                                           // Class definition 
+                                        data.className,                                     // Opening sentence
+                                        data.className,                 data.className, // Usage 
+                                        data.countryNamePretty,         data.countryValue,
+                                        data.entityDomainName,          data.entityDomainValue,
+                                        data.entityKindNameDescription, data.entityKindValue,
+                                        currentCategory.description,    currentCategory.value,
+                                        currentSubCategoryName,         currentSubCategoryValue,
+                                        currentSpecificName,            currentSpecificValue,
+                                        data.entityUid,
+                                        sisoSpecificationTitleDate,    
+                                        data.fullName,                                      // Full name
+                                        data.countryName,                                   // @see Country#*
+                                        data.entityKindName,                                // @see EntityKind#*
+                                        data.entityDomainName,                              // @see %s (interface Domain)
+                                        seeCurrentCategory,                                 // @see Category (if present)
+                                        seeCurrentSubcategory,                              // @see SubCategory (if present)
+                                        data.className, data.className,                 // class definition
+                                        data.countryName, 
+                                        data.entityKindName, 
+                                        data.entityDomainName, 
+                                        data.entityDomainValue);
     }
 
     private void appendStatement(DescriptionElem elem, String typ, StringBuilder sb)
     {
-      String template = "        set"+typ+"((byte)%s); // uid %s, %s\n";
       if (elem             == null)
           return;
       if (elem.value       == null)
@@ -712,7 +808,7 @@ public class GenerateEntityTypes
           elem.uid          = "";
       if (elem.description == null)
           elem.description  = "";
-      sb.append(String.format(template, elem.value, elem.uid, elem.description));
+      sb.append("        set").append(typ).append("((byte)").append(elem.value).append("); // uid ").append(elem.uid).append(", ").append(elem.description).append('\n');
     }
     
     private void writeCategoryFile(TypeClassData d)
@@ -794,20 +890,20 @@ public class GenerateEntityTypes
 
         // Protect against duplicate class names
         int i=1;
-        while(new File(dataPacket.directory,fixedName+".java").exists()){
+        while(emitter.exists(new File(dataPacket.directory,fixedName+".java"))){ // includes files not yet written
           fixedName = fixedName+ i++;
         }
 //        System.err.println("fixedName.java=" + fixedName + ".java"); // debug trace
 
         String packagePath = packageName + "." + pathToPackage(dataPacket.sb.toString());
         int    countryInteger  = Integer.parseInt(currentEntity.country);
-        String countryName     = getName(countryFromIntMethod, countryNameMethod, countryInteger);
+        String countryName     = enumerationNames.getName("Country", countryInteger);
 
         int entityDomainInteger = Integer.parseInt(currentEntity.domain);
         int entityKindInteger   = Integer.parseInt(currentEntity.kind);
 
-        String entityKindName        = getName(kindFromIntMethod, kindNameMethod, entityKindInteger);
-        String entityKindDescription = legalJavaDoc(getDescription(kindFromIntMethod, kindDescriptionMethod, entityKindInteger));
+        String entityKindName        = enumerationNames.getName("EntityKind", entityKindInteger);
+        String entityKindDescription = legalJavaDoc(enumerationNames.getDescription("EntityKind", entityKindInteger));
         
         String entityDomainName;
         String entityDomainDescription;
@@ -816,12 +912,12 @@ public class GenerateEntityTypes
           case "MUNITION":
             entityDomainName = "MunitionDomain";
             entityDomainDescription = "Munition Domain";
-            entityDomainValue = getName(munitionDomainFromIntMethod, munitionDomainNameMethod, entityDomainInteger);
+            entityDomainValue = enumerationNames.getName("MunitionDomain", entityDomainInteger);
             break;
           case "SUPPLY":
             entityDomainName = "SupplyDomain";
             entityDomainDescription = "Supply Domain";
-            entityDomainValue = getName(supplyDomainFromIntMethod, supplyDomainNameMethod, entityDomainInteger);
+            entityDomainValue = enumerationNames.getName("SupplyDomain", entityDomainInteger);
             break;
           case "OTHER":
           case "PLATFORM":
@@ -834,7 +930,7 @@ public class GenerateEntityTypes
           default:
             entityDomainName = "PlatformDomain";
             entityDomainDescription = "Platform Domain";
-            entityDomainValue = getName(methodPlatformDomainFromIntMethod, methodPlatformDomainNameMethod, entityDomainInteger);
+            entityDomainValue = enumerationNames.getName("PlatformDomain", entityDomainInteger);
             break;
         }
 
@@ -865,18 +961,7 @@ public class GenerateEntityTypes
 
   private void saveFile(File parentDir, String name, String contents)
   {
-    // save file
-    File target = new File(parentDir, name);
-    try {
-      target.createNewFile();
-      try (FileWriter fw = new FileWriter(target, StandardCharsets.UTF_8)) {
-        fw.write(contents);
-        fw.flush();
-      }
-    }
-    catch (IOException ex) {
-      throw new RuntimeException("Error saving " + name + ": " + ex.getLocalizedMessage(), ex);
-    }
+    emitter.write(new File(parentDir, name), contents); // written on worker thread, failures reported by run()
   }
 
   private void setUniquePackageAndEmail(DescriptionElem descriptionElement, List<DescriptionElem> descriptionElementList)
@@ -961,7 +1046,7 @@ public class GenerateEntityTypes
 //         System.err.println("buildPackagePath data.sb 1: empty string");
 //    else System.err.println("buildPackagePath data.sb 1: " + data.sb.toString());
     
-    String countryDescription = GenerateEntityTypes.this.getDescription(countryFromIntMethod, countryDescriptionMethod, Integer.parseInt(ent.country));
+    String countryDescription = enumerationNames.getDescription("Country", Integer.parseInt(ent.country));
     if (countryDescription.isEmpty())
     {
         System.err.println(this.getClass().getName() + ".buildPackagePath() failure, no country description");
@@ -973,7 +1058,7 @@ public class GenerateEntityTypes
     data.sb.append("/");
 //    System.err.println("buildPackagePathdata.sb 2: " + data.sb.toString());
 
-    String kindname = getName(kindFromIntMethod, kindNameMethod, Integer.parseInt(ent.kind));
+    String kindname = enumerationNames.getName("EntityKind", Integer.parseInt(ent.kind));
     kindname = buidKindOrDomainPackagePart(kindname);
     data.sb.append(buidKindOrDomainPackagePart(kindname));
     data.sb.append("/");
@@ -984,13 +1069,13 @@ public class GenerateEntityTypes
 
     switch (kindnamelc) {
       case "munition":
-        domainname = getName(munitionDomainFromIntMethod, munitionDomainNameMethod, Integer.parseInt(ent.domain));
+        domainname = enumerationNames.getName("MunitionDomain", Integer.parseInt(ent.domain));
         break;
       case "supply":
-        domainname = getName(supplyDomainFromIntMethod, supplyDomainNameMethod, Integer.parseInt(ent.domain));
+        domainname = enumerationNames.getName("SupplyDomain", Integer.parseInt(ent.domain));
         break;
       default:
-        domainname = getName(methodPlatformDomainFromIntMethod, methodPlatformDomainNameMethod, Integer.parseInt(ent.domain));
+        domainname = enumerationNames.getName("PlatformDomain", Integer.parseInt(ent.domain));
         break;
     }
 
@@ -5,15 +5,14 @@
 
 package edu.nps.moves.dis7.source.generator.entityTypes;
 
+import edu.nps.moves.dis7.source.generator.CompiledTemplate;
+import edu.nps.moves.dis7.source.generator.GenerationProfile;
+import edu.nps.moves.dis7.source.generator.SisoModel;
+import edu.nps.moves.dis7.source.generator.SourceFileEmitter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParserFactory;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
@@ -38,7 +37,7 @@ public class GenerateJammers
     private static String         sisoXmlFile = edu.nps.moves.dis7.source.generator.GenerateOpenDis7JavaPackages.DEFAULT_SISO_XML_FILE;
     private static String       sisoSpecificationTitleDate = "";
 
-    String jammertechniqueTemplate;
+    CompiledTemplate jammertechniqueTemplate;
     String         licenseTemplate;
 
     class TypeClassData
@@ -84,63 +83,69 @@ public class GenerateJammers
         packageInfoPath = outputDirectoryPath + "/" + "package-info.java";
         packageInfoFile = new File(packageInfoPath);
         
-        FileWriter packageInfoFileWriter;
-        try {
-            packageInfoFile.createNewFile();
-            packageInfoFileWriter = new FileWriter(packageInfoFile, StandardCharsets.UTF_8);
-            packageInfoBuilder = new StringBuilder();
-            packageInfoBuilder.append("/**\n");
-            packageInfoBuilder.append(" * Jammers type infrastructure classes for ").append(sisoSpecificationTitleDate).append(" enumerations.\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append(" * <p> Online references: </p>\n");
-            packageInfoBuilder.append(" * <ul>\n");
-            packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"_blank\">open-dis7-java library</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/open-dis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/open-dis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/open-dis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append(" * @see java.lang.Package\n");
-            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful</a>\n");
-            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java</a>\n");
-            packageInfoBuilder.append(" *").append("/\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append("package edu.nps.moves.dis7.jammers;\n");
-
-            packageInfoFileWriter.write(packageInfoBuilder.toString());
-            packageInfoFileWriter.flush();
-            packageInfoFileWriter.close();
-            System.out.println("Created " + packageInfoPath);
-        }
-        catch (IOException ex) {
-            System.out.flush(); // avoid intermingled output
-            System.err.println (ex.getMessage()
-               + packageInfoFile.getAbsolutePath()
-            );
-            ex.printStackTrace(System.err);
-        }
+        packageInfoBuilder = new StringBuilder();
+        packageInfoBuilder.append("/**\n");
+        packageInfoBuilder.append(" * Jammers type infrastructure classes for ").append(sisoSpecificationTitleDate).append(" enumerations.\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append(" * <p> Online references: </p>\n");
+        packageInfoBuilder.append(" * <ul>\n");
+        packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"_blank\">open-dis7-java library</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/open-dis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/open-dis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/open-dis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append(" * @see java.lang.Package\n");
+        packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful</a>\n");
+        packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java</a>\n");
+        packageInfoBuilder.append(" *").append("/\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append("package edu.nps.moves.dis7.jammers;\n");
+        // written by run(), unless incremental generation finds nothing changed
   }
 
+  /** writes generated files on worker threads while the SISO model is replayed */
+  private SourceFileEmitter emitter;
+
   private void run() throws SAXException, IOException, ParserConfigurationException
   {
-    SAXParserFactory factory = SAXParserFactory.newInstance();
-    factory.setValidating(false);
-    factory.setNamespaceAware(true);
-    factory.setXIncludeAware(true);
+    GenerationProfile.begin();
+    try (SourceFileEmitter sourceFileEmitter = new SourceFileEmitter(GenerateJammers.class.getSimpleName(), outputDirectory, new File(sisoXmlFile))) {
+      emitter = sourceFileEmitter;
+      if (emitter.isUpToDate())
+        return; // incremental generation, nothing changed since previous run
+      emitter.write(packageInfoFile, packageInfoBuilder.toString());
+      generate();
+      emitter.finish(); // when incremental, deletes files no longer generated and saves manifest
+    } // waits for all files, reporting any failure
+    finally {
+      GenerationProfile.end(GenerateJammers.class.getSimpleName()); // reports phases when xmlpg.profile is set
+    }
+  }
+
+  private void generate() throws SAXException, IOException, ParserConfigurationException
+  {
+    SisoModel sisoModel = SisoModel.load(sisoXmlFile); // shared, parsed once
 
     loadTemplates();
 
     //System.out.println("Generating jammers: ");
     MyHandler handler = new MyHandler();
-    factory.newSAXParser().parse(new File(sisoXmlFile), handler);
+    GenerationProfile.Phase render = GenerationProfile.start(GenerateJammers.class.getSimpleName(), GenerationProfile.RENDER);
+    try {
+      sisoModel.replay(handler);
+    }
+    finally {
+      render.close();
+    }
     System.out.println (GenerateJammers.class.getName() + " complete."); // TODO  + handler.enums.size() + " enums created.");
   }
 
   private void loadTemplates()
   {
     try {
-      licenseTemplate          = loadOneTemplate("../pdus/dis7javalicense.txt");
+      licenseTemplate          = loadOneTemplate("../pdus/dis7javalicense.txt").getText();
       jammertechniqueTemplate  = loadOneTemplate("jammertechnique.txt");
     }
     catch (Exception ex) {
@@ -148,9 +153,9 @@ public class GenerateJammers
     }
   }
 
-  private String loadOneTemplate(String s) throws Exception
+  private CompiledTemplate loadOneTemplate(String s) throws Exception
   {
-    return new String(Files.readAllBytes(Paths.get(getClass().getResource(s).toURI())));
+    return CompiledTemplate.load(getClass(), s); // parsed once, shared with other generators
   }
 
   class DescriptionElem
@@ -318,71 +323,54 @@ public class GenerateJammers
         packageInfoPath = data.directory + "/" + "package-info.java";
         packageInfoFile = new File(packageInfoPath);
 
-        if (!packageInfoFile.exists()) // write package-info.java during first time through
+        if (!emitter.exists(packageInfoFile)) // write package-info.java during first time through
         {
-            FileWriter packageInfoFileWriter;
-            try {
-                packageInfoFile.createNewFile();
-                packageInfoFileWriter = new FileWriter(packageInfoFile, StandardCharsets.UTF_8);
-                packageInfoBuilder = new StringBuilder();
-                packageInfoBuilder.append("/**\n");
-                if (!data.countryNamePretty.isEmpty())
-                    packageInfoBuilder.append(" ").append(data.countryNamePretty);
-                if (!data.entityKindName.isEmpty())
-                    packageInfoBuilder.append(" ").append(data.entityKindName);
-                if (!data.countryValue.isEmpty() && !data.entityKindName.isEmpty())
-                    packageInfoBuilder.append(" j");
-                else
-                    packageInfoBuilder.append(" J");
-                packageInfoBuilder.append("ammers type infrastructure classes for ").append(sisoSpecificationTitleDate).append(" enumerations.\n");
-                packageInfoBuilder.append("\n");
-                packageInfoBuilder.append(" * <p> Online references: </p>\n");
-                packageInfoBuilder.append(" * <ul>\n");
-                packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"_blank\">open-dis7-java library</a> </li> \n");
-                packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
-                packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
-                packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
-                packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
-                packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/open-dis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/open-dis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/open-dis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
-                packageInfoBuilder.append("\n");
-                packageInfoBuilder.append(" * @see java.lang.Package\n");
-                packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful</a>\n");
-                packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java</a>\n");
-                packageInfoBuilder.append(" */\n");
-                packageInfoBuilder.append("// created by edu/nps/moves/dis7/source/generator/entityTypes/GenerateJammers.java\n");
-                packageInfoBuilder.append("\n");
-                packageInfoBuilder.append("package ").append(data.pkg).append(";\n");
-
-                packageInfoFileWriter.write(packageInfoBuilder.toString());
-                packageInfoFileWriter.flush();
-                packageInfoFileWriter.close();
-                System.out.println("Created " + packageInfoPath);
-            }
-            catch (IOException ex) {
-                System.out.flush(); // avoid intermingled output
-                System.err.println (ex.getMessage()
-                   + packageInfoFile.getAbsolutePath()
-                );
-                ex.printStackTrace(System.err);
-            }
+            packageInfoBuilder = new StringBuilder();
+            packageInfoBuilder.append("/**\n");
+            if (!data.countryNamePretty.isEmpty())
+                packageInfoBuilder.append(" ").append(data.countryNamePretty);
+            if (!data.entityKindName.isEmpty())
+                packageInfoBuilder.append(" ").append(data.entityKindName);
+            if (!data.countryValue.isEmpty() && !data.entityKindName.isEmpty())
+                packageInfoBuilder.append(" j");
+            else
+                packageInfoBuilder.append(" J");
+            packageInfoBuilder.append("ammers type infrastructure classes for ").append(sisoSpecificationTitleDate).append(" enumerations.\n");
+            packageInfoBuilder.append("\n");
+            packageInfoBuilder.append(" * <p> Online references: </p>\n");
+            packageInfoBuilder.append(" * <ul>\n");
+            packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"_blank\">open-dis7-java library</a> </li> \n");
+            packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
+            packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
+            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
+            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
+            packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/open-dis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/open-dis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/open-dis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
+            packageInfoBuilder.append("\n");
+            packageInfoBuilder.append(" * @see java.lang.Package\n");
+            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful</a>\n");
+            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java</a>\n");
+            packageInfoBuilder.append(" */\n");
+            packageInfoBuilder.append("// created by edu/nps/moves/dis7/source/generator/entityTypes/GenerateJammers.java\n");
+            packageInfoBuilder.append("\n");
+            packageInfoBuilder.append("package ").append(data.pkg).append(";\n");
+            emitter.write(packageInfoFile, packageInfoBuilder.toString());
+            System.out.println("Created " + packageInfoPath);
         }
     }
 
     private void appendCommonStatements(TypeClassData data)
     {
-      String contents = String.format(jammertechniqueTemplate, data.pkg,
+      data.sb.append(licenseTemplate);
+      jammertechniqueTemplate.renderTo(data.sb, data.pkg,
         sisoSpecificationTitleDate, 
         "284", // TODO huh?
         // TODO kind, category
         data.className,data.className);
-      data.sb.append(licenseTemplate);
-      data.sb.append(contents);
     }
 
     private void appendStatement(DescriptionElem elem, String typ, StringBuilder sb)
     {
-      String template = "        set" + typ + "((byte)%s); // %s\n";
-      sb.append(String.format(template, elem.value, elem.description));
+      sb.append("        set").append(typ).append("((byte)").append(elem.value).append("); // ").append(elem.description).append('\n');
     }
 
     private void writeKindFile(TypeClassData d)
@@ -450,7 +438,7 @@ public class GenerateJammers
 
         // Protect against duplicate class names
         int i = 1;
-        while (new File(data.directory, fixedName + ".java").exists()) {
+        while (emitter.exists(new File(data.directory, fixedName + ".java"))) { // includes files not yet written
           fixedName = fixedName + i++;
         }
 
@@ -470,18 +458,7 @@ public class GenerateJammers
 
   private void saveFile(File parentDir, String name, String contents)
   {
-    // save file
-    File target = new File(parentDir, name);
-    try {
-      target.createNewFile();
-      try (FileWriter fw = new FileWriter(target, StandardCharsets.UTF_8)) {
-        fw.write(contents);
-        fw.flush();
-      }
-    }
-    catch (IOException ex) {
-      throw new RuntimeException("Error saving " + name + ": " + ex.getLocalizedMessage(), ex);
-    }
+    emitter.write(new File(parentDir, name), contents); // written on worker thread, failures reported by run()
   }
 
   private void setUniquePkgAndEmnum(DescriptionElem elem, List<DescriptionElem> lis)
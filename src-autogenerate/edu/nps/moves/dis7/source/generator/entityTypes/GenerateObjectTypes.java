@@ -5,16 +5,15 @@
 
 package edu.nps.moves.dis7.source.generator.entityTypes;
 
+import edu.nps.moves.dis7.source.generator.CompiledTemplate;
+import edu.nps.moves.dis7.source.generator.GenerationProfile;
+import edu.nps.moves.dis7.source.generator.SisoModel;
+import edu.nps.moves.dis7.source.generator.SourceFileEmitter;
 import edu.nps.moves.dis7.source.generator.enumerations.GenerateEnumerations;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParserFactory;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
@@ -38,7 +37,7 @@ public class GenerateObjectTypes
     private static String         sisoXmlFile = edu.nps.moves.dis7.source.generator.GenerateOpenDis7JavaPackages.DEFAULT_SISO_XML_FILE;
     private String sisoSpecificationTitleDate = "";
 
-    String objecttypeTemplate;
+    CompiledTemplate objecttypeTemplate;
     String    licenseTemplate;
 
   class TypeClassData
@@ -79,63 +78,69 @@ public class GenerateObjectTypes
         packageInfoPath = outputDirectoryPath + "/" + "package-info.java";
         packageInfoFile = new File(packageInfoPath);
         
-        FileWriter packageInfoFileWriter;
-        try {
-            packageInfoFile.createNewFile();
-            packageInfoFileWriter = new FileWriter(packageInfoFile, StandardCharsets.UTF_8);
-            packageInfoBuilder = new StringBuilder();
-            packageInfoBuilder.append("/**\n");
-            packageInfoBuilder.append(" * Object type infrastructure classes for ").append(sisoSpecificationTitleDate).append(" enumerations.\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append(" * <p> Online references: </p>\n");
-            packageInfoBuilder.append(" * <ul>\n");
-            packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"_blank\">open-dis7-java library</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/open-dis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/open-dis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/open-dis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append(" * @see java.lang.Package\n");
-            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful</a>\n");
-            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java</a>\n");
-            packageInfoBuilder.append(" */\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append("package edu.nps.moves.dis7.objectTypes;\n");
-
-            packageInfoFileWriter.write(packageInfoBuilder.toString());
-            packageInfoFileWriter.flush();
-            packageInfoFileWriter.close();
-            System.out.println("Created " + packageInfoPath);
-        }
-        catch (IOException ex) {
-            System.out.flush(); // avoid intermingled output
-            System.err.println (ex.getMessage()
-               + packageInfoFile.getAbsolutePath()
-            );
-            ex.printStackTrace(System.err);
-        }
+        packageInfoBuilder = new StringBuilder();
+        packageInfoBuilder.append("/**\n");
+        packageInfoBuilder.append(" * Object type infrastructure classes for ").append(sisoSpecificationTitleDate).append(" enumerations.\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append(" * <p> Online references: </p>\n");
+        packageInfoBuilder.append(" * <ul>\n");
+        packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"_blank\">open-dis7-java library</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/open-dis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/open-dis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/open-dis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append(" * @see java.lang.Package\n");
+        packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful</a>\n");
+        packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java</a>\n");
+        packageInfoBuilder.append(" */\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append("package edu.nps.moves.dis7.objectTypes;\n");
+        // written by run(), unless incremental generation finds nothing changed
   }
 
+  /** writes generated files on worker threads while the SISO model is replayed */
+  private SourceFileEmitter emitter;
+
   private void run() throws SAXException, IOException, ParserConfigurationException
   {
-    SAXParserFactory factory = SAXParserFactory.newInstance();
-    factory.setValidating(false);
-    factory.setNamespaceAware(true);
-    factory.setXIncludeAware(true);
+    GenerationProfile.begin();
+    try (SourceFileEmitter sourceFileEmitter = new SourceFileEmitter(GenerateObjectTypes.class.getSimpleName(), outputDirectory, new File(sisoXmlFile))) {
+      emitter = sourceFileEmitter;
+      if (emitter.isUpToDate())
+        return; // incremental generation, nothing changed since previous run
+      emitter.write(packageInfoFile, packageInfoBuilder.toString());
+      generate();
+      emitter.finish(); // when incremental, deletes files no longer generated and saves manifest
+    } // waits for all files, reporting any failure
+    finally {
+      GenerationProfile.end(GenerateObjectTypes.class.getSimpleName()); // reports phases when xmlpg.profile is set
+    }
+  }
+
+  private void generate() throws SAXException, IOException, ParserConfigurationException
+  {
+    SisoModel sisoModel = SisoModel.load(sisoXmlFile); // shared, parsed once
 
     loadTemplates();
 
     System.out.println("Generating object types: ");
     MyHandler handler = new MyHandler();
-    factory.newSAXParser().parse(new File(sisoXmlFile), handler);
+    GenerationProfile.Phase render = GenerationProfile.start(GenerateObjectTypes.class.getSimpleName(), GenerationProfile.RENDER);
+    try {
+      sisoModel.replay(handler);
+    }
+    finally {
+      render.close();
+    }
     System.out.println (GenerateObjectTypes.class.getName() + " complete."); // TODO  + handler.enums.size() + " enums created.");
   }
 
   private void loadTemplates()
   {
     try {
-      licenseTemplate          = loadOneTemplate("../pdus/dis7javalicense.txt");
+      licenseTemplate          = loadOneTemplate("../pdus/dis7javalicense.txt").getText();
       objecttypeTemplate       = loadOneTemplate("objecttype.txt");
     }
     catch (Exception ex) {
@@ -143,9 +148,9 @@ public class GenerateObjectTypes
     }
   }
 
-  private String loadOneTemplate(String s) throws Exception
+  private CompiledTemplate loadOneTemplate(String s) throws Exception
   {
-    return new String(Files.readAllBytes(Paths.get(getClass().getResource(s).toURI())), StandardCharsets.UTF_8.name());
+    return CompiledTemplate.load(getClass(), s); // parsed once, shared with other generators
   }
 
   class DescriptionElem
@@ -337,77 +342,57 @@ public class GenerateObjectTypes
         packageInfoPath = data.directory + "/" + "package-info.java";
         File   packageInfoFile = new File(packageInfoPath);
       
-        if (!packageInfoFile.exists()) // write package-info.java during first time through
+        if (!emitter.exists(packageInfoFile)) // write package-info.java during first time through
         {
-            FileWriter packageInfoFileWriter;
-            try {
-                packageInfoFile.createNewFile();
-                packageInfoFileWriter = new FileWriter(packageInfoFile, StandardCharsets.UTF_8);
-                packageInfoBuilder = new StringBuilder();
-                packageInfoBuilder.append("/**\n");
-                packageInfoBuilder.append(" * Object type infrastructure classes for ").append(sisoSpecificationTitleDate).append(" enumerations.\n");
-                packageInfoBuilder.append("\n");
-                packageInfoBuilder.append(" * <p> Online references: </p>\n");
-                packageInfoBuilder.append(" * <ul>\n");
-                packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"_blank\">open-dis7-java library</a> </li> \n");
-                packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
-                packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
-                packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
-                packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
-                packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/open-dis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/open-dis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/open-dis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
-                packageInfoBuilder.append("\n");
-                packageInfoBuilder.append(" * @see java.lang.Package\n");
-                packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful</a>\n");
-                packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java</a>\n");
-                packageInfoBuilder.append(" */\n");
-                packageInfoBuilder.append("// created by edu/nps/moves/dis7/source/generator/entityTypes/GenerateObjectTypes.java\n");
-                packageInfoBuilder.append("\n");
-                packageInfoBuilder.append("package ").append(data.pkg).append(";\n");
-
-                packageInfoFileWriter.write(packageInfoBuilder.toString());
-                packageInfoFileWriter.flush();
-                packageInfoFileWriter.close();
-                System.out.println("Created " + packageInfoPath);
-            }
-            catch (IOException ex) {
-                System.out.flush(); // avoid intermingled output
-                System.err.println (ex.getMessage()
-                   + packageInfoFile.getAbsolutePath()
-                );
-                ex.printStackTrace(System.err);
-            }
+            packageInfoBuilder = new StringBuilder();
+            packageInfoBuilder.append("/**\n");
+            packageInfoBuilder.append(" * Object type infrastructure classes for ").append(sisoSpecificationTitleDate).append(" enumerations.\n");
+            packageInfoBuilder.append("\n");
+            packageInfoBuilder.append(" * <p> Online references: </p>\n");
+            packageInfoBuilder.append(" * <ul>\n");
+            packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"_blank\">open-dis7-java library</a> </li> \n");
+            packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
+            packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
+            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
+            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
+            packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/open-dis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/open-dis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/open-dis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
+            packageInfoBuilder.append("\n");
+            packageInfoBuilder.append(" * @see java.lang.Package\n");
+            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful</a>\n");
+            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java</a>\n");
+            packageInfoBuilder.append(" */\n");
+            packageInfoBuilder.append("// created by edu/nps/moves/dis7/source/generator/entityTypes/GenerateObjectTypes.java\n");
+            packageInfoBuilder.append("\n");
+            packageInfoBuilder.append("package ").append(data.pkg).append(";\n");
+            emitter.write(packageInfoFile, packageInfoBuilder.toString());
+            System.out.println("Created " + packageInfoPath);
         }
     }
 
     private void appendCommonStatements(TypeClassData data)
     {
-      String contents = String.format(objecttypeTemplate, data.pkg,
-        sisoSpecificationTitleDate, currentCot.uid,data.className,data.className);
       data.sb.append(licenseTemplate);
-      data.sb.append(contents);
+      objecttypeTemplate.renderTo(data.sb, data.pkg,
+        sisoSpecificationTitleDate, currentCot.uid,data.className,data.className);
     }
 
     private void appendCategoryValueStatement(CategoryElem elem, String typ, StringBuilder sb)
     {
-      String template = "        set" + typ + "((byte)%s); // %s\n";
-      sb.append(String.format(template, elem.value, elem.description));
+      sb.append("        set").append(typ).append("((byte)").append(elem.value).append("); // ").append(elem.description).append('\n');
     }
     private void appendSubCategoryValueStatement(SubCategoryElem elem, String typ, StringBuilder sb)
     {
-      String template = "        set" + typ + "((byte)%s); // %s\n";
-      sb.append(String.format(template, elem.value, elem.description));
+      sb.append("        set").append(typ).append("((byte)").append(elem.value).append("); // ").append(elem.description).append('\n');
     }
    
     private void appendKindStatement(ObjectElem elem, String typ, StringBuilder sb)
     {
-       String template = "        set" + typ + "(ObjectKind.getEnumForValue(%s)); // %s\n";
-       sb.append(String.format(template, elem.kind, elem.description));
+       sb.append("        set").append(typ).append("(ObjectKind.getEnumForValue(").append(elem.kind).append(")); // ").append(elem.description).append('\n');
     }
     
      private void appendDomainStatement(CotElem cot, String typ, StringBuilder sb)
     {
-       String template = "        set" + typ + "(PlatformDomain.getEnumForValue(%s));\n";
-       sb.append(String.format(template, cot.domain));
+       sb.append("        set").append(typ).append("(PlatformDomain.getEnumForValue(").append(cot.domain).append("));\n");
     }
   
     private void writeCotFile(TypeClassData d)
@@ -475,7 +460,7 @@ public class GenerateObjectTypes
 
         // Protect against duplicate class names
         int i = 1;
-        while (new File(data.directory, fixedName + ".java").exists()) {
+        while (emitter.exists(new File(data.directory, fixedName + ".java"))) { // includes files not yet written
           fixedName = fixedName + i++;
         }
 
@@ -495,18 +480,7 @@ public class GenerateObjectTypes
 
   private void saveFile(File parentDir, String name, String contents)
   {
-    // save file
-    File target = new File(parentDir, name);
-    try {
-      target.createNewFile();
-      try (FileWriter fw = new FileWriter(target, StandardCharsets.UTF_8)) {
-        fw.write(contents);
-        fw.flush();
-      }
-    }
-    catch (IOException ex) {
-      throw new RuntimeException("Error saving " + name + ": " + ex.getLocalizedMessage(), ex);
-    }
+    emitter.write(new File(parentDir, name), contents); // written on worker thread, failures reported by run()
   }
 
   private void setUniquePkgAndEmail(DescriptionElem elem, List<DescriptionElem> lis)
@@ -4,13 +4,14 @@
  */
 package edu.nps.moves.dis7.source.generator.enumerations;
 
+import edu.nps.moves.dis7.source.generator.CompiledTemplate;
+import edu.nps.moves.dis7.source.generator.GenerationProfile;
+import edu.nps.moves.dis7.source.generator.SisoModel;
+import edu.nps.moves.dis7.source.generator.SourceFileEmitter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -18,7 +19,6 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParserFactory;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
@@ -46,25 +46,25 @@ public class GenerateEnumerations
     private Set<String> uidDoNotGenerate;
     private Map<String,String> uid2ExtraInterface;
 
-    private String disenumpart1Template;
-    private String disenumpart1withfootnoteTemplate;
-    private String disenumcommentTemplate;
-    private String disenumfootnotecommentTemplate;
-    private String disenumpart2Template;
-    private String disenumpart21Template;
-    private String disenumpart25Template;
-    private String disenumpart3_8Template;
-    private String disenumpart3_16Template;
-    private String disenumpart3_32Template;
-    private String disdictenumpart1Template;
-    private String disdictenumpart2Template;
-    private String disdictenumpart3Template;
-    private String disbitset1Template;
-    private String disbitset15Template;
-    private String disbitset16Template;
-    private String disbitset2Template;
-    private String disbitsetcommentxrefTemplate;
-    private String disbitsetcommentTemplate;
+    private CompiledTemplate disenumpart1Template;
+    private CompiledTemplate disenumpart1withfootnoteTemplate;
+    private CompiledTemplate disenumcommentTemplate;
+    private CompiledTemplate disenumfootnotecommentTemplate;
+    private CompiledTemplate disenumpart2Template;
+    private CompiledTemplate disenumpart21Template;
+    private CompiledTemplate disenumpart25Template;
+    private CompiledTemplate disenumpart3_8Template;
+    private CompiledTemplate disenumpart3_16Template;
+    private CompiledTemplate disenumpart3_32Template;
+    private CompiledTemplate disdictenumpart1Template;
+    private CompiledTemplate disdictenumpart2Template;
+    private CompiledTemplate disdictenumpart3Template;
+    private CompiledTemplate disbitset1Template;
+    private CompiledTemplate disbitset15Template;
+    private CompiledTemplate disbitset16Template;
+    private CompiledTemplate disbitset2Template;
+    private CompiledTemplate disbitsetcommentxrefTemplate;
+    private CompiledTemplate disbitsetcommentTemplate;
     private String licenseTemplate;
 
     private static String       sisoSpecificationTitleDate = "";
@@ -104,43 +104,46 @@ public class GenerateEnumerations
         packageInfoPath = outputDirectoryPath + "/" + "package-info.java";
         packageInfoFile = new File(packageInfoPath);
         
-        FileWriter packageInfoFileWriter;
-        try {
-            packageInfoFile.createNewFile();
-            packageInfoFileWriter = new FileWriter(packageInfoFile, StandardCharsets.UTF_8);
-            packageInfoBuilder = new StringBuilder();
-            packageInfoBuilder.append("/**\n");
-            packageInfoBuilder.append(" * Enumeration type infrastructure classes for ").append(sisoSpecificationTitleDate).append(" enumerations supporting <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"open-dis7-java\">open-dis7-java</a> library.\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append(" * <p> Online: NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> \n");
-            packageInfoBuilder.append(" * links to <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest. </p>\n");
-            packageInfoBuilder.append(" * <ul>\n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li> </ul>\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append(" * @see java.lang.Package\n");
-            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful</a>\n");
-            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java</a>\n");
-            packageInfoBuilder.append(" */\n");
-            packageInfoBuilder.append("// created by edu/nps/moves/dis7/source/generator/entityTypes/GenerateEnumerations.java\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append("package edu.nps.moves.dis7.enumerations;\n");
-
-            packageInfoFileWriter.write(packageInfoBuilder.toString());
-            packageInfoFileWriter.flush();
-            packageInfoFileWriter.close();
-            System.out.println("Created " + packageInfoPath);
-        }
-        catch (IOException ex) {
-            System.out.flush(); // avoid intermingled output
-            System.err.println (ex.getMessage()
-               + packageInfoFile.getAbsolutePath()
-            );
-            ex.printStackTrace(System.err);
-        }
+        packageInfoBuilder = new StringBuilder();
+        packageInfoBuilder.append("/**\n");
+        packageInfoBuilder.append(" * Enumeration type infrastructure classes for ").append(sisoSpecificationTitleDate).append(" enumerations supporting <a href=\"https://github.com/open-dis/open-dis7-java\" target=\"open-dis7-java\">open-dis7-java</a> library.\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append(" * <p> Online: NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> \n");
+        packageInfoBuilder.append(" * links to <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest. </p>\n");
+        packageInfoBuilder.append(" * <ul>\n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li> </ul>\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append(" * @see java.lang.Package\n");
+        packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful</a>\n");
+        packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java</a>\n");
+        packageInfoBuilder.append(" */\n");
+        packageInfoBuilder.append("// created by edu/nps/moves/dis7/source/generator/entityTypes/GenerateEnumerations.java\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append("package edu.nps.moves.dis7.enumerations;\n");
+        // written by run(), unless incremental generation finds nothing changed
     }
 
+    /** writes generated files on worker threads while the SISO model is replayed */
+    private SourceFileEmitter emitter;
+
     private void run() throws SAXException, IOException, ParserConfigurationException
+    {
+        GenerationProfile.begin();
+        try (SourceFileEmitter sourceFileEmitter = new SourceFileEmitter(GenerateEnumerations.class.getSimpleName(), outputDirectory, new File(sisoXmlFile))) {
+            emitter = sourceFileEmitter;
+            if (emitter.isUpToDate())
+                return; // incremental generation, nothing changed since previous run
+            emitter.write(packageInfoFile, packageInfoBuilder.toString());
+            generate();
+            emitter.finish(); // when incremental, deletes files no longer generated and saves manifest
+        } // waits for all files, reporting any failure
+        finally {
+            GenerationProfile.end(GenerateEnumerations.class.getSimpleName()); // reports phases when xmlpg.profile is set
+        }
+    }
+
+    private void generate() throws SAXException, IOException, ParserConfigurationException
     {
         // Manual:
         uid2ClassName = new Properties();
@@ -180,17 +183,25 @@ public class GenerateEnumerations
             System.out.println(ent.getKey() + " " + ent.getValue());
         }
          */
-        File xmlFile = new File(sisoXmlFile);
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        factory.setValidating(false);
-        factory.setNamespaceAware(true);
-        factory.setXIncludeAware(true);
+        SisoModel sisoModel = SisoModel.load(sisoXmlFile); // parsed once, replayed for each pass
         System.out.println("Begin uid preprocess...");
-        factory.newSAXParser().parse(xmlFile,new UidCollector());
+        GenerationProfile.Phase model = GenerationProfile.start(GenerateEnumerations.class.getSimpleName(), GenerationProfile.MODEL);
+        try {
+            sisoModel.replay(new UidCollector());
+        }
+        finally {
+            model.close();
+        }
 
         System.out.println("Begin enumeration generation...");
         MyHandler handler = new MyHandler();
-        factory.newSAXParser().parse(xmlFile, handler); // apparently can't reuse xmlFile
+        GenerationProfile.Phase render = GenerationProfile.start(GenerateEnumerations.class.getSimpleName(), GenerationProfile.RENDER);
+        try {
+            sisoModel.replay(handler);
+        }
+        finally {
+            render.close();
+        }
 
         System.out.println (GenerateEnumerations.class.getName() + " complete, " + (handler.enums.size() + additionalEnumClassesCreated) + " enum classes created.");
     }
@@ -256,16 +267,16 @@ public class GenerateEnumerations
             disbitset2Template                 = loadOneTemplate("disbitset2.txt");
             disbitsetcommentxrefTemplate       = loadOneTemplate("disbitsetcommentxref.txt");
             disbitsetcommentTemplate           = loadOneTemplate("disbitsetcomment.txt");
-            licenseTemplate                    = loadOneTemplate("../pdus/dis7javalicense.txt");
+            licenseTemplate                    = loadOneTemplate("../pdus/dis7javalicense.txt").getText();
         }
         catch (Exception ex) {
             throw new RuntimeException(ex);
         }
     }
 
-    private String loadOneTemplate(String s) throws Exception
+    private CompiledTemplate loadOneTemplate(String s) throws Exception
     {
-        return new String(Files.readAllBytes(Paths.get(getClass().getResource(s).toURI())));
+        return CompiledTemplate.load(getClass(), s); // parsed once, shared with other generators
     }
 
     class EnumElem
@@ -404,17 +415,7 @@ public class GenerateEnumerations
                 case "meta":
                     if (currentEnum == null)
                         break;
-                    if ((currentEnumRow.description == null) || currentEnumRow.description.isEmpty())
-                    {
-                        String   key = attributes.getValue("key");
-                        String value = attributes.getValue("value");
-                        if (key != null)
-                            currentEnumRow.description = key.toUpperCase() + "_";
-                        if (value != null)
-                            currentEnumRow.description += value;
-                        if (currentEnumRow.description != null)
-                            currentEnumRow.description = normalizeDescription(currentEnumRow.description);
-                    }
+                    currentEnumRow.description = metaDescription(currentEnumRow.description, attributes.getValue("key"), attributes.getValue("value"));
                     break;
 
                 case "enumrow":
@@ -425,19 +426,11 @@ public class GenerateEnumerations
                     currentEnumRow.description = attributes.getValue("description");
                     if (currentEnumRow.description != null)
                         currentEnumRow.description = normalizeDescription(currentEnumRow.description);
-                    currentEnumRow.value = attributes.getValue("value");
-
-/* special case, 2147483648 is one greater than max Java integer, reported 30 JAN 2022
-    <enumrow value="2147483648" description="Rectangular Volume Record 4" group="1" status="hold" uuid="fdccf8e0-e73c-4137-b140-f7d0882b0778">
-      <cr value="1913" />
-    </enumrow>
-*/            
-            if (currentEnumRow.value.equals("2147483648"))
-            {
-                System.out.println ("*** Special case 'Rectangular Volume Record 4' value 2147483648 reset to 2147483647" +
-                                    " in order to avoid exceeding max integer value");
-                currentEnumRow.value = "2147483647";
-            }
+                    String value = attributes.getValue("value");
+                    currentEnumRow.value = enumRowValue(value);
+                    if (!value.equals(currentEnumRow.value))
+                        System.out.println ("*** Special case 'Rectangular Volume Record 4' value " + value + " reset to " + currentEnumRow.value +
+                                            " in order to avoid exceeding max integer value");
                     currentEnumRow.footnote = attributes.getValue("footnote");
                     if (currentEnum.footnote != null)
                         currentEnum.footnote = normalizeDescription(currentEnum.footnote);
@@ -576,7 +569,7 @@ public class GenerateEnumerations
             if (otherIf != null)
                 additionalInterface = ", " + otherIf;
 
-            sb.append(String.format(disdictenumpart1Template, sisoSpecificationTitleDate, packageName, "UID " + el.uid, classNameCorrected, additionalInterface));
+            disdictenumpart1Template.renderTo(sb, sisoSpecificationTitleDate, packageName, "UID " + el.uid, classNameCorrected, additionalInterface);
 
             // enumerations section
             dictNames.clear();
@@ -590,7 +583,7 @@ public class GenerateEnumerations
                 if (!dictNames.contains(name))
                 {
                      String fullName = normalizeDescription(row.description);
-                     sb.append(String.format(disdictenumpart2Template, name, fullName, name, fullName)); // first Javadoc then enumeration pair
+                     disdictenumpart2Template.renderTo(sb, name, fullName, name, fullName); // first Javadoc then enumeration pair
                      dictNames.add(name);
                 }
                 else System.out.println("   Duplicate dictionary entry for " + name + " in " + clsName);
@@ -601,28 +594,12 @@ public class GenerateEnumerations
             sb.append(";\n");
 
             // footer section
-            sb.append(String.format(disdictenumpart3Template, classNameCorrected, classNameCorrected));
+            disdictenumpart3Template.renderTo(sb, classNameCorrected, classNameCorrected);
 
             // save file
             File targetFile = new File(outputDirectory, classNameCorrected + ".java");
             targetFile.getParentFile().mkdirs();
-            FileWriter targetFileWriter;
-            try {
-                targetFile.createNewFile();
-                targetFileWriter = new FileWriter(targetFile, StandardCharsets.UTF_8);
-                targetFileWriter.write(sb.toString());
-                targetFileWriter.flush();
-                targetFileWriter.close();
-            }
-            catch (IOException ex) {
-                System.out.flush();
-                System.err.println (ex.getMessage()
-                // + " targetFile.getAbsolutePath()=" 
-                   + targetFile.getAbsolutePath()
-                // + ", classNameCorrected=" + classNameCorrected
-                );
-                ex.printStackTrace(System.err);
-            }
+            emitter.write(targetFile, sb.toString()); // written on worker thread, failures reported by run()
         }
 
         private void writeOutBitfield(BitfieldElem el)
@@ -646,11 +623,10 @@ public class GenerateEnumerations
       
             String otherInf = uid2ExtraInterface.get(el.uid);
 
-            sb.append(String.format(disbitset1Template, 
-                packageName, sisoSpecificationTitleDate, 
+            disbitset1Template.renderTo(sb, packageName, sisoSpecificationTitleDate, 
                 "UID " + el.uid, el.size, 
                 el.name, classNameCorrected, 
-                (otherInf==null?"":"implements "+otherInf)));
+                (otherInf==null?"":"implements "+otherInf));
             enumNames.clear();
             if (el.elems.size() > MAX_ENUMERATIONS)
             {
@@ -666,42 +642,30 @@ public class GenerateEnumerations
                      bitsType = "boolean";
                 else bitsType = "length=" + row.length;
                 if (xrefName != null) {
-                    sb.append(String.format(disbitsetcommentxrefTemplate, 
-                        "bit position " + row.bitposition + ", " + bitsType,
-                        htmlize((row.description==null?"":normalizeDescription(row.description)+", ")),xrefName));
-                    sb.append(String.format(disbitset16Template, 
-                        createEnumName(row.name), row.bitposition, row.length, xrefName));
+                    disbitsetcommentxrefTemplate.renderTo(sb, "bit position " + row.bitposition + ", " + bitsType,
+                        htmlize((row.description==null?"":normalizeDescription(row.description)+", ")),xrefName);
+                    String bitsName = createEnumName(row.name);
+                    disbitset16Template.renderTo(sb, bitsName, row.bitposition, row.length, xrefName,
+                        createEnumName(bitsName + "_POSITION"), createEnumName(bitsName + "_LENGTH"));
                 }
                 else {
                     if(row.description != null)
-                        sb.append(String.format(disbitsetcommentTemplate,
-                            "bit position " + row.bitposition + ", " + bitsType, 
-                            (htmlize(normalizeDescription(row.description)))));
-                    sb.append(String.format(disbitset15Template, createEnumName(row.name), row.bitposition, row.length));
+                        disbitsetcommentTemplate.renderTo(sb, "bit position " + row.bitposition + ", " + bitsType, 
+                            (htmlize(normalizeDescription(row.description))));
+                    String bitsName = createEnumName(row.name);
+                    disbitset15Template.renderTo(sb, bitsName, row.bitposition, row.length,
+                        createEnumName(bitsName + "_POSITION"), createEnumName(bitsName + "_LENGTH"));
                 }
             });
             if (!el.elems.isEmpty())
                 sb.setLength(sb.length() - 2);
             sb.append(";\n");
 
-            sb.append(String.format(disbitset2Template, classNameCorrected, el.size, classNameCorrected, classNameCorrected, classNameCorrected, classNameCorrected, classNameCorrected));
+            disbitset2Template.renderTo(sb, classNameCorrected, el.size, classNameCorrected, classNameCorrected, classNameCorrected, classNameCorrected, classNameCorrected);
 
             // save file
             File targetFile = new File(outputDirectory, classNameCorrected + ".java");
-            FileWriter targetFileWriter;
-            try {
-                targetFile.createNewFile();
-                targetFileWriter = new FileWriter(targetFile, StandardCharsets.UTF_8);
-                targetFileWriter.write(sb.toString());
-                targetFileWriter.flush();
-                targetFileWriter.close();
-            }
-            catch (IOException ex) {
-                System.out.flush();
-                System.err.println (ex.getMessage() + " targetFile.getAbsolutePath()=" + targetFile.getAbsolutePath()
-                      + ", classNameCorrected=" + classNameCorrected);
-                ex.printStackTrace(System.err);
-            }
+            emitter.write(targetFile, sb.toString()); // written on worker thread, failures reported by run()
         }
 
         Set<String> enumNames = new HashSet<>();
@@ -769,11 +733,11 @@ public class GenerateEnumerations
             /* enumeration initial template, de-spacify name */
             int numberOfEnumerations = el.elems.size();
             if(el.footnote == null)
-              sb.append(String.format(disenumpart1Template,             packageName, sisoSpecificationTitleDate,  "UID " + el.uid, el.size, el.name,
-                                      numberOfEnumerations,              classNameCorrected, additionalInterface));
+              disenumpart1Template.renderTo(sb,             packageName, sisoSpecificationTitleDate,  "UID " + el.uid, el.size, el.name,
+                                            numberOfEnumerations,              classNameCorrected, additionalInterface);
             else
-              sb.append(String.format(disenumpart1withfootnoteTemplate, packageName, sisoSpecificationTitleDate,  "UID " + el.uid, el.size, el.name,
-                                      numberOfEnumerations, el.footnote, classNameCorrected, additionalInterface));
+              disenumpart1withfootnoteTemplate.renderTo(sb, packageName, sisoSpecificationTitleDate,  "UID " + el.uid, el.size, el.name,
+                                            numberOfEnumerations, el.footnote, classNameCorrected, additionalInterface);
 
             enumNames.clear();
             // enum section
@@ -783,7 +747,7 @@ public class GenerateEnumerations
                 if (el.name != null)
                        elementName = el.name;
                 sb.append("   /** Constructor initialization */");
-                sb.append(String.format(disenumpart2Template, "SELF", "0", elementName + " details not found in SISO spec"));
+                disenumpart2Template.renderTo(sb, "SELF", "0", elementName + " details not found in SISO spec");
                 // TODO resolve
                 System.err.println("*** " + elementName + " uid='" + el.uid + "' has no child element (further SELF details not found in SISO reference)");
             }
@@ -809,13 +773,7 @@ public class GenerateEnumerations
                 }
                 // continue with original or reduced list
                 el.elems.forEach((row) -> {                    
-                    // Check for aliases
-                    if(aliases != null && aliases.getProperty(row.value)!=null)
-                      writeOneEnum(sb,row,aliases.getProperty(row.value));
-                    else {
-                      String enumName = createEnumName(normalizeDescription(row.description));
-                      writeOneEnum(sb, row, enumName);
-                    }
+                    writeOneEnum(sb, row); // checks for aliases
                   /*  if(row.xrefclassuid != null)
                         xrefName=uidClassNames.get(row.xrefclassuid);
                     
@@ -857,35 +815,22 @@ public class GenerateEnumerations
             if (el.size == null)
                 el.size = "8";
 
-            sb.append(String.format(disenumpart25Template, classNameCorrected, el.size, classNameCorrected, classNameCorrected, classNameCorrected, classNameCorrected));
+            sb.append(formatEnumPart25(classNameCorrected, el.size));
 
             // footer section
             // Many enums come in with smaller bit widths or in-between bitwidths;  Leave handling the odd balls up to the user 
             // but figure out the smallest primitive size needed to hold it.
             int sz = Integer.parseInt(el.size);
             if(sz <= 8)
-               sb.append(String.format(disenumpart3_8Template, classNameCorrected, classNameCorrected, classNameCorrected));
+               disenumpart3_8Template.renderTo(sb, classNameCorrected, classNameCorrected, classNameCorrected);
             else if(sz <= 16)
-               sb.append(String.format(disenumpart3_16Template, classNameCorrected, classNameCorrected, classNameCorrected));
+               disenumpart3_16Template.renderTo(sb, classNameCorrected, classNameCorrected, classNameCorrected);
             else
-               sb.append(String.format(disenumpart3_32Template, classNameCorrected, classNameCorrected, classNameCorrected));
+               disenumpart3_32Template.renderTo(sb, classNameCorrected, classNameCorrected, classNameCorrected);
 
             // save file
             File targetFile = new File(outputDirectory, classNameCorrected + ".java");
-            FileWriter targetFileWriter;
-            try {
-                targetFile.createNewFile();
-                targetFileWriter = new FileWriter(targetFile, StandardCharsets.UTF_8);
-                targetFileWriter.write(sb.toString());
-                targetFileWriter.flush();
-                targetFileWriter.close();
-            }
-            catch (IOException ex) {
-                System.out.flush();
-                System.err.println (ex.getMessage() + " targetFile.getAbsolutePath()=" + targetFile.getAbsolutePath()
-                      + ", classNameCorrected=" + classNameCorrected);
-                ex.printStackTrace(System.err);
-            }
+            emitter.write(targetFile, sb.toString()); // written on worker thread, failures reported by run()
         //  now handle additionalRowElements similarly, if any, creating another file...
         if ((!additionalRowElements.isEmpty()) && !additionalRowStringBuilder.toString().isEmpty())
         {
@@ -894,75 +839,74 @@ public class GenerateEnumerations
             {
 //            additionalRowElements.elems.forEach((row) -> {
 
-                // Check for aliases
-                if(aliases != null && aliases.getProperty(row.value)!=null)
-                  writeOneEnum(additionalRowStringBuilder,row,aliases.getProperty(row.value));
-                else {
-                  String enumName = createEnumName(normalizeDescription(row.description));
-                  writeOneEnum(additionalRowStringBuilder, row, enumName);
-                }
+                writeOneEnum(additionalRowStringBuilder, row); // checks for aliases
             } /* ); */
             additionalRowStringBuilder.setLength(additionalRowStringBuilder.length() - 2);
             additionalRowStringBuilder.append("; /*here*/\n");
 
-            additionalRowStringBuilder.append(String.format(disenumpart25Template, classNameCorrected, el.size, classNameCorrected, classNameCorrected, classNameCorrected, classNameCorrected));
+            additionalRowStringBuilder.append(formatEnumPart25(classNameCorrected, el.size));
 
             // footer section
             // Many enums come in with smaller bit widths or in-between bitwidths;  Leave handling the odd balls up to the user
             // but figure out the smallest primitive size needed to hold it.
             sz = Integer.parseInt(el.size);
             if(sz <= 8)
-               additionalRowStringBuilder.append(String.format(disenumpart3_8Template,  classNameCorrected, classNameCorrected, classNameCorrected));
+               disenumpart3_8Template.renderTo(additionalRowStringBuilder, classNameCorrected, classNameCorrected, classNameCorrected);
             else if(sz <= 16)
-               additionalRowStringBuilder.append(String.format(disenumpart3_16Template, classNameCorrected, classNameCorrected, classNameCorrected));
+               disenumpart3_16Template.renderTo(additionalRowStringBuilder, classNameCorrected, classNameCorrected, classNameCorrected);
             else
-               additionalRowStringBuilder.append(String.format(disenumpart3_32Template, classNameCorrected, classNameCorrected, classNameCorrected));
+               disenumpart3_32Template.renderTo(additionalRowStringBuilder, classNameCorrected, classNameCorrected, classNameCorrected);
 
             // save file
             targetFile = new File(outputDirectory, classNameCorrected + ".java"); // already appended ADDITIONAL_ENUMERATION_FILE_SUFFIX
-            try {
-                targetFile.createNewFile();
-                targetFileWriter = new FileWriter(targetFile, StandardCharsets.UTF_8);
-                targetFileWriter.write(additionalRowStringBuilder.toString());
-                targetFileWriter.flush();
-                targetFileWriter.close();
-                System.out.flush();
-                System.err.println ("*** Created additional-enumerations file, "
-                                    + "classNameCorrected=" + classNameCorrected
-                                    + ",\n    "
-                            //      + "targetFile.getAbsolutePath()="
-                                    + targetFile.getAbsolutePath()
-                );
-                System.err.println ("    first element=" + additionalRowElements.get(0).value + ", " + additionalRowElements.get(0).description);
-                System.err.println ("=================================");
-                // reset this special case
-                additionalRowElements.clear();
-                additionalRowStringBuilder.setLength(0);
-                additionalEnumClassesCreated++;
-            }
-            catch (IOException ex) {
-                System.out.flush();
-                System.err.println (ex.getMessage() + " targetFile.getAbsolutePath()=" + targetFile.getAbsolutePath()
-                      + ", classNameCorrected=" + classNameCorrected);
-                ex.printStackTrace(System.err);
-            }
+            emitter.write(targetFile, additionalRowStringBuilder.toString());
+            System.out.flush();
+
+            System.err.println ("*** Created additional-enumerations file, "
+                                + "classNameCorrected=" + classNameCorrected
+                                + ",\n    "
+                        //      + "targetFile.getAbsolutePath()="
+                                + targetFile.getAbsolutePath()
+            );
+            System.err.println ("    first element=" + additionalRowElements.get(0).value + ", " + additionalRowElements.get(0).description);
+            System.err.println ("=================================");
+            // reset this special case
+            additionalRowElements.clear();
+            additionalRowStringBuilder.setLength(0);
+            additionalEnumClassesCreated++;
         }
     }
         
         
-      private void writeOneEnum(StringBuilder sb, EnumRowElem row, String enumName)
+      /**
+       * Fill in disenumpart25 template, which declares constructor, accessors and precomputed value lookup
+       * @param classNameCorrected enumeration class name
+       * @param size bit width of enumeration
+       * @return filled-in template
+       */
+      private String formatEnumPart25(String classNameCorrected, String size)
+      {
+        Object[] arguments = new Object[14];
+        Arrays.fill(arguments, classNameCorrected);
+        arguments[1] = size;
+        return disenumpart25Template.render(arguments);
+      }
+
+      private void writeOneEnum(StringBuilder sb, EnumRowElem row)
       {
         String xrefName = null;
         if (row.xrefclassuid != null)
           xrefName = uidClassNames.get(row.xrefclassuid);
+        String description = normalizeDescription(row.description);
+        String enumName = createEnumRowName(row.value, description, aliases, xrefName != null, enumNames, true);
 
         if (xrefName == null) {
-          sb.append(String.format(disenumfootnotecommentTemplate, htmlize(normalizeDescription(row.description)) + (row.footnote == null ? "" : ", " + htmlize(normalizeDescription(row.footnote)))));
-          sb.append(String.format(disenumpart2Template, normalizeToken(enumName), row.value, normalizeDescription(row.description)));
+          disenumfootnotecommentTemplate.renderTo(sb, htmlize(description) + (row.footnote == null ? "" : ", " + htmlize(normalizeDescription(row.footnote))));
+          disenumpart2Template.renderTo(sb, enumName, row.value, description);
         }
         else {
-          sb.append(String.format(disenumcommentTemplate, xrefName));
-          sb.append(String.format(disenumpart21Template, createEnumName(normalizeDescription(row.description)), row.value, normalizeDescription(row.description), xrefName));
+          disenumcommentTemplate.renderTo(sb, xrefName);
+          disenumpart21Template.renderTo(sb, enumName, row.value, description, xrefName);
         }
       }
         /**
@@ -972,35 +916,7 @@ public class GenerateEnumerations
          */
         private String createEnumName(String s)
         {
-            String r = s.toUpperCase();
-            // Convert any of these chars to underbar (u2013 is a hyphen observed in source XML):
-            r = r.replaceAll("[\\h-/,\";:\\u2013]", "_");
-
-            // Remove any of these chars (u2019 is an apostrophe observed in source XML):
-            r = r.replaceAll("[()}{}'.#&\\u2019]", "");
-
-            // Special case the plus character:
-            r = r.replace("+", "PLUS");
-
-            // Collapse all contiguous underbars:
-            r = r.replaceAll("_{2,}", "_");
-
-            // If there's nothing there, put in something:
-            if (r.isEmpty() || r.equals("_"))
-                r = "undef";
-
-            // Java identifier can't start with digit
-            if (Character.isDigit(r.charAt(0)))
-                r = "_" + r; // originally "$"
-
-            // Handle multiply defined entries in the XML by appending a digit:
-            String origR = r;
-            int count = 2;
-            while (enumNames.contains(r)) {
-                r = origR + "_" + Integer.toString(count++);
-            }
-            enumNames.add(r);
-            return r;
+            return GenerateEnumerations.createEnumName(s, enumNames);
         }
 
         private String firstCharUpper(String s)
@@ -1055,6 +971,101 @@ public class GenerateEnumerations
             ex.printStackTrace(System.err);
         }
     }
+        /**
+         * Name the constant of one enumeration row as writeOutEnum() declares it, shared with SisoEnumerationNames.
+         * Aliases of uid 4 take precedence; a row cross-referencing another enumeration is named from its description
+         * once more, hence for example PLATFORM_2.
+         * @param value row value
+         * @param description normalized row description
+         * @param aliases constant names by value, applied to enumerations from uid 4 on, otherwise null
+         * @param crossReferenced whether xref of the row names a known enum, bitfield or dict uid
+         * @param enumNames names already used within this enumeration class, updated with new names
+         * @param report whether to report names changed by token normalization
+         * @return constant name
+         */
+        static String createEnumRowName(String value, String description, Properties aliases, boolean crossReferenced,
+                                        Set<String> enumNames, boolean report)
+        {
+            String enumName;
+            if ((aliases != null) && (aliases.getProperty(value) != null))
+                enumName = aliases.getProperty(value);
+            else
+                enumName = createEnumName(description, enumNames);
+            if (crossReferenced)
+                return createEnumName(description, enumNames);
+            return report ? normalizeToken(enumName) : normalizeTokenQuietly(enumName);
+        }
+
+        /**
+         * Value of an enumeration row, special case 2147483648 is one greater than max Java integer, reported 30 JAN 2022
+         * <pre>
+         *  &lt;enumrow value="2147483648" description="Rectangular Volume Record 4" group="1" status="hold" uuid="fdccf8e0-e73c-4137-b140-f7d0882b0778"&gt;
+         * </pre>
+         * @param value value attribute of enumrow
+         * @return value, with 2147483648 reset to 2147483647
+         */
+        static String enumRowValue(String value)
+        {
+            return "2147483648".equals(value) ? "2147483647" : value;
+        }
+
+        /**
+         * Description of an enumeration row lacking one, given by key and value of its meta element
+         * @param description normalized row description, possibly null or empty
+         * @param key key attribute of meta, or null
+         * @param value value attribute of meta, or null
+         * @return normalized description
+         */
+        static String metaDescription(String description, String key, String value)
+        {
+            if ((description != null) && !description.isEmpty())
+                return description;
+            if (key != null)
+                description = key.toUpperCase() + "_";
+            if (value != null)
+                description += value;
+            return (description == null) ? null : normalizeDescription(description);
+        }
+
+        /**
+         * Naming conventions for enumeration names, shared with GenerateEntityTypes via SisoEnumerationNames
+         * @param s enumeration string from XML data file
+         * @param enumNames names already used within this enumeration class, updated with the new name
+         * @return normalized name
+         */
+        static String createEnumName(String s, Set<String> enumNames)
+        {
+            String r = s.toUpperCase();
+            // Convert any of these chars to underbar (u2013 is a hyphen observed in source XML):
+            r = r.replaceAll("[\\h-/,\";:\\u2013]", "_");
+
+            // Remove any of these chars (u2019 is an apostrophe observed in source XML):
+            r = r.replaceAll("[()}{}'.#&\\u2019]", "");
+
+            // Special case the plus character:
+            r = r.replace("+", "PLUS");
+
+            // Collapse all contiguous underbars:
+            r = r.replaceAll("_{2,}", "_");
+
+            // If there's nothing there, put in something:
+            if (r.isEmpty() || r.equals("_"))
+                r = "undef";
+
+            // Java identifier can't start with digit
+            if (Character.isDigit(r.charAt(0)))
+                r = "_" + r; // originally "$"
+
+            // Handle multiply defined entries in the XML by appending a digit:
+            String origR = r;
+            int count = 2;
+            while (enumNames.contains(r)) {
+                r = origR + "_" + Integer.toString(count++);
+            }
+            enumNames.add(r);
+            return r;
+        }
+
         /**
          * Normalize string characters to create valid description
          * @param value of interest
@@ -1078,6 +1089,20 @@ public class GenerateEnumerations
          * @return normalized value
          */
         public static String normalizeToken(String value)
+        {
+            String normalizedEntry = normalizeTokenQuietly(value);
+            if (!value.equals(normalizedEntry) && !normalizedEntry.equals(value.trim()))
+                System.out.println ("*** normalize " + "\n" + 
+                                    "'" + value + "' to\n" + 
+                                    "'" + normalizedEntry + "'");
+            return normalizedEntry;
+        }
+        /**
+         * Normalize string characters to create valid Java name, without reporting changes
+         * @param value of interest
+         * @return normalized value
+         */
+        static String normalizeTokenQuietly(String value)
         {
             String normalizedEntry = value.trim()
                                           .replaceAll("\"", "").replaceAll("\'", "")
@@ -1091,10 +1116,6 @@ public class GenerateEnumerations
                                           .replaceAll("&", "&amp;").replaceAll("&amp;amp;", "&amp;");
             if (!normalizedEntry.isEmpty() && Character.isDigit(normalizedEntry.toCharArray()[0]))
                     normalizedEntry = '_' + normalizedEntry;
-            if (!value.equals(normalizedEntry) && !normalizedEntry.equals(value.trim()))
-                System.out.println ("*** normalize " + "\n" + 
-                                    "'" + value + "' to\n" + 
-                                    "'" + normalizedEntry + "'");
             return normalizedEntry;
         }
 }
@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.source.generator.enumerations;
+
+import edu.nps.moves.dis7.source.generator.SisoModel;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Enumeration constant names and descriptions of selected SISO enumerations, named by the same routines
+ * GenerateEnumerations declares them with, collected from the shared SisoModel in one replay. Other generators, such as GenerateEntityTypes,
+ * can thus refer to enumeration constants without compiling generated enumerations first and calling them
+ * reflectively. Lookups by value return the first declared constant, as getEnumForValue() of generated enumerations does.
+ *
+ * @see GenerateEnumerations
+ */
+public final class SisoEnumerationNames
+{
+    /** uid of DisPduType, whose aliases GenerateEnumerations applies to every enumeration written from then on */
+    private static final String ALIASES_UID = "4";
+
+    /** class name, then value, then {constant name, description} */
+    private final Map<String, Map<Integer, String[]>> constants = new HashMap<>();
+
+    private SisoEnumerationNames()
+    {
+    }
+
+    /**
+     * Collect enumeration constants of the given enumeration classes
+     * @param sisoModel parsed SISO XML
+     * @param classNames enumeration class names as listed in Uid2ClassName.properties, for example Country
+     * @return names and descriptions by value for each class
+     * @throws IOException if properties of GenerateEnumerations cannot be read
+     * @throws SAXException if replay fails
+     */
+    public static SisoEnumerationNames collect(SisoModel sisoModel, String... classNames) throws IOException, SAXException
+    {
+        Properties uid2ClassName = loadProperties("Uid2ClassName.properties");
+        Map<String, String> uidClasses = new HashMap<>();
+        for (String className : classNames)
+        {
+            for (String uid : uid2ClassName.stringPropertyNames())
+                if (className.equals(uid2ClassName.getProperty(uid)))
+                    uidClasses.put(uid, className);
+            if (!uidClasses.containsValue(className))
+                throw new IllegalArgumentException("no uid found for enumeration class " + className + " in Uid2ClassName.properties");
+        }
+        SisoEnumerationNames names = new SisoEnumerationNames();
+        Collector collector = new Collector(uidClasses.keySet());
+        sisoModel.replay(collector);
+        Properties aliases = loadProperties("uid4aliases.properties");
+        for (EnumRecord record : collector.records)
+            names.constants.put(uidClasses.get(record.uid), record.nameConstants(collector.uids, record.aliasesApplied ? aliases : null));
+        return names;
+    }
+
+    /**
+     * Provide enumeration constant name for a value
+     * @param className enumeration class name given to collect()
+     * @param value enumeration value
+     * @return constant name, for example UNITED_STATES_OF_AMERICA_USA
+     * @throws IllegalArgumentException if no constant has this value
+     */
+    public String getName(String className, int value)
+    {
+        String[] constant = constants.getOrDefault(className, Map.of()).get(value);
+        if (constant == null)
+            throw new IllegalArgumentException("No corresponding enumeration found for value " + value + " of enum " + className);
+        return constant[0];
+    }
+
+    /**
+     * Provide enumeration description for a value
+     * @param className enumeration class name given to collect()
+     * @param value enumeration value
+     * @return description, or empty string if no constant has this value
+     */
+    public String getDescription(String className, int value)
+    {
+        String[] constant = constants.getOrDefault(className, Map.of()).get(value);
+        return (constant == null) ? "" : constant[1];
+    }
+
+    private static Properties loadProperties(String resourceName) throws IOException
+    {
+        Properties properties = new Properties();
+        try (InputStream is = SisoEnumerationNames.class.getResourceAsStream(resourceName)) {
+            if (is == null)
+                throw new IOException("resource not found: " + resourceName);
+            properties.load(is);
+        }
+        return properties;
+    }
+
+    /** Rows of one selected enumeration, in document order */
+    private static class EnumRecord
+    {
+        String         uid;
+        boolean        aliasesApplied;
+        List<String[]> rows = new ArrayList<>(); // {value, normalized description, xref}
+
+        /** Name rows with GenerateEnumerations.createEnumRowName(), as writeOutEnum() does */
+        Map<Integer, String[]> nameConstants(Set<String> uids, Properties aliases)
+        {
+            Map<Integer, String[]> byValue = new HashMap<>();
+            Set<String> enumNames = new HashSet<>();
+            for (String[] row : rows)
+            {
+                String description = (row[1] == null) ? "" : row[1];
+                String name = GenerateEnumerations.createEnumRowName(row[0], description, aliases,
+                                                                     (row[2] != null) && uids.contains(row[2]), enumNames, false);
+                try {
+                    byValue.putIfAbsent(Integer.parseInt(row[0]), new String[] { name, description }); // first declared wins
+                }
+                catch (NumberFormatException ex) {
+                    System.err.println("SisoEnumerationNames ignoring value " + row[0] + " of enum uid " + uid);
+                }
+            }
+            return byValue;
+        }
+    }
+
+    /** SAX handler recording rows of selected enumerations along with all uids that cross references may name */
+    private static class Collector extends DefaultHandler
+    {
+        final Set<String>      selectedUids;
+        final Set<String>      uids    = new HashSet<>();
+        final List<EnumRecord> records = new ArrayList<>();
+        boolean    aliasesSeen;
+        EnumRecord currentEnum;
+        String[]   currentRow;
+
+        Collector(Set<String> selectedUids)
+        {
+            this.selectedUids = selectedUids;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+        {
+            switch (qName) {
+                case "enum":
+                    String uid = attributes.getValue("uid");
+                    aliasesSeen |= ALIASES_UID.equals(uid);
+                    if (uid != null)
+                        uids.add(uid);
+                    if (selectedUids.contains(uid))
+                    {
+                        currentEnum = new EnumRecord();
+                        currentEnum.uid            = uid;
+                        currentEnum.aliasesApplied = aliasesSeen;
+                        records.add(currentEnum);
+                    }
+                    break;
+
+                case "bitfield":
+                case "dict":
+                    if (attributes.getValue("uid") != null)
+                        uids.add(attributes.getValue("uid"));
+                    break;
+
+                case "enumrow":
+                    if (currentEnum == null)
+                        break;
+                    String description = attributes.getValue("description");
+                    if (description != null)
+                        description = GenerateEnumerations.normalizeDescription(description);
+                    currentRow = new String[] { GenerateEnumerations.enumRowValue(attributes.getValue("value")), description, attributes.getValue("xref") };
+                    currentEnum.rows.add(currentRow);
+                    break;
+
+                case "meta":
+                    if (currentRow != null)
+                        currentRow[1] = GenerateEnumerations.metaDescription(currentRow[1], attributes.getValue("key"), attributes.getValue("value"));
+                    break;
+
+                default:
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+        {
+            switch (qName) {
+                case "enum":
+                    currentEnum = null;
+                    break;
+                case "enumrow":
+                    currentRow = null;
+                    break;
+                default:
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@
  */
 package edu.nps.moves.dis7.source.generator.pdus;
 
+import edu.nps.moves.dis7.source.generator.GenerationProfile;
 import edu.nps.moves.dis7.source.generator.pdus.GeneratedClassAttribute.ClassAttributeType;
 import java.io.*;
 import java.util.*;
@@ -155,6 +156,7 @@ public class GeneratePdusForGivenLanguage  // TODO rename? perhaps GeneratePdusB
      */
     public GeneratePdusForGivenLanguage(String xmlDescriptionFileName, String languageToGenerate)
     {       
+        GenerationProfile.Phase parse = GenerationProfile.start(GeneratePdusForGivenLanguage.class.getSimpleName(), GenerationProfile.PARSE);
         try {
             DefaultHandler handler = new MyHandler();
 
@@ -167,6 +169,9 @@ public class GeneratePdusForGivenLanguage  // TODO rename? perhaps GeneratePdusB
         catch (IOException | ParserConfigurationException | SAXException e) {
             System.out.println(e);
         }
+        finally {
+            parse.close();
+        }
 
         // This does at least a cursory santity check on the data that has been read in from XML
         // It is far from complete.
@@ -251,8 +256,14 @@ public class GeneratePdusForGivenLanguage  // TODO rename? perhaps GeneratePdusB
         
         checkArguments(sisoXmlFile, programmingLanguage);
         
-        GeneratePdusForGivenLanguage generatePdusResult = new GeneratePdusForGivenLanguage(sisoXmlFile, programmingLanguage);  // includes simple list of PDUs
-        System.out.println (generatePdusResult.getClass().getName() + " complete.");
+        GenerationProfile.begin();
+        try {
+            GeneratePdusForGivenLanguage generatePdusResult = new GeneratePdusForGivenLanguage(sisoXmlFile, programmingLanguage);  // includes simple list of PDUs
+            System.out.println (generatePdusResult.getClass().getName() + " complete.");
+        }
+        finally {
+            GenerationProfile.end(GeneratePdusForGivenLanguage.class.getSimpleName()); // reports phases when xmlpg.profile is set
+        }
     }
     
     /**
@@ -750,6 +761,9 @@ public class GeneratePdusForGivenLanguage  // TODO rename? perhaps GeneratePdusB
                     case DEFAULTVALUE:
                         currentClassAttribute.setDefaultValue(attributes.getValue(idx));
                         break;
+                    case "size": // bit width, needed for wire offsets since bitfield classes are defined elsewhere
+                        currentClassAttribute.setEnumMarshalSize(attributes.getValue(idx));
+                        break;
                 }
             }
         }
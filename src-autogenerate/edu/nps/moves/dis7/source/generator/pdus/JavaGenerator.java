@@ -4,15 +4,15 @@
  */
 package edu.nps.moves.dis7.source.generator.pdus;
 
+import edu.nps.moves.dis7.source.generator.CompiledTemplate;
+import edu.nps.moves.dis7.source.generator.GenerationProfile;
+import edu.nps.moves.dis7.source.generator.SourceFileEmitter;
 import edu.nps.moves.dis7.source.generator.pdus.GeneratedClassAttribute.ClassAttributeType;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.io.Writer;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.*;
 
 /**
@@ -52,6 +52,20 @@ public class JavaGenerator extends AbstractGenerator
      */
     Properties primitiveSizes = new Properties();
     Map<String,Integer> primitiveSizesMap = new HashMap<>();
+
+    /**
+     * Modifier emitted on setters, marshal/unmarshal, getMarshalledSize, copy, equals and toString methods.
+     * Empty when language property "synchronized" (or system property xmlpg.synchronized) is false,
+     * producing unsynchronized single-owner classes; callers sharing instances can use SynchronizedPdu.
+     */
+    String synchronizedKeyword = "synchronized ";
+
+    /**
+     * Class whose instances can be interned as shared immutable instances, see string template entitytypeinterning.txt.
+     * Its mutators check mutability, and attributes of this type are reset, copied and unmarshalled by replacement
+     * rather than in place, so that enclosing records can hold shared instances.
+     */
+    static final String INTERNED_CLASS_NAME = "EntityType";
     
     /**
      * A property list that contains java-specific code generation information, such as package names, imports, etc.
@@ -76,6 +90,7 @@ public class JavaGenerator extends AbstractGenerator
             String clDirectory = systemProperties.getProperty("xmlpg.generatedSourceDir");
             //System.out.println("clDirectory=" + clDirectory);
             String clPackage = systemProperties.getProperty("xmlpg.package");
+            String clSynchronized = systemProperties.getProperty("xmlpg.synchronized");
 
             //System.out.println("System properties: " + systemProperties);
             if (clDirectory != null)
@@ -84,6 +99,15 @@ public class JavaGenerator extends AbstractGenerator
             if (clPackage != null)
                 pJavaProperties.setProperty("package", clPackage);
 
+            if (clSynchronized != null)
+                pJavaProperties.setProperty("synchronized", clSynchronized);
+
+            if (pJavaProperties.getProperty("synchronized", "true").equalsIgnoreCase("false"))
+            {
+                synchronizedKeyword = "";
+                System.out.println("Generating unsynchronized single-owner classes");
+            }
+
             super.setGeneratedSourceDirectoryName(clDirectory);
 
             System.out.println("Source code directory set to " + clDirectory);
@@ -176,14 +200,41 @@ public class JavaGenerator extends AbstractGenerator
         
         readTemplates();  // get the license
         
-        createGeneratedSourceDirectory(true); // boolean: whether to clean out prior files, if any exist in that directory
+        boolean incremental = !System.getProperty(SourceFileEmitter.INCREMENTAL_PROPERTY, "").isEmpty();
+        createGeneratedSourceDirectory(!incremental); // boolean: whether to clean out prior files, if any exist in that directory
 
-        Iterator classDescriptionsIterator = classDescriptions.values().iterator();
-
-        while (classDescriptionsIterator.hasNext()) {
-            try {
-                GeneratedClass aClass     = (GeneratedClass) classDescriptionsIterator.next();
-                String         aClassName = aClass.getName();
+        packageInfoPath = getGeneratedSourceDirectoryName() + "/edu/nps/moves/dis7/pdus/" + "package-info.java";
+        packageInfoFile = new File(packageInfoPath);
+        
+        packageInfoBuilder = new StringBuilder();
+        packageInfoBuilder.append("/**\n");
+        packageInfoBuilder.append(" * IEEE DIS Protocol Data Unit (PDU) packet definition classes.\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append(" * <p> Online references: </p>\n");
+        packageInfoBuilder.append(" * <ul>\n");
+        packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/opendis7-java\" target=\"_blank\">opendis7-java library</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
+        packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/opendis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/opendis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/opendis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append(" * @see java.lang.Package\n");
+        packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful</a>\n");
+        packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java</a>\n");
+        packageInfoBuilder.append(" */\n");
+        packageInfoBuilder.append("\n");
+        packageInfoBuilder.append("package edu.nps.moves.dis7.pdus;\n");
+
+        int viewCount = 0;
+        // classes are rendered independently from the completed model, so rendering and writing fan out over worker threads
+        try (SourceFileEmitter emitter = new SourceFileEmitter(JavaGenerator.class.getSimpleName(), new File(getGeneratedSourceDirectoryName())))
+        {
+            GenerationProfile.Phase renderPhase = GenerationProfile.start(JavaGenerator.class.getSimpleName(), GenerationProfile.RENDER); // submitting; rendering itself is recorded by emitter
+            emitter.write(packageInfoFile, packageInfoBuilder.toString());
+            for (GeneratedClass aClass : classDescriptions.values())
+            {
+                String aClassName = aClass.getName();
 //                String  pduSubpackageName = "pdus";
 
                 // Create package structure, if any
@@ -205,66 +256,29 @@ public class JavaGenerator extends AbstractGenerator
                 }
                 //System.out.println("Creating Java source code file for " + fullPath);
 
-                // Create the new, empty file, and create printwriter object for output to it
-                File outputFile = new File(aClassFullPath);
-                outputFile.getParentFile().mkdirs();
-                outputFile.createNewFile();
-                PrintWriter pw = new PrintWriter(outputFile, StandardCharsets.UTF_8.name());
-
                 // print the source code of the class to the file
                 // System.out.println("trying to make class "+name);
-                this.writeClass(pw, aClass);
+                emitter.render(new File(aClassFullPath), () -> {
+                    StringWriter source = new StringWriter();
+                    writeClass(new PrintWriter(source), aClass);
+                    return source.toString();
+                });
                 classCount++;
             }
-            catch (IOException e) {
-                e.printStackTrace(System.err);
-                System.err.println("error creating source code " + e);
-            }
-
-        } // End while
-        
-        packageInfoPath = getGeneratedSourceDirectoryName() + "/edu/nps/moves/dis7/pdus/" + "package-info.java";
-        packageInfoFile = new File(packageInfoPath);
-        
-        Writer packageInfoFileWriter;
-        try 
-        {
-            packageInfoFile.createNewFile();
-            packageInfoFileWriter = new FileWriter(packageInfoFile, StandardCharsets.UTF_8);
-            packageInfoBuilder = new StringBuilder();
-            packageInfoBuilder.append("/**\n");
-            packageInfoBuilder.append(" * IEEE DIS Protocol Data Unit (PDU) packet definition classes.\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append(" * <p> Online references: </p>\n");
-            packageInfoBuilder.append(" * <ul>\n");
-            packageInfoBuilder.append(" *      <li> GitHub <a href=\"https://github.com/open-dis/opendis7-java\" target=\"_blank\">opendis7-java library</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> NPS <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/examples/src/OpenDis7Examples\" target=\"MV3500\">MV3500 Distributed Simulation Fundamentals course examples</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://gitlab.nps.edu/Savage/NetworkedGraphicsMV3500/-/tree/master/specifications/README.md\" target=\"README.MV3500\">IEEE and SISO specification references</a> of interest</li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=46172\" target=\"SISO-REF-010\" >SISO-REF-010-2023 Reference for Enumerations for Simulation Interoperability</a> </li> \n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://www.sisostandards.org/DigitalLibrary.aspx?Command=Core_Download&amp;EntryId=47284\" target=\"SISO-REF-10.1\">SISO-REF-10.1-2019 Reference for Enumerations for Simulation, Operations Manual</a></li>\n");
-            packageInfoBuilder.append(" *      <li> <a href=\"https://savage.nps.edu/opendis7-java/javadoc\" target=\"_blank\">open-dis7 Javadoc</a>, <a href=\"https://savage.nps.edu/opendis7-java/xml/DIS_7_2012.autogenerated.xsd\" target=\"_blank\">open-dis7 XML Schema</a>and <a href=\"https://savage.nps.edu/opendis7-java/xml/SchemaDocumentation\" target=\"_blank\">open-dis7 XML Schema documentation</a></li> </ul>\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append(" * @see java.lang.Package\n");
-            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful\">https://stackoverflow.com/questions/22095487/why-is-package-info-java-useful</a>\n");
-            packageInfoBuilder.append(" * @see <a href=\"https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java\">https://stackoverflow.com/questions/624422/how-do-i-document-packages-in-java</a>\n");
-            packageInfoBuilder.append(" */\n");
-            packageInfoBuilder.append("\n");
-            packageInfoBuilder.append("package edu.nps.moves.dis7.pdus;\n");
-
-            packageInfoFileWriter.write(packageInfoBuilder.toString());
-            packageInfoFileWriter.flush();
-            packageInfoFileWriter.close();
-            System.out.println("Created " + packageInfoPath);
+            viewCount = writeViewClasses(emitter);
+            renderPhase.close();
+            emitter.finish(); // when incremental, deletes files no longer generated and saves manifest
         }
-        catch (IOException ex) {
-            System.err.flush(); // avoid intermingled output
-            System.err.println (ex.getMessage()
-               + packageInfoFile.getAbsolutePath()
-            );
-            ex.printStackTrace(System.err);
+        catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.err.println("error creating source code " + e);
         }
+
+        String footprintReportFileName = System.getProperty("xmlpg.footprintReport"); // optional
+        if ((footprintReportFileName != null) && !footprintReportFileName.isBlank())
+            writeFootprintReport(new File(footprintReportFileName));
         
-        System.out.println (JavaGenerator.class.getName() + " complete, " + classCount + " classes written.");
+        System.out.println (JavaGenerator.class.getName() + " complete, " + classCount + " classes and " + viewCount + " view classes written.");
 
     } // End write classes
 
@@ -692,6 +706,8 @@ public class JavaGenerator extends AbstractGenerator
             }
             writeConstructor(pw, aClass);
             pw.flush();
+            writeResetMethod(pw, aClass);
+            pw.flush();
             writeCopyMethods(pw, aClass);
             pw.flush();
             writeGetMarshalledSizeMethod(pw, aClass);
@@ -733,6 +749,10 @@ public class JavaGenerator extends AbstractGenerator
                 writeCheckWhichLayersNeedsUnmarshalingMethod(pw);
                 pw.flush();
             }
+            if (aClass.getName().equals(INTERNED_CLASS_NAME)) {
+                pw.print(entityTypeInterningTemplate);
+                pw.flush();
+            }
 
             pw.println("} // end of " + aClass.getName());
             pw.flush();
@@ -753,7 +773,7 @@ public class JavaGenerator extends AbstractGenerator
             .append("  * @see edu.nps.moves.dis7.utilities.DisTime\n")
             .append("  * @param newTimestamp new timestamp in seconds\n")
             .append("  * @return same object to permit progressive setters */\n")
-            .append("public synchronized Pdu setTimestampSeconds(double newTimestamp)\n")
+            .append("public " + synchronizedKeyword + "Pdu setTimestampSeconds(double newTimestamp)\n")
             .append("{\n")
             .append("    timestamp = (int) ((newTimestamp * 3600.0) / Integer.MAX_VALUE);\n")
             .append("    return this;\n")
@@ -834,7 +854,7 @@ public class JavaGenerator extends AbstractGenerator
             .append("    * @param direction using Directions enumerations\n")
             .append("    * @see Direction\n")
             .append("    * @return same object to permit progressive setters */\n")
-            .append("  public final synchronized EntityStatePdu setEntityLinearVelocity (float speed, Direction direction)\n")
+            .append("  public final " + synchronizedKeyword + "EntityStatePdu setEntityLinearVelocity (float speed, Direction direction)\n")
             .append("  {\n")
             .append("      float xFactor = 0.0f;\n")
             .append("      float yFactor = 0.0f;\n")
@@ -884,7 +904,7 @@ public class JavaGenerator extends AbstractGenerator
             .append("     * @param y location\n")
             .append("     * @param z location\n")
             .append("     * @return same object to permit progressive setters */\n")
-            .append("   public synchronized EntityStatePdu setEntityLocation(double x, double y, double z)\n")
+            .append("   public " + synchronizedKeyword + "EntityStatePdu setEntityLocation(double x, double y, double z)\n")
             .append("   {\n")
             .append("       // TODO autogenerate such utility constructors\n")
             .append("       entityLocation = new Vector3Double().setX(x).setY(y).setZ(z);\n")
@@ -909,7 +929,7 @@ public class JavaGenerator extends AbstractGenerator
             .append("      * @param theta new value of interest\n")
             .append("      * @param psi new value of interest\n")
             .append("      * @return same object to permit progressive setters */\n")
-            .append("    public synchronized EntityStatePdu setEntityOrientation(float phi, float theta, float psi)\n")
+            .append("    public " + synchronizedKeyword + "EntityStatePdu setEntityOrientation(float phi, float theta, float psi)\n")
             .append("    {\n")
             .append("        // TODO autogenerate such utility constructors\n")
             .append("        EulerAngles pEntityOrientation = new EulerAngles();\n")
@@ -920,7 +940,7 @@ public class JavaGenerator extends AbstractGenerator
                 
             .append("   /** Marking utility to clear character values\n")
             .append("    * @return same object to permit progressive setters */\n")
-            .append("    public synchronized EntityStatePdu clearMarking()\n")
+            .append("    public " + synchronizedKeyword + "EntityStatePdu clearMarking()\n")
             .append("   {\n")
             .append("       byte[] emptyByteArray = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};\n")
             .append("       marking.setCharacters(emptyByteArray);\n")
@@ -930,7 +950,7 @@ public class JavaGenerator extends AbstractGenerator
             .append("    /** Marking utility to set character values, 11 characters maximum\n")
             .append("    *@param newMarking new 11-character string to assign as marking value\n")
             .append("    * @return same object to permit progressive setters */\n")
-            .append("   public synchronized EntityStatePdu setMarking(String newMarking)\n")
+            .append("   public " + synchronizedKeyword + "EntityStatePdu setMarking(String newMarking)\n")
             .append("   {\n")
             .append("       if ((newMarking == null) || newMarking.isEmpty())\n")
             .append("           clearMarking();\n")
@@ -960,6 +980,7 @@ public class JavaGenerator extends AbstractGenerator
     String domainTemplate3;*/
     String specSourceTemplate;
     String licenseTemplate;
+    String entityTypeInterningTemplate;
     /*
     private void writeSpecialCase(PrintWriter pw, GeneratedClass aClass)
     {
@@ -991,6 +1012,7 @@ public class JavaGenerator extends AbstractGenerator
          // domainTemplate3 = loadOneTemplate("domainpart3.txt");
             specSourceTemplate      = loadOneTemplate("dis7spec.txt");
             licenseTemplate         = loadOneTemplate("dis7javalicense.txt");
+            entityTypeInterningTemplate = loadOneTemplate("entitytypeinterning.txt");
         }
         catch (Exception ex) {
             throw new RuntimeException(ex);
@@ -999,7 +1021,19 @@ public class JavaGenerator extends AbstractGenerator
 
     private String loadOneTemplate(String s) throws Exception
     {
-        return new String(Files.readAllBytes(Paths.get(getClass().getResource(s).toURI())));
+        return CompiledTemplate.load(getClass(), s).getText(); // shared with other generators
+    }
+
+    /** Statement rejecting modification of a shared immutable instance, emitted at the start of mutators of the interned class */
+    private String mutabilityCheck(GeneratedClass aClass)
+    {
+        return aClass.getName().equals(INTERNED_CLASS_NAME) ? "    checkMutable();\n" : "";
+    }
+
+    /** Whether an attribute may hold shared immutable instances, which are replaced rather than modified in place */
+    private boolean isInterned(GeneratedClassAttribute anAttribute)
+    {
+        return INTERNED_CLASS_NAME.equals(anAttribute.getType());
     }
     
     /**
@@ -1087,6 +1121,17 @@ public class JavaGenerator extends AbstractGenerator
           pw.println("   {");
           pw.println("       super();");
           pw.println("   }");
+          pw.println();
+          // copy() returns this alias class, so that the copy equals the original
+          pw.println("   /** copy method creates a deep copy of current object by copying attribute values directly");
+          pw.println("     * @return deep copy */");
+          pw.println("   @Override");
+          pw.println("   public " + synchronizedKeyword + aClass.getName() + " copy()");
+          pw.println("   {");
+          pw.println("       " + aClass.getName() + " newCopy = new " + aClass.getName() + "();");
+          pw.println("       newCopy.copyFrom(this);");
+          pw.println("       return newCopy;");
+          pw.println("   }");
           pw.println("}");
           return;
         }
@@ -1269,101 +1314,198 @@ public class JavaGenerator extends AbstractGenerator
   
     private void writeCopyMethods(PrintWriter pw, GeneratedClass aClass)
     {
-        int BYTE_BUFFER_SIZE = 400; // TODO what is expected max buffer size?
+        writeCopyFromMethod(pw, aClass);
+
+        if (aClass.isAbstract())
+        {
+            pw.println("/** copy method creates a deep copy of current object, implemented by each concrete subclass");
+            pw.println(" * @return deep copy */");
+            pw.println(" public abstract " + aClass.getName() + " copy();");
+            pw.println();
+        }
+        else
+        {
+            pw.println("/** copy method creates a deep copy of current object by copying attribute values directly,");
+            pw.println(" * which is much faster than a marshal/unmarshal round trip");
+            pw.println(" * @return deep copy */");
+            pw.println(" public " + synchronizedKeyword + aClass.getName() + " copy()");
+            pw.println(" {");
+            pw.println("     " + aClass.getName() + " newCopy = new " + aClass.getName() + "();");
+            pw.println("     newCopy.copyFrom(this);");
+            pw.println("     return newCopy;");
+            pw.println(" }");
+            pw.println();
+        }
         
         if (aClass.getName().equals(("Pdu")))
         {
             pw.println("    /** Create deep copy of current object using PduFactory.");
             pw.println("     * @return deep copy of PDU");
             pw.println("     */");
-            pw.println("     public synchronized Pdu copyByPduFactory()");
+            pw.println("     public " + synchronizedKeyword + "Pdu copyByPduFactory()");
             pw.println("     {");
             pw.println("         PduFactory pduFactory = new PduFactory();");
-            pw.println("         Pdu newPdu = null; // initialize empty as placeholder");
             pw.println("         try");
             pw.println("         {");
-            pw.println("             newPdu = pduFactory.createPdu(marshal());");
+            pw.println("             return pduFactory.createPdu(marshal());");
             pw.println("         }");
             pw.println("         catch (Exception e)");
             pw.println("         {");
-            pw.println("             System.err.println(\"" + aClass.getName() + " copyByPduFactory() Exception: \" + e.toString());");
-            pw.println("             System.exit(-1); // TODO: Abruptly ending VM not a best practice"); 
+            pw.println("             throw new IllegalStateException(\"" + aClass.getName() + " copyByPduFactory() Exception: \" + e.toString(), e);");
             pw.println("         }");
-            pw.println("         return newPdu;");
             pw.println("     }");
         }
         else if (aClass.getName().endsWith("Pdu") && !aClass.getName().equals(("Pdu"))&& !aClass.isAbstract())
         {
-            pw.println("/** copy method creates a deep copy of current object using preferred marshalling method");
+            pw.println("/** Creates a \"deep copy\" of current object using ByteBuffer marshal/unmarshal methods.");
+            pw.println(" * @see copy()");
             pw.println(" * @return deep copy of PDU */");
-            pw.println(" public synchronized " + aClass.getName() + " copy()");
+            pw.println(" public " + synchronizedKeyword + aClass.getName() + " copyByteBuffer()");
             pw.println(" {");
-            pw.println("     return copyDataOutputStream();");
-            pw.println(" }");
-            pw.println("/** Creates a \"deep copy\" of current object using ByteBuffer methods.");
-            pw.println(" * @return deep copy of PDU */");
-            pw.println(" public synchronized " + aClass.getName() + " copyByteBuffer()");
-            pw.println(" {");
-//          pw.println("     PduFactory pduFactory = new PduFactory();");
-//          pw.println("     EntityStatePdu newCopy = pduFactory.make" + aClass.getName() + "();");
             pw.println("     " + aClass.getName() + " newCopy = new " + aClass.getName() + "();");
-            pw.println("     ByteBuffer byteBuffer = ByteBuffer.allocate(" + BYTE_BUFFER_SIZE + ");");
+            pw.println("     ByteBuffer byteBuffer = ByteBuffer.allocate(getMarshalledSize());");
             pw.println("     try");
             pw.println("     {");
-            pw.println("         this.marshal(byteBuffer);      // working");
-            pw.println("         newCopy.unmarshal(byteBuffer); // not working");
+            pw.println("         this.marshal(byteBuffer);");
+            pw.println("         byteBuffer.rewind();");
+            pw.println("         newCopy.unmarshal(byteBuffer);");
             pw.println("     }");
             pw.println("     catch (Exception e)");
             pw.println("     {");
-            pw.println("         System.err.println(\"" + aClass.getName() + " deep copy() marshall/unmarshall ByteBuffer exception \" + e.getMessage());");
-            pw.println("         e.printStackTrace(System.err);");
-            pw.println("         System.exit(-1); // TODO: Abruptly ending VM not a good practice");
+            pw.println("         throw new IllegalStateException(\"" + aClass.getName() + " deep copy() marshall/unmarshall ByteBuffer exception \" + e.getMessage(), e);");
             pw.println("     }");
             pw.println("     return newCopy;");
             pw.println(" }");
             pw.println();
             
-            pw.println("/** byteArrayOutputStream (baos) is used for marshal/unmarshal serialization");
-            pw.println("   * @see copyDataOutputStream() */");
-            pw.println("protected ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();");
-            pw.println("/** dataOutputStream (dos) is used for marshal/unmarshal serialization");
-            pw.println("   * @see copyDataOutputStream() */");
-            pw.println("protected DataOutputStream      dataOutputStream      = new DataOutputStream(byteArrayOutputStream);");
-            pw.println();
-            pw.println("/** copy method creates a deep copy of current object using DataOutputStream methods.");
+            pw.println("/** Creates a \"deep copy\" of current object using DataOutputStream marshal/unmarshal methods,");
+            pw.println(" * with scratch streams shared by all Pdu objects on the current thread.");
+            pw.println(" * @see copy()");
+            pw.println(" * @see PduEncoder");
             pw.println(" * @return deep copy of PDU */");
-            pw.println(" public synchronized " + aClass.getName() + " copyDataOutputStream()");
+            pw.println(" public " + synchronizedKeyword + aClass.getName() + " copyDataOutputStream()");
             pw.println(" {");
-//            pw.println("     PduFactory pduFactory = new PduFactory();");
             pw.println("     " + aClass.getName() + " newCopy = new " + aClass.getName() + "();");
-//            pw.println("     DataOutputStream dos = new DataOutputStream(new ByteArrayOutputStream());");
+            pw.println("     PduEncoder pduEncoder = PduEncoder.get();");
             pw.println("     try");
             pw.println("     {");
-            pw.println("         this.marshal(dataOutputStream);");
-            pw.println("         byte[] byteArrayDOS = byteArrayOutputStream.toByteArray();");
-            pw.println("         newCopy.unmarshal(ByteBuffer.wrap(byteArrayDOS));");
+            pw.println("         this.marshal(pduEncoder.begin());");
+            pw.println("         newCopy.unmarshal(pduEncoder.toByteBuffer());");
             pw.println("     }");
             pw.println("     catch (Exception e)");
             pw.println("     {");
-            pw.println("         System.err.println(\"" + aClass.getName() + " deep copy() marshall/unmarshall DataOutputStream exception \" + e.getMessage());");
-            pw.println("         e.printStackTrace(System.err);");
-            pw.println("         System.exit(-1); // TODO: Abruptly ending VM not a good practice");
+            pw.println("         throw new IllegalStateException(\"" + aClass.getName() + " deep copy() marshall/unmarshall DataOutputStream exception \" + e.getMessage(), e);");
             pw.println("     }");
-
-            pw.println("        try");
-            pw.println("        {");
-            pw.println("                 dataOutputStream.flush();");
-            pw.println("            byteArrayOutputStream.flush();");
-            pw.println("            byteArrayOutputStream.reset();");
-            pw.println("        }");
-            pw.println("        catch (IOException ioe)");
-            pw.println("        {");
-            pw.println("            System.err.println(\"" + aClass.getName() + " copyDataOutputStream() flush IOException: \" + ioe.getMessage());");
-            pw.println("        }");
             pw.println("     return newCopy;");
             pw.println(" }");
         }
     }
+
+    /**
+     * Write copyFrom() method, which sets attribute values from another instance: primitives and enumerations are
+     * assigned, nested records are copied in place where possible, lists are copied into new pre-sized lists,
+     * and arrays are copied with System.arraycopy.
+     * @param pw PrintWriter
+     * @param aClass class of interest
+     */
+    private void writeCopyFromMethod(PrintWriter pw, GeneratedClass aClass)
+    {
+        String className = aClass.getName();
+        pw.println();
+        pw.println("/** Set attribute values of this object to deep copies of those of another object, reusing nested records where possible.");
+        pw.println(" * Superclass attributes are copied by the superclass copyFrom() method.");
+        pw.println(" * @param source object to copy from, which is not modified");
+        pw.println(" * @return same object to permit progressive setters */");
+        pw.println(" public " + synchronizedKeyword + className + " copyFrom(" + className + " source)");
+        pw.println(" {");
+        pw.print(mutabilityCheck(aClass));
+        if (classDescriptions.get(aClass.getParentClass()) != null)
+            pw.println("    super.copyFrom(source);");
+
+        for (GeneratedClassAttribute anAttribute : aClass.getClassAttributes())
+        {
+            if (anAttribute.shouldSerialize == false)
+                continue;
+            String name   = anAttribute.getName();
+            String source = "source." + name;
+            String attributeType;
+
+            switch (anAttribute.getAttributeKind())
+            {
+                case PRIMITIVE:
+                case SISO_ENUM: // enumeration values are immutable
+                    pw.println("    " + name + " = " + source + ";");
+                    break;
+
+                case CLASSREF:
+                    GeneratedClass referencedClass = classDescriptions.get(anAttribute.getType());
+                    if (isInterned(anAttribute)) // share immutable instances, replace rather than modify them
+                        pw.println("    " + name + " = " + INTERNED_CLASS_NAME + ".copyFromInterned(" + name + ", " + source + ");");
+                    else if ((referencedClass == null) || referencedClass.isAbstract() || hasSubclasses(referencedClass) ||
+                        name.startsWith("iFFPduLayer"))
+                    {
+                        // supporting class, optional record or polymorphic record, so copy() provides correct class
+                        pw.println("    " + name + " = (" + source + " == null) ? null : " + source + ".copy();");
+                    }
+                    else
+                    {
+                        pw.println("    if ((" + name + " == null) || (" + source + " == null))");
+                        pw.println("        " + name + " = (" + source + " == null) ? null : " + source + ".copy();");
+                        pw.println("    else " + name + ".copyFrom(" + source + ");");
+                    }
+                    break;
+
+                case SISO_BITFIELD: // copy bits in place when the bitfield class matches, for example same capabilities type
+                    pw.println("    if ((" + name + " != null) && (" + source + " != null) && (" + name + ".getClass() == " + source + ".getClass()))");
+                    pw.println("        ((DisBitSet) " + name + ").setValue(((DisBitSet) " + source + ").getValue());");
+                    pw.println("    else " + name + " = (" + source + " == null) ? null : (" + anAttribute.getType() + ") ((DisBitSet) " + source + ").clone();");
+                    break;
+
+                case PRIMITIVE_LIST:
+                case PADTO16:
+                case PADTO32:
+                case PADTO64:
+                    attributeType = (anAttribute.getAttributeKind() == ClassAttributeType.PRIMITIVE_LIST) ? types.getProperty(anAttribute.getType()) : "byte";
+                    pw.println("    if (" + source + " == null)");
+                    pw.println("        " + name + " = null;");
+                    pw.println("    else");
+                    pw.println("    {");
+                    pw.println("        if ((" + name + " == null) || (" + name + ".length != " + source + ".length))");
+                    pw.println("            " + name + " = new " + attributeType + "[" + source + ".length];");
+                    pw.println("        System.arraycopy(" + source + ", 0, " + name + ", 0, " + source + ".length);");
+                    pw.println("    }");
+                    break;
+
+                case OBJECT_LIST:
+                    String elementType = anAttribute.getType();
+                    pw.println("    if (" + source + " == null)");
+                    pw.println("        " + name + " = null;");
+                    if (anAttribute.getUnderlyingTypeIsEnum()) // enumeration values are immutable
+                        pw.println("    else " + name + " = new ArrayList<>(" + source + ");");
+                    else
+                    {
+                        String elementCopy;
+                        if (classDescriptions.get(elementType) != null)
+                            elementCopy = "element.copy()";
+                        else // bitfield
+                            elementCopy = "(" + elementType + ") element.clone()";
+                        pw.println("    else");
+                        pw.println("    {");
+                        pw.println("        " + name + " = new ArrayList<>(" + source + ".size());");
+                        pw.println("        for (" + elementType + " element : " + source + ")");
+                        pw.println("            " + name + ".add((element == null) ? null : " + elementCopy + ");");
+                        pw.println("    }");
+                    }
+                    break;
+
+                default: // STATIC_IVAR
+                    break;
+            }
+        }
+        pw.println("    return this;");
+        pw.println(" }");
+        pw.println();
+    }
   
     private void writeConstructor(PrintWriter pw, GeneratedClass aClass)
     {
@@ -1372,7 +1514,17 @@ public class JavaGenerator extends AbstractGenerator
         pw.println("/** Constructor creates and configures a new instance object */");
         pw.println(" public " + aClass.getName() + "()");
         pw.println(" {");
+        writeInitialValues(pw, aClass);
+        pw.println(" }");    
+    }
 
+    /**
+     * Set initial values declared for this class, shared by constructor and reset()
+     * @param pw PrintWriter
+     * @param aClass class of interest
+     */
+    private void writeInitialValues(PrintWriter pw, GeneratedClass aClass)
+    {
         // Set primitive types with initial values
         for (GeneratedInitialValue anInit : aClass.getInitialValues()) {
 
@@ -1409,8 +1561,99 @@ public class JavaGenerator extends AbstractGenerator
                     pw.println("    " + anInit.getSetterMethodName() + "( (" + types.getProperty(aType) + ")" + anInit.getVariableValue() + " );");
             }
         } // End initialize initial values
-        
-        pw.println(" }");    
+    }
+
+    /**
+     * Write reset() method, which restores initial values in place so that an instance can be reused,
+     * for example by a PduFactory pool. Nested records are reset rather than reallocated and
+     * variable-length lists are cleared.
+     * @param pw PrintWriter
+     * @param aClass class of interest
+     */
+    private void writeResetMethod(PrintWriter pw, GeneratedClass aClass)
+    {
+        boolean hasParent = (classDescriptions.get(aClass.getParentClass()) != null);
+        pw.println();
+        pw.println("/** Restore initial values in place, without reallocating nested records or lists, so that this object can be reused */");
+        if (hasParent)
+            pw.println(" @Override");
+        pw.println(" public " + synchronizedKeyword + "void reset()");
+        pw.println(" {");
+        pw.print(mutabilityCheck(aClass));
+        if (hasParent)
+            pw.println("    super.reset();");
+
+        for (GeneratedClassAttribute anAttribute : aClass.getClassAttributes())
+        {
+            if (anAttribute.shouldSerialize == false)
+                continue;
+            String name = anAttribute.getName();
+            String defaultValue = anAttribute.getDefaultValue();
+            String attributeType;
+
+            switch (anAttribute.getAttributeKind())
+            {
+                case PRIMITIVE:
+                    attributeType = types.getProperty(anAttribute.getType());
+                    pw.println("    " + name + " = (" + attributeType + ")" + (defaultValue == null ? "0" : defaultValue) + ";");
+                    break;
+
+                case SISO_ENUM:
+                    if (defaultValue == null)
+                        pw.println("    " + name + " = " + anAttribute.getType() + ".values()[0];");
+                    else
+                        pw.println("    " + name + " = " + defaultValue + ";");
+                    break;
+
+                case CLASSREF:
+                    if (name.startsWith("iFFPduLayer")) // optional layers are only present when indicated
+                        pw.println("    " + name + " = null;");
+                    else if ((defaultValue == null) && isInterned(anAttribute))
+                        pw.println("    " + name + " = " + INTERNED_CLASS_NAME + ".resetInterned(" + name + ");");
+                    else if (defaultValue == null)
+                        pw.println("    " + name + ".reset();");
+                    else
+                        pw.println("    " + name + " = " + defaultValue + ";");
+                    break;
+
+                case SISO_BITFIELD:
+                    if (defaultValue == null)
+                        pw.println("    " + name + ".clear();");
+                    else if (defaultValue.matches("new\\s+\\w+\\(\\)")) // retain default instance if still present
+                    {
+                        String defaultClass = defaultValue.replaceAll("new\\s+(\\w+)\\(\\)", "$1");
+                        pw.println("    if (" + name + " instanceof " + defaultClass + " default" + initialCapital(name) + ")");
+                        pw.println("        default" + initialCapital(name) + ".clear();");
+                        pw.println("    else " + name + " = " + defaultValue + ";");
+                    }
+                    else
+                        pw.println("    " + name + " = " + defaultValue + ";");
+                    break;
+
+                case PRIMITIVE_LIST:
+                    attributeType = types.getProperty(anAttribute.getType());
+                    pw.println("    if (" + name + ".length != " + anAttribute.getListLength() + ")");
+                    pw.println("        " + name + " = new " + attributeType + "[" + anAttribute.getListLength() + "];");
+                    pw.println("    else Arrays.fill(" + name + ", (" + attributeType + ")0);");
+                    break;
+
+                case OBJECT_LIST:
+                    pw.println("    " + name + ".clear();");
+                    break;
+
+                case PADTO16:
+                case PADTO32:
+                case PADTO64:
+                    pw.println("    if (" + name + ".length != 0)");
+                    pw.println("        " + name + " = new byte[0];");
+                    break;
+
+                default: // STATIC_IVAR
+                    break;
+            }
+        }
+        writeInitialValues(pw, aClass);
+        pw.println(" }");
     }
     
     /**
@@ -1420,7 +1663,15 @@ public class JavaGenerator extends AbstractGenerator
      */
     public void writeGetMarshalledSizeMethod(PrintWriter printWriter, GeneratedClass aClass)
     {
+        // fixed-size classes use a compile-time constant, variable-size classes add a constant prefix to a dynamic tail
+        WireSize fixedSize = getFixedWireSize(aClass);
         printWriter.println();
+        if (hasMarshalledSizeConstant(aClass))
+        {
+            printWriter.println("  /** Serialized (marshalled) size of this object in bytes, available as a compile-time constant since this layout has no variable-length fields */");
+            printWriter.println("  public static final int MARSHALLED_SIZE = " + fixedSize + ";");
+            printWriter.println();
+        }
             printWriter.println(
 "  /**\n" +
 "   * Returns size of this serialized (marshalled) object in bytes\n" +
@@ -1429,23 +1680,116 @@ public class JavaGenerator extends AbstractGenerator
 "   */");
         if (aClass.getName().endsWith("Pdu"))
             printWriter.println("@Override");
-        printWriter.println("public synchronized int getMarshalledSize()");
+        printWriter.println("public " + synchronizedKeyword + "int getMarshalledSize()");
         printWriter.println("{");
-        printWriter.println("   int marshalSize = 0; ");
+        if (fixedSize != null)
+        {
+            printWriter.println("   return " + (hasMarshalledSizeConstant(aClass) ? "MARSHALLED_SIZE" : fixedSize.toString()) + ";");
+            printWriter.println("}");
+            printWriter.println();
+            return;
+        }
+
+        // Size of superclass is the starting point, constant if superclass is fixed size
+        WireSize fixedPrefix = new WireSize();
+        GeneratedClass parentClass = classDescriptions.get(aClass.getParentClass());
+        boolean parentIsFixedSize = (parentClass == null) || (getFixedWireSize(parentClass) != null);
+        if (parentClass != null && parentIsFixedSize)
+            fixedPrefix.add(getFixedWireSize(parentClass));
+        if (hasPadding(aClass))
+        {
+            writePaddedMarshalledSize(printWriter, aClass, fixedPrefix, parentIsFixedSize);
+            return;
+        }
+        for (GeneratedClassAttribute anAttribute : aClass.getClassAttributes()) {
+            WireSize attributeSize = getFixedWireSize(anAttribute);
+            if (attributeSize != null)
+                fixedPrefix.add(attributeSize);
+        }
+        printWriter.println("   int marshalSize = " + fixedPrefix + "; // fixed-size attributes");
         printWriter.println();
+        if (!parentIsFixedSize) {
+            printWriter.println("   marshalSize += super.getMarshalledSize();");
+        }
 
-        // Size of superclass is the starting point
-        if (!aClass.getParentClass().equalsIgnoreCase("root")) {
-            printWriter.println("   marshalSize = super.getMarshalledSize();");
+        for (GeneratedClassAttribute anAttribute : aClass.getClassAttributes()) {
+            if (getFixedWireSize(anAttribute) != null)
+                continue; // already included in fixed-size prefix
+            writeVariableAttributeSize(printWriter, anAttribute);
         }
+        printWriter.println();
+        printWriter.println("   return marshalSize;");
+        printWriter.println("}");
+        printWriter.println();
+    }
+
+    /**
+     * Produce getMarshalledSize() body for a class with padding attributes, adding sizes in marshalling order
+     * since the padding length depends on the size of everything preceding it, including superclass attributes.
+     * Padding arrays are only sized when marshalling, so their current length is not used.
+     * @param printWriter output
+     * @param aClass input class
+     * @param fixedPrefix fixed size of superclass, if any
+     * @param parentIsFixedSize whether fixedPrefix holds the superclass size
+     */
+    private void writePaddedMarshalledSize(PrintWriter printWriter, GeneratedClass aClass, WireSize fixedPrefix, boolean parentIsFixedSize)
+    {
+        printWriter.println("   int marshalSize = " + (parentIsFixedSize ? fixedPrefix : "super.getMarshalledSize()") + ";");
+        WireSize pending = new WireSize();
+        for (GeneratedClassAttribute anAttribute : aClass.getClassAttributes()) {
+            WireSize attributeSize = getFixedWireSize(anAttribute);
+            if (attributeSize != null) {
+                pending.add(attributeSize);
+                continue;
+            }
+            writePendingSize(printWriter, pending);
+            pending = new WireSize();
+            writeVariableAttributeSize(printWriter, anAttribute);
+        }
+        writePendingSize(printWriter, pending);
+        printWriter.println();
+        printWriter.println("   return marshalSize;");
+        printWriter.println("}");
+        printWriter.println();
+    }
+
+    /** Add accumulated fixed-size attributes to marshalSize, if any */
+    private void writePendingSize(PrintWriter printWriter, WireSize pending)
+    {
+        if (pending.terms.isEmpty() && (pending.bytes == 0))
+            return;
+        String expression = pending.terms.isEmpty() || (pending.bytes != 0) ? pending.toString() : String.join(" + ", pending.terms);
+        printWriter.println("   marshalSize += " + expression + ";");
+    }
 
+    /**
+     * Whether any attribute of this class is padding to an alignment boundary
+     * @param aClass class of interest
+     * @return true if padding is present
+     */
+    private boolean hasPadding(GeneratedClass aClass)
+    {
         for (GeneratedClassAttribute anAttribute : aClass.getClassAttributes()) {
             switch (anAttribute.getAttributeKind()) {
-                case PRIMITIVE:
-                    // primitive cannot be null, no checking required
-                    printWriter.print("   marshalSize += ");
-                    printWriter.println(primitiveSizes.get(anAttribute.getType()) + ";  // " + anAttribute.getName());
+                case PADTO16:
+                case PADTO32:
+                case PADTO64:
+                    return true;
+                default:
                     break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Produce getMarshalledSize() statement adding the size of a variable-size attribute to marshalSize
+     * @param printWriter output
+     * @param anAttribute attribute without fixed wire size
+     */
+    private void writeVariableAttributeSize(PrintWriter printWriter, GeneratedClassAttribute anAttribute)
+    {
+            switch (anAttribute.getAttributeKind()) {
                 case CLASSREF:
                 case SISO_ENUM:
                 case SISO_BITFIELD:
@@ -1471,21 +1815,22 @@ public class JavaGenerator extends AbstractGenerator
                     printWriter.println("       }");
                     break;
                 case PADTO16:
+                    printWriter.println("   marshalSize += (2 - marshalSize % 2) % 2; // " + anAttribute.getName());
+                    break;
                 case PADTO32:
+                    printWriter.println("   marshalSize += (4 - marshalSize % 4) % 4; // " + anAttribute.getName());
+                    break;
                 case PADTO64:
-                    printWriter.println("   if (" + anAttribute.getName() + " != null)");
-                    printWriter.println("       marshalSize += "+anAttribute.getName()+".length;");
+                    printWriter.println("   marshalSize += (8 - marshalSize % 8) % 8; // " + anAttribute.getName());
                     break;
-            }          
-        }
-        printWriter.println();
-        printWriter.println("   return marshalSize;");
-        printWriter.println("}");
-        printWriter.println();
+                default:
+                    break;
+            }
     }
  
     private void writeGettersAndSetters(PrintWriter pw, GeneratedClass aClass)
     {
+        String mutabilityCheck = mutabilityCheck(aClass);
         pw.println();
 
         for (GeneratedClassAttribute anAttribute : aClass.classAttributes) {
@@ -1513,10 +1858,10 @@ public class JavaGenerator extends AbstractGenerator
                         }
                         pw.println("  * @param p" + this.initialCapital(anAttribute.getName()) + " new value of interest");
                         pw.println("  * @return same object to permit progressive setters */");
-                        pw.print("public synchronized ");
+                        pw.print("public " + synchronizedKeyword);
                         pw.print(aClass.getName());
                         pw.println(" set" + this.initialCapital(anAttribute.getName()) + "(" + beanType + " p" + this.initialCapital(anAttribute.getName()) + ")");
-                        pw.println("{\n    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
+                        pw.println("{\n" + mutabilityCheck + "    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
                         pw.println("    return this;");
                         pw.println("}");
                         
@@ -1532,13 +1877,13 @@ public class JavaGenerator extends AbstractGenerator
                         }
                         pw.println("  * @param p" + this.initialCapital(anAttribute.getName()) + " new value of interest");
                         pw.println("  * @return same object to permit progressive setters */");
-                        pw.print("public synchronized ");
+                        pw.print("public " + synchronizedKeyword);
                         pw.print(aClass.getName());
                         pw.print(" set" + this.initialCapital(anAttribute.getName()) + "(" );
                         pw.print("int"); // allow int, will then coerce downcasting to beantype when setting
                         pw.print(" p" + this.initialCapital(anAttribute.getName()) + ")");
                         // TODO overflow checks when downcasting int to given beantype
-                        pw.println("{\n    " + anAttribute.getName() + " = (" + beanType + ") p" + this.initialCapital(anAttribute.getName()) + ";");
+                        pw.println("{\n" + mutabilityCheck + "    " + anAttribute.getName() + " = (" + beanType + ") p" + this.initialCapital(anAttribute.getName()) + ";");
                         pw.println("    return this;");
                         pw.println("}");
                         }
@@ -1573,10 +1918,10 @@ public class JavaGenerator extends AbstractGenerator
                         pw.println(" * @param p" + this.initialCapital(anAttribute.getName()) + " passed parameter");
                         pw.println(" * @return this object");
                         pw.println(" */");
-                        pw.print("public synchronized ");
+                        pw.print("public " + synchronizedKeyword);
                         pw.print(aClass.getName());
                         pw.println(" set" + this.initialCapital(anAttribute.getName()) + "(" + beanType + " p" + this.initialCapital(anAttribute.getName()) + ")");
-                        pw.println("{\n    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
+                        pw.println("{\n" + mutabilityCheck + "    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
                         pw.println("    return this;");
                         pw.println("}");
 
@@ -1590,10 +1935,10 @@ public class JavaGenerator extends AbstractGenerator
                     pw.println("/** Setter for {@link "+aClass.getName()+"#"+anAttribute.getName()+"}");
                     pw.println("  * @param p" + this.initialCapital(anAttribute.getName()) + " new value of interest");
                     pw.println("  * @return same object to permit progressive setters */");
-                    pw.print("public synchronized ");
+                    pw.print("public " + synchronizedKeyword);
                     pw.print(aClass.getName());
                     pw.println(" set" + this.initialCapital(anAttribute.getName()) + "(" + anAttribute.getType() + " p" + this.initialCapital(anAttribute.getName()) + ")");
-                    pw.println("{\n    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
+                    pw.println("{\n" + mutabilityCheck + "    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
                     pw.println("    return this;");
                     pw.println("}");
                     
@@ -1616,14 +1961,14 @@ public class JavaGenerator extends AbstractGenerator
                     pw.println("/** Setter for {@link "+aClass.getName()+"#"+anAttribute.getName()+"}");
                     pw.println("  * @param p" + this.initialCapital(anAttribute.getName()) + " new value of interest");
                     pw.println("  * @return same object to permit progressive setters */");
-                    pw.print("public synchronized ");
+                    pw.print("public " + synchronizedKeyword);
                     pw.print(aClass.getName());
                     pw.println(" set" + this.initialCapital(anAttribute.getName()) + "(" + types.getProperty(anAttribute.getType()) + "[] p" + this.initialCapital(anAttribute.getName()) + ")");
 
                     if (!anAttribute.isFixedLength())
-                        pw.println("{\n    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
+                        pw.println("{\n" + mutabilityCheck + "    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
                     else
-                        pw.println("{\n    " + anAttribute.getName() + " = Arrays.copyOf(p" + this.initialCapital(anAttribute.getName()) + ", " + anAttribute.getName() + ".length);");
+                        pw.println("{\n" + mutabilityCheck + "    " + anAttribute.getName() + " = Arrays.copyOf(p" + this.initialCapital(anAttribute.getName()) + ", " + anAttribute.getName() + ".length);");
 
                     pw.println("    return this;");
                     pw.println("}");
@@ -1638,10 +1983,10 @@ public class JavaGenerator extends AbstractGenerator
                     pw.println("/** Setter for {@link "+aClass.getName()+"#"+anAttribute.getName()+"}");
                     pw.println("  * @param p" + this.initialCapital(anAttribute.getName()) + " new value of interest");
                     pw.println("  * @return same object to permit progressive setters */");
-                    pw.print("public synchronized ");
+                    pw.print("public " + synchronizedKeyword);
                     pw.print(aClass.getName());
                     pw.println(" set" + this.initialCapital(anAttribute.getName()) + "(List<" + anAttribute.getType() + ">" + " p" + this.initialCapital(anAttribute.getName()) + ")");
-                    pw.println("{\n    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
+                    pw.println("{\n" + mutabilityCheck + "    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
                     pw.println("    return this;");
                     pw.println("}");
 
@@ -1657,10 +2002,10 @@ public class JavaGenerator extends AbstractGenerator
                     pw.println("/** Setter for {@link "+aClass.getName()+"#"+anAttribute.getName()+"}");
                     pw.println("  * @param p" + this.initialCapital(anAttribute.getName()) + " new value of interest");
                     pw.println("  * @return same object to permit progressive setters */");
-                    pw.print("public synchronized ");
+                    pw.print("public " + synchronizedKeyword);
                     pw.print(aClass.getName());
                     pw.println(" set" + this.initialCapital(anAttribute.getName()) + "(" + enumtype + " p" + this.initialCapital(anAttribute.getName()) + ")");
-                    pw.println("{\n    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
+                    pw.println("{\n" + mutabilityCheck + "    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
                     pw.println("    return this;");
                     pw.println("}");
 
@@ -1676,10 +2021,10 @@ public class JavaGenerator extends AbstractGenerator
                     pw.println("/** Setter for {@link "+aClass.getName()+"#"+anAttribute.getName()+"}");
                     pw.println("  * @param p" + this.initialCapital(anAttribute.getName()) + " new value of interest");
                     pw.println("  * @return same object to permit progressive setters */");
-                    pw.print("public synchronized ");
+                    pw.print("public " + synchronizedKeyword);
                     pw.print(aClass.getName());
                     pw.println(" set" + this.initialCapital(anAttribute.getName()) + "(" + bitfieldtype + " p" + this.initialCapital(anAttribute.getName()) + ")");
-                    pw.println("{\n    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
+                    pw.println("{\n" + mutabilityCheck + "    " + anAttribute.getName() + " = p" + this.initialCapital(anAttribute.getName()) + ";");
                     pw.println("    return this;");
                     pw.println("}");
                     
@@ -1739,7 +2084,7 @@ public class JavaGenerator extends AbstractGenerator
                         if (bitfield.description != null) {
                             pw.println("/** \n * " + bitfield.description + "\n */");
                         }
-                        pw.println("public synchronized void set" + cappedIvar + "_" + bitfield.name + "(int val)");
+                        pw.println("public " + synchronizedKeyword + "void set" + cappedIvar + "_" + bitfield.name + "(int val)");
                         pw.println("{");
                         pw.println("    " + attributeType + " " + " aVal = 0;");
                         pw.println("    this." + bitfield.parentAttribute.getName() + " &= (" + attributeType + ")(~" + bitfield.mask + "); // clear bits");
@@ -1773,8 +2118,10 @@ public class JavaGenerator extends AbstractGenerator
  
         if (aClass.getName().endsWith("Pdu"))
             pw.println("@Override");
-        pw.println("public synchronized void marshal(DataOutputStream dos) throws Exception");
+        pw.println("public " + synchronizedKeyword + "void marshal(DataOutputStream dos) throws Exception");
         pw.println("{");
+        if (hasAlignmentPadding(aClass))
+            pw.println("    int startSize = dos.size(); // padding is aligned relative to start of this record, as for ByteBuffer");
 
         // If we're a sublcass of another class, we should first call super
         // to make sure the superclass's ivars are marshaled out.
@@ -1880,13 +2227,13 @@ public class JavaGenerator extends AbstractGenerator
                     break;
                 
                 case PADTO16:
-                    pw.println("       "+anAttribute.getName()+" = new byte[Align.to16bits(dos)];");
+                    pw.println("       "+anAttribute.getName()+" = new byte[Align.to16bits(startSize, dos)];");
                     break;
                 case PADTO32:
-                    pw.println("       "+anAttribute.getName()+" = new byte[Align.to32bits(dos)];");
+                    pw.println("       "+anAttribute.getName()+" = new byte[Align.to32bits(startSize, dos)];");
                     break;
                 case PADTO64:
-                    pw.println("       "+anAttribute.getName()+" = new byte[Align.to64bits(dos)];");
+                    pw.println("       "+anAttribute.getName()+" = new byte[Align.to64bits(startSize, dos)];");
                     break;
                     
             }
@@ -1913,8 +2260,9 @@ public class JavaGenerator extends AbstractGenerator
 
         if (aClass.getName().endsWith("Pdu"))
             pw.println("@Override");
-        pw.println("public synchronized int unmarshal(DataInputStream dis) throws Exception");
+        pw.println("public " + synchronizedKeyword + "int unmarshal(DataInputStream dis) throws Exception");
         pw.println("{");
+        pw.print(mutabilityCheck(aClass));
         pw.flush();
         pw.println("    int uPosition = 0;");
         
@@ -1965,6 +2313,14 @@ public class JavaGenerator extends AbstractGenerator
                 	if (anAttribute.getName().startsWith("iFFPduLayer")) {
                     	pw.println("        if (" + anAttribute.getName() + " != null)");
                     	pw.println("            uPosition += " + attributeName + ".unmarshal(dis);");
+                    }
+                	else if (anAttribute.getType().equals("Domain")) { // src-specialcase, immutable canonical instances
+                    	pw.println("        " + attributeName + " = " + attributeName + ".unmarshalDomain(dis);");
+                    	pw.println("        uPosition += " + attributeName + ".getMarshalledSize();");
+                    }
+                	else if (isInterned(anAttribute)) { // shared instance when interning on unmarshal
+                    	pw.println("        " + attributeName + " = " + INTERNED_CLASS_NAME + ".unmarshalInterned(" + attributeName + ", dis);");
+                    	pw.println("        uPosition += " + attributeName + ".getMarshalledSize();");
                     }
                 	else {
                 		pw.println("        uPosition += " + attributeName + ".unmarshal(dis);");
@@ -2011,7 +2367,12 @@ public class JavaGenerator extends AbstractGenerator
                     else {
                         marshalType = marshalTypes.getProperty(anAttribute.getType());
 
-                        if (marshalType == null) { // It's a class
+                        if ((marshalType == null) && isInterned(anAttribute)) { // shared instance when interning on unmarshal
+                            pw.println("            " + anAttribute.getType() + " anX = " + INTERNED_CLASS_NAME + ".unmarshalInterned(null, dis);");
+                            pw.println("            uPosition += anX.getMarshalledSize();");
+                            pw.println("            " + anAttribute.getName() + ".add(anX);");
+                        }
+                        else if (marshalType == null) { // It's a class
                             pw.println("            " + anAttribute.getType() + " anX = new " + anAttribute.getType() + "();");
                             pw.println("            uPosition += anX.unmarshal(dis);");
                             pw.println("            " + anAttribute.getName() + ".add(anX);");
@@ -2061,8 +2422,10 @@ public class JavaGenerator extends AbstractGenerator
         pw.println(" */");
         if (aClass.getName().endsWith("Pdu"))
             pw.println("@Override");
-        pw.println("public synchronized void marshal(java.nio.ByteBuffer byteBuffer) throws Exception");
+        pw.println("public " + synchronizedKeyword + "void marshal(java.nio.ByteBuffer byteBuffer) throws Exception");
         pw.println("{");
+        if (hasAlignmentPadding(aClass))
+            pw.println("   int startPosition = byteBuffer.position(); // padding is aligned relative to start of this record");
 
         // If we're a sublcass of another class, we should first call super
         // to make sure the superclass's ivars are marshaled out.
@@ -2115,7 +2478,6 @@ public class JavaGenerator extends AbstractGenerator
                     
                 case PRIMITIVE_LIST:
                     pw.println();
-                    pw.println("   for (int idx = 0; idx < " + anAttribute.getName() + ".length; idx++)");
 
                     // This is some sleaze. We're an array, but an array of what? We could be either a
                     // primitive or a class. We need to figure out which. This is done via the expedient
@@ -2124,6 +2486,14 @@ public class JavaGenerator extends AbstractGenerator
 
                     marshalType = marshalTypes.getProperty(anAttribute.getType());
 
+                    if(anAttribute.getUnderlyingTypeIsPrimitive() && "byte".equals(marshalType))
+                    {
+                        pw.println("   byteBuffer.put(" + anAttribute.getName() + "); // bulk transfer, efficient for direct buffers");
+                        pw.println();
+                        break;
+                    }
+                    pw.println("   for (int idx = 0; idx < " + anAttribute.getName() + ".length; idx++)");
+
                     if(anAttribute.getUnderlyingTypeIsPrimitive())
                     {
                         capped = this.initialCapital(marshalType);
@@ -2169,13 +2539,13 @@ public class JavaGenerator extends AbstractGenerator
                     break;
                                   
                 case PADTO16:
-                    pw.println("   "+anAttribute.getName()+" = new byte[Align.to16bits(byteBuffer)];");
+                    pw.println("   "+anAttribute.getName()+" = new byte[Align.to16bits(startPosition, byteBuffer)];");
                     break;
                 case PADTO32:
-                    pw.println("   "+anAttribute.getName()+" = new byte[Align.to32bits(byteBuffer)];");
+                    pw.println("   "+anAttribute.getName()+" = new byte[Align.to32bits(startPosition, byteBuffer)];");
                     break;
                 case PADTO64:
-                    pw.println("   "+anAttribute.getName()+" = new byte[Align.to64bits(byteBuffer)];");
+                    pw.println("   "+anAttribute.getName()+" = new byte[Align.to64bits(startPosition, byteBuffer)];");
                     break;
             }   
         } // End of loop through the ivars for a marshal method
@@ -2198,8 +2568,11 @@ public class JavaGenerator extends AbstractGenerator
 
         if (aClass.getName().endsWith("Pdu"))
             pw.println("@Override");
-        pw.println("public synchronized int unmarshal(java.nio.ByteBuffer byteBuffer) throws Exception"); // throws EnumNotFoundException");
+        pw.println("public " + synchronizedKeyword + "int unmarshal(java.nio.ByteBuffer byteBuffer) throws Exception"); // throws EnumNotFoundException");
         pw.println("{");
+        pw.print(mutabilityCheck(aClass));
+        if (hasAlignmentPadding(aClass))
+            pw.println("    int startPosition = byteBuffer.position(); // padding is aligned relative to start of this record");
 
         if(!(aClass.getParentClass().equalsIgnoreCase("root")))
             pw.println("    super.unmarshal(byteBuffer);\n");
@@ -2241,6 +2614,12 @@ public class JavaGenerator extends AbstractGenerator
                 	if (anAttribute.getName().startsWith("iFFPduLayer")) {
                     	pw.println("        if (" + anAttribute.getName() + " != null)");
                     	pw.println("            " + anAttribute.getName() + ".unmarshal(byteBuffer);" );
+                    }
+                	else if (anAttribute.getType().equals("Domain")) { // src-specialcase, immutable canonical instances
+                    	pw.println("        " + anAttribute.getName() + " = " + anAttribute.getName() + ".unmarshalDomain(byteBuffer);");
+                    }
+                	else if (isInterned(anAttribute)) { // shared instance when interning on unmarshal
+                    	pw.println("        " + anAttribute.getName() + " = " + INTERNED_CLASS_NAME + ".unmarshalInterned(" + anAttribute.getName() + ", byteBuffer);");
                     }
                 	else {
                 		pw.println("        " + anAttribute.getName() + ".unmarshal(byteBuffer);" );
@@ -2252,10 +2631,15 @@ public class JavaGenerator extends AbstractGenerator
                     break;
 
                 case PRIMITIVE_LIST:
-                    pw.println("        for (int idx = 0; idx < " + anAttribute.getName() + ".length; idx++)");
-
                     marshalType = marshalTypes.getProperty(anAttribute.getType());
 
+                    if ("byte".equals(marshalType))
+                    {
+                        pw.println("        byteBuffer.get(" + anAttribute.getName() + "); // bulk transfer, efficient for direct buffers");
+                        break;
+                    }
+                    pw.println("        for (int idx = 0; idx < " + anAttribute.getName() + ".length; idx++)");
+
                     if(marshalType == null) // It's a class  // should be unnecessary w/ refactor
                         pw.println("            " + anAttribute.getName() + "[idx].unmarshal(byteBuffer);" );
                     else { // It's a primitive
@@ -2281,7 +2665,10 @@ public class JavaGenerator extends AbstractGenerator
                     else {
                         marshalType = marshalTypes.getProperty(anAttribute.getType());
 
-                        if(marshalType == null) { // It's a class
+                        if ((marshalType == null) && isInterned(anAttribute)) { // shared instance when interning on unmarshal
+                            pw.println("        " + anAttribute.getName() + ".add(" + INTERNED_CLASS_NAME + ".unmarshalInterned(null, byteBuffer));");
+                        }
+                        else if(marshalType == null) { // It's a class
                             pw.println("        " + anAttribute.getType() + " anX = new " + anAttribute.getType() + "();");                           
                             pw.println("        anX.unmarshal(byteBuffer);");
                             pw.println("        " + anAttribute.getName() + ".add(anX);");
@@ -2299,13 +2686,13 @@ public class JavaGenerator extends AbstractGenerator
                     
                                     
                 case PADTO16:
-                    pw.println("        "+anAttribute.getName() + " = new byte[Align.from16bits(byteBuffer)];");
+                    pw.println("        "+anAttribute.getName() + " = new byte[Align.from16bits(startPosition, byteBuffer)];");
                     break;
                 case PADTO32:
-                    pw.println("        "+anAttribute.getName() + " = new byte[Align.from32bits(byteBuffer)];");
+                    pw.println("        "+anAttribute.getName() + " = new byte[Align.from32bits(startPosition, byteBuffer)];");
                     break;
                 case PADTO64:
-                    pw.println("        "+anAttribute.getName() + " = new byte[Align.from64bits(byteBuffer)];");
+                    pw.println("        "+anAttribute.getName() + " = new byte[Align.from64bits(startPosition, byteBuffer)];");
                     break;
             }
         } // End of loop through ivars for writing the unmarshal method
@@ -2340,7 +2727,7 @@ public class JavaGenerator extends AbstractGenerator
         pw.println(" * @return a ByteBuffer with the marshalled {@link Pdu}");
         pw.println(" * @throws Exception ByteBuffer-generated exception");
         pw.println(" */");
-        pw.println("public synchronized java.nio.ByteBuffer marshal() throws Exception");
+        pw.println("public " + synchronizedKeyword + "java.nio.ByteBuffer marshal() throws Exception");
         pw.println("{");
         pw.println("    java.nio.ByteBuffer byteBuffer = java.nio.ByteBuffer.allocate(1500);");
         pw.println("    marshal(byteBuffer);");
@@ -2357,7 +2744,7 @@ public class JavaGenerator extends AbstractGenerator
         pw.println();
         if (aclass.getName().endsWith("Pdu"))
             pw.println("@Override");
-        pw.println("public synchronized void marshalXml(PrintWriter textWriter)");
+        pw.println("public " + synchronizedKeyword + "void marshalXml(PrintWriter textWriter)");
         pw.println("{");
          
         // If we're a sublcass of another class, we should first call super
@@ -2515,7 +2902,7 @@ public class JavaGenerator extends AbstractGenerator
             pw.println("  * Override of default equals method.  Calls equalsImpl() for content comparison.");
             pw.println("  */");
             pw.println("@Override");
-            pw.println(" public synchronized boolean equals(Object obj)");
+            pw.println(" public " + synchronizedKeyword + "boolean equals(Object obj)");
             pw.println(" {");
             pw.println("    if(this == obj)");
             pw.println("      return true;");
@@ -2557,7 +2944,7 @@ public class JavaGenerator extends AbstractGenerator
             else {
                 pw.println("@Override");
             }
-            pw.println(" public synchronized boolean equalsImpl(Object obj)");
+            pw.println(" public " + synchronizedKeyword + "boolean equalsImpl(Object obj)");
             pw.println(" {");
             /*
             redundant with equals method above
@@ -2625,7 +3012,7 @@ public class JavaGenerator extends AbstractGenerator
     {
         pw.println();
         pw.println(" @Override");
-        pw.println(" public synchronized String toString()");
+        pw.println(" public " + synchronizedKeyword + "String toString()");
         pw.println(" {");
         pw.println("    StringBuilder sb  = new StringBuilder();");
         pw.println("    StringBuilder sb2 = new StringBuilder();");
@@ -2806,4 +3193,646 @@ public class JavaGenerator extends AbstractGenerator
         pw.println(" }");    
     }
 
+    /**
+     * Marshalled size or wire offset, made of a constant byte count plus MARSHALLED_SIZE constants of
+     * enumeration classes, since enumeration sizes are defined by SISO-REF-010 rather than the PDU XML file.
+     * The resulting Java expression is a compile-time constant.
+     */
+    static class WireSize
+    {
+        int          bytes = 0;
+        List<String> terms = new ArrayList<>();
+
+        WireSize()
+        {
+        }
+
+        WireSize(int bytes)
+        {
+            this.bytes = bytes;
+        }
+
+        WireSize add(WireSize other)
+        {
+            bytes += other.bytes;
+            terms.addAll(other.terms);
+            return this;
+        }
+
+        WireSize copy()
+        {
+            return new WireSize().add(this);
+        }
+
+        /** @return Java expression for this size */
+        @Override
+        public String toString()
+        {
+            StringBuilder sb = new StringBuilder();
+            for (String term : terms)
+                sb.append(term).append(" + ");
+            sb.append(bytes);
+            return sb.toString();
+        }
+    }
+
+    /** Attribute found at a fixed wire offset, see getFixedOffsetAttributes() */
+    static class FixedOffsetAttribute
+    {
+        GeneratedClass          owner;
+        GeneratedClassAttribute attribute;
+        WireSize                offset;
+        WireSize                size; // null if variable
+
+        FixedOffsetAttribute(GeneratedClass owner, GeneratedClassAttribute attribute, WireSize offset, WireSize size)
+        {
+            this.owner     = owner;
+            this.attribute = attribute;
+            this.offset    = offset;
+            this.size      = size;
+        }
+    }
+
+    /**
+     * Classes from root superclass down to aClass, which is the order their attributes are marshalled
+     * @param aClass class of interest
+     * @return class hierarchy
+     */
+    List<GeneratedClass> getClassHierarchy(GeneratedClass aClass)
+    {
+        LinkedList<GeneratedClass> hierarchy = new LinkedList<>();
+        GeneratedClass currentClass = aClass;
+        while (currentClass != null)
+        {
+            hierarchy.addFirst(currentClass);
+            if (currentClass.getParentClass().equalsIgnoreCase("root"))
+                break;
+            currentClass = classDescriptions.get(currentClass.getParentClass());
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Marshalled size of an attribute, if that size cannot change at run time
+     * @param anAttribute attribute of interest
+     * @return fixed size, or null if size is variable
+     */
+    WireSize getFixedWireSize(GeneratedClassAttribute anAttribute)
+    {
+        if (anAttribute.shouldSerialize == false)
+            return new WireSize(0);
+
+        switch (anAttribute.getAttributeKind())
+        {
+            case STATIC_IVAR:
+                return new WireSize(0);
+
+            case PRIMITIVE:
+                Integer primitiveSize = primitiveSizesMap.get(anAttribute.getType());
+                return (primitiveSize == null) ? null : new WireSize(primitiveSize);
+
+            case SISO_ENUM:
+                WireSize enumSize = new WireSize();
+                enumSize.terms.add(anAttribute.getType() + ".MARSHALLED_SIZE");
+                return enumSize;
+
+            case SISO_BITFIELD:
+                return new WireSize(Integer.parseInt(anAttribute.getEnumMarshalSize()) / 8);
+
+            case CLASSREF:
+                if (anAttribute.getName().startsWith("iFFPduLayer")) // optional, may be null
+                    return null;
+                if (anAttribute.getType().equals("PduStatus")) // src-supporting
+                    return new WireSize(1);
+                if (anAttribute.getType().equals("Domain"))    // src-specialcase, all domain enumerations have the same size
+                {
+                    WireSize domainSize = new WireSize();
+                    domainSize.terms.add("Domain.MARSHALLED_SIZE");
+                    return domainSize;
+                }
+                GeneratedClass referencedClass = classDescriptions.get(anAttribute.getType());
+                if ((referencedClass == null) || hasSubclasses(referencedClass)) // may refer to a subclass of different size
+                    return null;
+                if (hasMarshalledSizeConstant(referencedClass))
+                {
+                    WireSize referencedSize = new WireSize();
+                    referencedSize.terms.add(referencedClass.getName() + ".MARSHALLED_SIZE");
+                    return referencedSize;
+                }
+                return getFixedWireSize(referencedClass);
+
+            case PRIMITIVE_LIST:
+                // setter of a list without fixedlength="true" may replace the array with another length
+                if (!anAttribute.isFixedLength() || (anAttribute.getCountFieldName() != null) || !anAttribute.getUnderlyingTypeIsPrimitive())
+                    return null;
+                Integer elementSize = primitiveSizesMap.get(anAttribute.getType());
+                return (elementSize == null) ? null : new WireSize(anAttribute.getListLength() * elementSize);
+
+            default: // OBJECT_LIST depends on contents, PADTO16/32/64 depend on position
+                return null;
+        }
+    }
+
+    /**
+     * Marshalled size of a class including its superclasses, if that size cannot change at run time
+     * @param aClass class of interest
+     * @return fixed size, or null if size is variable
+     */
+    WireSize getFixedWireSize(GeneratedClass aClass)
+    {
+        if (aClass.getAliasFor() != null)
+        {
+            GeneratedClass aliasedClass = classDescriptions.get(aClass.getAliasFor());
+            return (aliasedClass == null) ? null : getFixedWireSize(aliasedClass);
+        }
+        WireSize total = new WireSize();
+        for (GeneratedClass nextClass : getClassHierarchy(aClass))
+        {
+            for (GeneratedClassAttribute anAttribute : nextClass.getClassAttributes())
+            {
+                WireSize size = getFixedWireSize(anAttribute);
+                if (size == null)
+                    return null;
+                total.add(size);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Whether any class other than an alias inherits from this class
+     * @param aClass class of interest
+     * @return whether subclassed
+     */
+    boolean hasSubclasses(GeneratedClass aClass)
+    {
+        for (GeneratedClass nextClass : classDescriptions.values())
+        {
+            if (nextClass.getParentClass().equals(aClass.getName()) && (nextClass.getAliasFor() == null))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether this class declares any PADTO16/32/64 alignment attribute, which needs the starting buffer position
+     * of the record when marshalling or unmarshalling with a ByteBuffer
+     * @param aClass class of interest
+     * @return whether alignment padding is present
+     */
+    boolean hasAlignmentPadding(GeneratedClass aClass)
+    {
+        for (GeneratedClassAttribute anAttribute : aClass.getClassAttributes())
+        {
+            switch (anAttribute.getAttributeKind())
+            {
+                case PADTO16:
+                case PADTO32:
+                case PADTO64:
+                    if (anAttribute.shouldSerialize)
+                        return true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a static MARSHALLED_SIZE constant is generated for this class, which requires a fixed size that
+     * is not hidden or changed by any subclass
+     * @param aClass class of interest
+     * @return whether constant is provided
+     */
+    boolean hasMarshalledSizeConstant(GeneratedClass aClass)
+    {
+        return !aClass.isAbstract() && (aClass.getAliasFor() == null) && !hasSubclasses(aClass) && (getFixedWireSize(aClass) != null);
+    }
+
+    /**
+     * Serialized attributes of a class including its superclasses, up to and including the first
+     * attribute with variable size, since the wire offsets of all of these are known in advance.
+     * @param aClass class of interest
+     * @return attributes with their offsets and sizes
+     */
+    List<FixedOffsetAttribute> getFixedOffsetAttributes(GeneratedClass aClass)
+    {
+        List<FixedOffsetAttribute> result = new ArrayList<>();
+        WireSize offset = new WireSize();
+        for (GeneratedClass nextClass : getClassHierarchy(aClass))
+        {
+            for (GeneratedClassAttribute anAttribute : nextClass.getClassAttributes())
+            {
+                if ((anAttribute.shouldSerialize == false) || (anAttribute.getAttributeKind() == ClassAttributeType.STATIC_IVAR))
+                    continue;
+                if (anAttribute.getName().startsWith("iFFPduLayer")) // optional, may not be present
+                    return result;
+
+                WireSize size = getFixedWireSize(anAttribute);
+                result.add(new FixedOffsetAttribute(nextClass, anAttribute, offset.copy(), size));
+                if (size == null)
+                    return result;
+                offset.add(size);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether this class is a concrete Pdu, i.e. neither abstract nor an alias
+     * @param aClass class of interest
+     * @return whether concrete Pdu
+     */
+    boolean isConcretePdu(GeneratedClass aClass)
+    {
+        if (aClass.isAbstract() || (aClass.getAliasFor() != null))
+            return false;
+        for (GeneratedClass nextClass : getClassHierarchy(aClass))
+        {
+            if (nextClass.getName().equals("Pdu"))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Name of static constant corresponding to an attribute, for example entityID becomes ENTITY_ID
+     * @param attributeName attribute of interest
+     * @return constant name
+     */
+    String constantName(String attributeName)
+    {
+        return attributeName.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+    }
+
+    /**
+     * Write flyweight view classes for each concrete Pdu, plus each record referenced by a Pdu view
+     * @param emitter renders and writes view classes on worker threads
+     * @return number of view classes written
+     */
+    private int writeViewClasses(SourceFileEmitter emitter)
+    {
+        Set<String> viewClassNames = new TreeSet<>();
+        for (GeneratedClass aClass : classDescriptions.values())
+        {
+            if (isConcretePdu(aClass))
+                collectViewClassNames(aClass, viewClassNames);
+        }
+        String aClassPackageName = languageProperties.getProperty("package");
+        String directoryName = getGeneratedSourceDirectoryName() + "/";
+        if (aClassPackageName != null)
+            directoryName += aClassPackageName.replace(".", "/") + "/";
+
+        int viewCount = 0;
+        for (String aClassName : viewClassNames)
+        {
+            File outputFile = new File(directoryName + aClassName + "View.java");
+            emitter.render(outputFile, () -> {
+                StringWriter source = new StringWriter();
+                try (PrintWriter pw = new PrintWriter(source)) {
+                    writeViewClass(pw, classDescriptions.get(aClassName));
+                }
+                return source.toString();
+            });
+            viewCount++;
+        }
+        return viewCount;
+    }
+
+    private void collectViewClassNames(GeneratedClass aClass, Set<String> viewClassNames)
+    {
+        if (!viewClassNames.add(aClass.getName()))
+            return;
+        for (FixedOffsetAttribute fixedOffsetAttribute : getFixedOffsetAttributes(aClass))
+        {
+            if (fixedOffsetAttribute.attribute.getAttributeKind() == ClassAttributeType.CLASSREF)
+            {
+                GeneratedClass referencedClass = classDescriptions.get(fixedOffsetAttribute.attribute.getType());
+                if ((referencedClass != null) && (referencedClass.getAliasFor() == null))
+                    collectViewClassNames(referencedClass, viewClassNames);
+            }
+        }
+    }
+
+    /**
+     * Write flyweight view class, which reads attributes at fixed wire offsets directly from a ByteBuffer
+     * @param pw PrintWriter
+     * @param aClass class of interest
+     */
+    private void writeViewClass(PrintWriter pw, GeneratedClass aClass)
+    {
+        String viewName = aClass.getName() + "View";
+        List<FixedOffsetAttribute> fixedOffsetAttributes = getFixedOffsetAttributes(aClass);
+        WireSize fixedPrefixSize = new WireSize();
+        for (FixedOffsetAttribute fixedOffsetAttribute : fixedOffsetAttributes)
+        {
+            if (fixedOffsetAttribute.size != null)
+                fixedPrefixSize.add(fixedOffsetAttribute.size);
+        }
+        // a subclass attribute hides a superclass attribute of the same name (e.g. padding), as in the Pdu classes
+        Set<String> hiddenNames = new HashSet<>();
+        for (int index = fixedOffsetAttributes.size() - 1; index >= 0; index--)
+        {
+            if (!hiddenNames.add(fixedOffsetAttributes.get(index).attribute.getName()))
+                fixedOffsetAttributes.remove(index);
+        }
+
+        writeLicense(pw, aClass);
+        String packageName = languageProperties.getProperty("package");
+        if (packageName != null)
+            pw.println("package " + packageName + ";");
+        pw.println();
+        StringTokenizer tokenizer = new StringTokenizer(languageProperties.getProperty("imports"), ", ");
+        while (tokenizer.hasMoreTokens())
+            pw.println("import " + tokenizer.nextToken() + ";");
+        pw.println("import java.nio.ByteBuffer;");
+        pw.println();
+
+        pw.println("/**");
+        pw.println(" * Flyweight view of marshalled " + aClass.getName() + " data, reading each field directly from its wire offset");
+        pw.println(" * without unmarshalling or allocation. Only fields preceding any variable-length field are provided,");
+        pw.println(" * unmarshal " + aClass.getName() + " for remaining fields.");
+        pw.println(" * @see " + aClass.getName());
+        pw.println(" * @see ByteBufferView");
+        pw.println(" * " + specSourceTemplate);
+        pw.println(" */");
+        pw.println("public final class " + viewName + " extends ByteBufferView");
+        pw.println("{");
+        pw.println("    /** Number of leading bytes at fixed wire offsets, provided by this view */");
+        pw.println("    public static final int FIXED_PREFIX_SIZE = " + fixedPrefixSize + ";");
+        pw.println();
+
+        for (FixedOffsetAttribute fixedOffsetAttribute : fixedOffsetAttributes)
+        {
+            GeneratedClassAttribute anAttribute = fixedOffsetAttribute.attribute;
+            pw.println("    /** Wire offset of {@link " + fixedOffsetAttribute.owner.getName() + "#" + anAttribute.getName() + "} */");
+            pw.println("    public static final int " + constantName(anAttribute.getName()) + "_OFFSET = " + fixedOffsetAttribute.offset + ";");
+            if ((anAttribute.getAttributeKind() == ClassAttributeType.PRIMITIVE_LIST) && (fixedOffsetAttribute.size != null))
+            {
+                pw.println("    /** Number of elements in {@link " + fixedOffsetAttribute.owner.getName() + "#" + anAttribute.getName() + "} */");
+                pw.println("    public static final int " + constantName(anAttribute.getName()) + "_LENGTH = " + anAttribute.getListLength() + ";");
+            }
+        }
+        pw.println();
+
+        for (FixedOffsetAttribute fixedOffsetAttribute : fixedOffsetAttributes)
+        {
+            GeneratedClassAttribute anAttribute = fixedOffsetAttribute.attribute;
+            if (hasNestedView(anAttribute))
+                pw.println("    private final " + anAttribute.getType() + "View " + anAttribute.getName() + "View = new " + anAttribute.getType() + "View();");
+        }
+        pw.println();
+
+        pw.println("    /** default constructor, use wrap() before reading */");
+        pw.println("    public " + viewName + "()");
+        pw.println("    {");
+        pw.println("    }");
+        pw.println();
+        pw.println("    /**");
+        pw.println("     * Point this view at marshalled " + aClass.getName() + " data");
+        pw.println("     * @param byteBuffer buffer containing marshalled data");
+        pw.println("     * @param offset index of first byte of " + aClass.getName() + " within byteBuffer");
+        pw.println("     * @return same object to permit progressive setters");
+        pw.println("     */");
+        pw.println("    @Override");
+        pw.println("    public " + viewName + " wrap(ByteBuffer byteBuffer, int offset)");
+        pw.println("    {");
+        pw.println("        super.wrap(byteBuffer, offset);");
+        pw.println("        return this;");
+        pw.println("    }");
+
+        for (FixedOffsetAttribute fixedOffsetAttribute : fixedOffsetAttributes)
+        {
+            GeneratedClassAttribute anAttribute = fixedOffsetAttribute.attribute;
+            String link         = "{@link " + fixedOffsetAttribute.owner.getName() + "#" + anAttribute.getName() + "}";
+            String offsetName   = constantName(anAttribute.getName()) + "_OFFSET";
+            String getterName   = "get" + initialCapital(anAttribute.getName());
+
+            switch (anAttribute.getAttributeKind())
+            {
+                case PRIMITIVE:
+                    String beanType = types.getProperty(anAttribute.getType());
+                    pw.println();
+                    pw.println("    /** Getter for " + link);
+                    pw.println("      * @return value of interest */");
+                    pw.println("    public " + beanType + " " + getterName + "()");
+                    pw.println("    {");
+                    pw.println("        return byteBuffer." + byteBufferGetter(beanType) + "(offset + " + offsetName + ");");
+                    pw.println("    }");
+                    break;
+
+                case SISO_ENUM:
+                    pw.println();
+                    pw.println("    /** Getter for " + link);
+                    pw.println("      * @return value of interest, or null if not a valid enumeration value */");
+                    pw.println("    public " + anAttribute.getType() + " " + getterName + "()");
+                    pw.println("    {");
+                    pw.println("        return " + anAttribute.getType() + ".getEnumForValue(readUnsigned(" + offsetName + ", " + anAttribute.getType() + ".MARSHALLED_SIZE));");
+                    pw.println("    }");
+                    break;
+
+                case SISO_BITFIELD:
+                    pw.println();
+                    pw.println("    /** Getter for bit pattern of " + link);
+                    pw.println("      * @see " + anAttribute.getType());
+                    pw.println("      * @return value of interest */");
+                    pw.println("    public int " + getterName + "()");
+                    pw.println("    {");
+                    pw.println("        return readUnsigned(" + offsetName + ", " + fixedOffsetAttribute.size + ");");
+                    pw.println("    }");
+                    break;
+
+                case CLASSREF:
+                    if (anAttribute.getType().equals("PduStatus") || anAttribute.getType().equals("Domain"))
+                    {
+                        pw.println();
+                        pw.println("    /** Getter for value of " + link);
+                        pw.println("      * @see " + anAttribute.getType());
+                        pw.println("      * @return value of interest */");
+                        pw.println("    public int " + getterName + "()");
+                        pw.println("    {");
+                        pw.println("        return readUnsigned(" + offsetName + ", " + fixedOffsetAttribute.size + ");");
+                        pw.println("    }");
+                        break;
+                    }
+                    if (!hasNestedView(anAttribute))
+                        break;
+                    pw.println();
+                    pw.println("    /** Getter for view of " + link + ", which is reused by each call");
+                    pw.println("      * @return value of interest */");
+                    pw.println("    public " + anAttribute.getType() + "View " + getterName + "()");
+                    pw.println("    {");
+                    pw.println("        return " + anAttribute.getName() + "View.wrap(byteBuffer, offset + " + offsetName + ");");
+                    pw.println("    }");
+                    break;
+
+                case PRIMITIVE_LIST:
+                    if (fixedOffsetAttribute.size == null)
+                        break;
+                    String elementType = types.getProperty(anAttribute.getType());
+                    String lengthName  = constantName(anAttribute.getName()) + "_LENGTH";
+                    pw.println();
+                    pw.println("    /** Getter for one element of " + link);
+                    pw.println("      * @param index element index, less than " + lengthName);
+                    pw.println("      * @return value of interest */");
+                    pw.println("    public " + elementType + " " + getterName + "(int index)");
+                    pw.println("    {");
+                    pw.println("        java.util.Objects.checkIndex(index, " + lengthName + ");");
+                    pw.println("        return byteBuffer." + byteBufferGetter(elementType) + "(offset + " + offsetName + " + index * " + primitiveSizes.getProperty(anAttribute.getType()) + ");");
+                    pw.println("    }");
+                    break;
+
+                default:
+                    break;
+            }
+        }
+        pw.println("}");
+    }
+
+    /** Whether a view attribute refers to a record that has its own view class */
+    private boolean hasNestedView(GeneratedClassAttribute anAttribute)
+    {
+        if (anAttribute.getAttributeKind() != ClassAttributeType.CLASSREF)
+            return false;
+        GeneratedClass referencedClass = classDescriptions.get(anAttribute.getType());
+        return (referencedClass != null) && (referencedClass.getAliasFor() == null);
+    }
+
+    /** Estimated object header size in bytes, 64-bit JVM with compressed class pointers */
+    static final int OBJECT_HEADER_SIZE = 12;
+    /** Estimated array header size in bytes */
+    static final int ARRAY_HEADER_SIZE  = 16;
+    /** Estimated reference size in bytes, 64-bit JVM with compressed references */
+    static final int REFERENCE_SIZE     = 4;
+    /** Estimated size of ArrayList created with default constructor, which shares an empty array */
+    static final int EMPTY_ARRAYLIST_SIZE = 24;
+    /** Estimated size of DisBitSet subclass holding one long value, two int sizes and a long mask */
+    static final int DISBITSET_SIZE     = 40;
+    /** Estimated size of PduStatus and Domain, which are not generated */
+    static final int SUPPORTING_CLASS_SIZE = 16;
+    /** Estimated size of per-instance ByteArrayOutputStream with default 32-byte buffer, DataOutputStream
+     *  with its lock and 8-byte write buffer, plus two references, formerly held by each concrete Pdu */
+    static final int FORMER_STREAM_FIELDS_SIZE = 24 + 48 + 32 + 16 + 24 + 2 * REFERENCE_SIZE;
+
+    /** Align object size to 8-byte boundary */
+    private static int alignObjectSize(int size)
+    {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * Estimated shallow heap size of a new instance, including superclass fields
+     * @param aClass class of interest
+     * @return size in bytes
+     */
+    int estimateShallowSize(GeneratedClass aClass)
+    {
+        int size = OBJECT_HEADER_SIZE;
+        for (GeneratedClass nextClass : getClassHierarchy(aClass))
+        {
+            for (GeneratedClassAttribute anAttribute : nextClass.getClassAttributes())
+            {
+                if ((anAttribute.shouldSerialize == false) || (anAttribute.getAttributeKind() == ClassAttributeType.STATIC_IVAR))
+                    continue;
+                if (anAttribute.getAttributeKind() == ClassAttributeType.PRIMITIVE)
+                    size += primitiveSizesMap.getOrDefault(anAttribute.getType(), REFERENCE_SIZE);
+                else
+                    size += REFERENCE_SIZE;
+            }
+        }
+        return alignObjectSize(size);
+    }
+
+    /**
+     * Estimated retained heap size of a new instance, including nested records, lists and arrays
+     * allocated by field initializers. Enumeration values are shared and not counted.
+     * @param aClass class of interest
+     * @return size in bytes
+     */
+    int estimateRetainedSize(GeneratedClass aClass)
+    {
+        int size = estimateShallowSize(aClass);
+        for (GeneratedClass nextClass : getClassHierarchy(aClass))
+        {
+            for (GeneratedClassAttribute anAttribute : nextClass.getClassAttributes())
+            {
+                if (anAttribute.shouldSerialize == false)
+                    continue;
+                switch (anAttribute.getAttributeKind())
+                {
+                    case CLASSREF:
+                        if (anAttribute.getName().startsWith("iFFPduLayer")) // initially null
+                            break;
+                        String initialClass = (anAttribute.getInitialClass() != null) ? anAttribute.getInitialClass() : anAttribute.getType();
+                        GeneratedClass referencedClass = classDescriptions.get(initialClass);
+                        size += (referencedClass == null) ? SUPPORTING_CLASS_SIZE : estimateRetainedSize(referencedClass);
+                        break;
+                    case SISO_BITFIELD:
+                        size += DISBITSET_SIZE;
+                        break;
+                    case PRIMITIVE_LIST:
+                        size += alignObjectSize(ARRAY_HEADER_SIZE + anAttribute.getListLength() * primitiveSizesMap.getOrDefault(anAttribute.getType(), 1));
+                        break;
+                    case OBJECT_LIST:
+                        size += EMPTY_ARRAYLIST_SIZE;
+                        break;
+                    case PADTO16:
+                    case PADTO32:
+                    case PADTO64:
+                        size += ARRAY_HEADER_SIZE;
+                        break;
+                    default: // PRIMITIVE, SISO_ENUM, STATIC_IVAR
+                        break;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Write table of statically estimated heap footprint of each concrete Pdu class, as created by its default constructor,
+     * alongside the same estimate plus the assumed constant size of the marshalling streams each Pdu formerly carried.
+     * Sizes are computed from the generated field layout with assumed JVM object sizes, not measured on a running JVM.
+     * Enabled by system property xmlpg.footprintReport giving output file name.
+     * @param reportFile output file
+     */
+    private void writeFootprintReport(File reportFile)
+    {
+        try (PrintWriter pw = new PrintWriter(reportFile, StandardCharsets.UTF_8.name()))
+        {
+            pw.println("# Static estimate of heap footprint of new concrete Pdu instances in bytes, computed from generated field layouts");
+            pw.println("# assuming a 64-bit JVM with compressed references; not measured, use a tool such as JOL to measure actual sizes.");
+            pw.println("# est-former adds the assumed size (" + FORMER_STREAM_FIELDS_SIZE + " bytes) of the former per-instance ByteArrayOutputStream/DataOutputStream");
+            pw.println("# to est-retained, so the difference between these columns is that assumption rather than a measured saving.");
+            pw.println(String.format("%-48s %11s %12s %10s", "class", "est-shallow", "est-retained", "est-former"));
+            int count = 0, totalRetained = 0;
+            for (GeneratedClass aClass : new TreeMap<>(classDescriptions).values())
+            {
+                if (!isConcretePdu(aClass))
+                    continue;
+                int retained = estimateRetainedSize(aClass);
+                pw.println(String.format("%-48s %11d %12d %10d", aClass.getName(), estimateShallowSize(aClass),
+                                                                retained, retained + FORMER_STREAM_FIELDS_SIZE));
+                count++;
+                totalRetained += retained;
+            }
+            if (count > 0)
+                pw.println(String.format("%-48s %11s %12d %10d", "average", "", totalRetained / count, totalRetained / count + FORMER_STREAM_FIELDS_SIZE));
+            System.out.println("Created footprint report " + reportFile.getAbsolutePath());
+        }
+        catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.err.println("error creating footprint report " + e);
+        }
+    }
+
+    /** ByteBuffer absolute getter method name for a Java primitive type, for example getShort */
+    private String byteBufferGetter(String javaType)
+    {
+        if (javaType.equals("byte"))
+            return "get";
+        return "get" + initialCapital(javaType);
+    }
+
 }
@@ -6,185 +6,197 @@ package edu.nps.moves.dis7.pdus;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.util.Objects;
-import java.lang.reflect.InvocationTargetException;
 
 import edu.nps.moves.dis7.enumerations.*;
 
 /**
  * Which domain does this PDU belong to:
- * An example approximating a Java enum "superclass". Can't use an interface, because we need the two
- * static methods, which can't go into an interface
+ * an immutable "superclass" of the PlatformDomain, MunitionDomain and SupplyDomain enumerations,
+ * which share the same 8-bit wire format. Subclasses call their enumeration directly, without reflection,
+ * and one canonical Domain instance exists for each enumeration value, so inst() does not allocate.
+ * Since instances are shared, unmarshalDomain() returns the Domain that was read rather than modifying this one.
+ * A value with no corresponding enumeration is read as a Domain.Unknown, which keeps the raw value for marshalling.
  * @see AircraftPresentDomain
  * @see AnimalLifeformGroupSizeRangeEnumerationforallDomains
  * @see MunitionDomain
  * @see PlatformDomain
  * @see SupplyDomain
  */
-public class Domain
+public abstract sealed class Domain permits Domain.Platform, Domain.Munition, Domain.Supply, Domain.Unknown
 {
+  /** Serialized (marshalled) size of every Domain in bytes, all domain enumerations have the same size */
+  public static final int MARSHALLED_SIZE = PlatformDomain.MARSHALLED_SIZE;
+
   private Domain()
   {
   }
 
-  private Object enumInst;
-
-  private Method mSize;
-  private Method marshalBuff;
-  private Method marshalDos;
-  private Method unmarshalBuff;
-  private Method unmarshalDis;
-  private Method getValue;
-  private Method getDescription;
-
   //@formatter:off
 
     /**
      * Domain of interest
      * @param d a PlatformDomain
-     * @return an Domain instance based on a PlatformDomain enum
+     * @return canonical Domain instance based on a PlatformDomain enum
      */
   public static Domain inst(PlatformDomain d)
   {
-    return _inst(d);
+    return Platform.INSTANCES[d.ordinal()];
   }  //  uid 8
 
     /**
      * MunitionDomain instance of interest
      * @param d a MunitionDomain
-     * @return an Domain instance based on a MunitionDomain enum
+     * @return canonical Domain instance based on a MunitionDomain enum
      */
     public static Domain inst(MunitionDomain d)
   {
-    return _inst(d);
+    return Munition.INSTANCES[d.ordinal()];
   }  //  uid 14
 
     /**
      * SupplyDomain instance of interest
      * @param d a SupplyDomain
-     * @return an Domain instance based on a SupplyDomain enum
+     * @return canonical Domain instance based on a SupplyDomain enum
      */
     public static Domain inst(SupplyDomain d)
   {
-    return _inst(d);
+    return Supply.INSTANCES[d.ordinal()];
   }  //  uid 600
 
   //@formatter:on
-  private static Domain _inst(Object o)
-  {
-    Domain d = new Domain();
-    d.enumInst = o;
-    d.init();
-    return d;
-  }
 
-  private synchronized void init()
-  {
-    Class<?> c = enumInst.getClass();
-    try {
-      //@formatter:off
-      marshalBuff = c.getDeclaredMethod("marshal", new Class[]{ByteBuffer.class});
-      marshalDos = c.getDeclaredMethod("marshal", new Class[]{DataOutputStream.class});
-      unmarshalBuff = c.getDeclaredMethod("unmarshalEnum", new Class[]{ByteBuffer.class});
-      unmarshalDis = c.getDeclaredMethod("unmarshalEnum", new Class[]{DataInputStream.class});
-      mSize = c.getDeclaredMethod("getMarshalledSize", (Class[]) null);
-      getValue = c.getDeclaredMethod("getValue", (Class[]) null);
-      getDescription = c.getDeclaredMethod("getDescription", (Class[]) null);
-      //@formatter:on
-    }
-    catch (NoSuchMethodException ex)
-    {
-        System.out.flush(); // ensure contiguous console outputs
-        System.err.println("Can't find methods in " + c.getSimpleName());
-        System.err.flush(); // ensure contiguous console outputs
-    }
-  }
+    /**
+     * Get enumeration value held by this Domain
+     * @return PlatformDomain, MunitionDomain or SupplyDomain, or null for a Domain.Unknown value
+     */
+    public abstract Enum<?> getEnumeration();
 
     /**
      * Get value for this Domain
      * @return value
      */
-    public int getValue()
-  {
-    return (Integer) invoke(getValue, null);
-  }
+    public abstract int getValue();
 
     /**
      * Get description for this Domain
      * @return description
      */
-    public String getDescription()
-  {
-    return (String) invoke(getDescription, null);
-  }
+    public abstract String getDescription();
+
+    /**
+     * Get Domain of the same enumeration type as this one, for example after unmarshalling a value
+     * @param value enumeration value of interest
+     * @return canonical Domain instance, or a Domain.Unknown holding the value if no corresponding enumeration is found
+     */
+    public abstract Domain forValue(int value);
 
   /**
    * Returns size of this serialized (marshalled) object in bytes
    * @see <a href="https://en.wikipedia.org/wiki/Marshalling_(computer_science)" target="_blank">https://en.wikipedia.org/wiki/Marshalling_(computer_science)</a>
    * @return serialized size in bytes
    */
-    public synchronized int getMarshalledSize()
+    public int getMarshalledSize()
     {
-      return (Integer) invoke(mSize, null);
+      return MARSHALLED_SIZE;
     }
 
     /**
      * Marshall this instance to DataOutputStreem
      * @param dos DataOutputStream
      */
-    public synchronized void marshal(DataOutputStream dos)
+    public void marshal(DataOutputStream dos)
   {
-    invoke(marshalDos, new Object[]{dos});
+    try {
+      dos.writeByte(getValue());
+    }
+    catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
   }
 
     /**
      * Marshall this instance to byteBuffer
      * @param byteBuffer The ByteBuffer at the position to begin writing
      */
-    public synchronized void marshal(ByteBuffer byteBuffer)
+    public void marshal(ByteBuffer byteBuffer)
   {
-    invoke(marshalBuff, new Object[]{byteBuffer});
+    byteBuffer.put((byte) getValue());
   }
 
     /**
-     * Deserializes an object from a DataInputStream.
+     * Deserializes a Domain of the same enumeration type as this one from a DataInputStream.
      * @param dis DataInputStream
      * @see java.io.DataInputStream
      * @see <a href="https://en.wikipedia.org/wiki/Marshalling_(computer_science)" target="_blank">https://en.wikipedia.org/wiki/Marshalling_(computer_science)</a>
+     * @return canonical Domain instance, or a Domain.Unknown holding the value if no corresponding enumeration is found
+     * @throws IOException input-output error
+     */
+    public Domain unmarshalDomain(DataInputStream dis) throws IOException
+  {
+    return forValue(dis.readUnsignedByte());
+  }
+
+    /**
+     * Deserializes a Domain of the same enumeration type as this one from a ByteBuffer.
+     * @see <a href="https://en.wikipedia.org/wiki/Marshalling_(computer_science)" target="_blank">https://en.wikipedia.org/wiki/Marshalling_(computer_science)</a>
+     * @param byteBuffer The ByteBuffer at the position to begin reading
+     * @return canonical Domain instance, or a Domain.Unknown holding the value if no corresponding enumeration is found
+     */
+    public Domain unmarshalDomain(ByteBuffer byteBuffer)
+  {
+    return forValue(byteBuffer.get() & 0xFF); // unsigned
+  }
+
+    /**
+     * Reads a Domain value from a DataInputStream, for callers of the former mutable Domain.
+     * Domain instances are shared and immutable, so this instance cannot change to the value that was read.
+     * @param dis DataInputStream
      * @return marshalled serialized size in bytes
+     * @throws IOException input-output error
+     * @throws IllegalStateException if the value read differs from the value of this Domain
+     * @deprecated use {@link #unmarshalDomain(DataInputStream)} and keep the returned Domain
      */
-    public synchronized int unmarshal(DataInputStream dis)
+    @Deprecated
+    public int unmarshal(DataInputStream dis) throws IOException
   {
-    Object o = invoke(unmarshalDis, new Object[]{dis});
-    enumInst = o;
-    init();
+    checkUnmarshalled(unmarshalDomain(dis));
     return getMarshalledSize();
   }
 
     /**
-     * Deserializes an object from a ByteBuffer.
-     * @see <a href="https://en.wikipedia.org/wiki/Marshalling_(computer_science)" target="_blank">https://en.wikipedia.org/wiki/Marshalling_(computer_science)</a>
-     * @param byteBuffer The ByteBuffer at the position to begin writing
+     * Reads a Domain value from a ByteBuffer, for callers of the former mutable Domain.
+     * Domain instances are shared and immutable, so this instance cannot change to the value that was read.
+     * @param byteBuffer The ByteBuffer at the position to begin reading
      * @return marshalled serialized size in bytes
+     * @throws IllegalStateException if the value read differs from the value of this Domain
+     * @deprecated use {@link #unmarshalDomain(ByteBuffer)} and keep the returned Domain
      */
-    public synchronized int unmarshal(ByteBuffer byteBuffer)
+    @Deprecated
+    public int unmarshal(ByteBuffer byteBuffer)
   {
-    Object o = invoke(unmarshalBuff, new Object[]{byteBuffer});
-    enumInst = o;
-    init();
+    checkUnmarshalled(unmarshalDomain(byteBuffer));
     return getMarshalledSize();
   }
 
-  private Object invoke(Method m, Object[] oa)
+  /** Fail rather than silently keep a stale value when a deprecated unmarshal() reads a different Domain */
+  private void checkUnmarshalled(Domain unmarshalled)
   {
-    try {
-      return m.invoke(enumInst, oa);
-    }
-    catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-      throw new RuntimeException("bad " + m.getName());
-    }
+    if (!equals(unmarshalled))
+      throw new IllegalStateException("Domain is immutable, unmarshalled " + unmarshalled + " differs from " + this +
+                                      ", use unmarshalDomain() and keep the returned Domain");
+  }
+
+  /**
+   * Provide this object, since Domain instances are immutable
+   * @return this Domain
+   */
+  public Domain copy()
+  {
+    return this;
   }
 
   @Override
@@ -197,7 +209,7 @@ public class Domain
    * Override of default equals method.  Calls equalsImpl() for content comparison.
    */
   @Override
-  public synchronized boolean equals(Object obj)
+  public boolean equals(Object obj)
   {
     if (this == obj)
       return true;
@@ -218,15 +230,209 @@ public class Domain
    * @param obj the object to compare to
    * @return true if the objects are equal, false otherwise.
    */
-  public synchronized boolean equalsImpl(Object obj)
+  public boolean equalsImpl(Object obj)
   {
     final Domain rhs = (Domain) obj;
-    return enumInst.equals(rhs.enumInst);
+    return getEnumeration() == rhs.getEnumeration();
   }
-  
+
   @Override
   public int hashCode()
   {
- 	 return Objects.hash(this.enumInst);
+    return Objects.hashCode(getEnumeration());
+  }
+
+  /** Domain holding a PlatformDomain enumeration */
+  public static final class Platform extends Domain
+  {
+    private static final Platform[] INSTANCES = new Platform[PlatformDomain.values().length];
+    static {
+      for (PlatformDomain d : PlatformDomain.values())
+        INSTANCES[d.ordinal()] = new Platform(d);
+    }
+
+    private final PlatformDomain enumeration;
+
+    /**
+     * Constructor for a Domain equal to the canonical instance, see Domain.inst(PlatformDomain) which does not allocate
+     * @param enumeration PlatformDomain value
+     */
+    public Platform(PlatformDomain enumeration)
+    {
+      this.enumeration = Objects.requireNonNull(enumeration);
+    }
+
+    @Override
+    public PlatformDomain getEnumeration()
+    {
+      return enumeration;
+    }
+
+    @Override
+    public int getValue()
+    {
+      return enumeration.getValue();
+    }
+
+    @Override
+    public String getDescription()
+    {
+      return enumeration.getDescription();
+    }
+
+    @Override
+    public Domain forValue(int value)
+    {
+      PlatformDomain d = PlatformDomain.getEnumForValue(value);
+      return (d == null) ? new Unknown(this, value) : INSTANCES[d.ordinal()];
+    }
+  }
+
+  /** Domain holding a MunitionDomain enumeration */
+  public static final class Munition extends Domain
+  {
+    private static final Munition[] INSTANCES = new Munition[MunitionDomain.values().length];
+    static {
+      for (MunitionDomain d : MunitionDomain.values())
+        INSTANCES[d.ordinal()] = new Munition(d);
+    }
+
+    private final MunitionDomain enumeration;
+
+    /**
+     * Constructor for a Domain equal to the canonical instance, see Domain.inst(MunitionDomain) which does not allocate
+     * @param enumeration MunitionDomain value
+     */
+    public Munition(MunitionDomain enumeration)
+    {
+      this.enumeration = Objects.requireNonNull(enumeration);
+    }
+
+    @Override
+    public MunitionDomain getEnumeration()
+    {
+      return enumeration;
+    }
+
+    @Override
+    public int getValue()
+    {
+      return enumeration.getValue();
+    }
+
+    @Override
+    public String getDescription()
+    {
+      return enumeration.getDescription();
+    }
+
+    @Override
+    public Domain forValue(int value)
+    {
+      MunitionDomain d = MunitionDomain.getEnumForValue(value);
+      return (d == null) ? new Unknown(this, value) : INSTANCES[d.ordinal()];
+    }
+  }
+
+  /** Domain holding a SupplyDomain enumeration */
+  public static final class Supply extends Domain
+  {
+    private static final Supply[] INSTANCES = new Supply[SupplyDomain.values().length];
+    static {
+      for (SupplyDomain d : SupplyDomain.values())
+        INSTANCES[d.ordinal()] = new Supply(d);
+    }
+
+    private final SupplyDomain enumeration;
+
+    /**
+     * Constructor for a Domain equal to the canonical instance, see Domain.inst(SupplyDomain) which does not allocate
+     * @param enumeration SupplyDomain value
+     */
+    public Supply(SupplyDomain enumeration)
+    {
+      this.enumeration = Objects.requireNonNull(enumeration);
+    }
+
+    @Override
+    public SupplyDomain getEnumeration()
+    {
+      return enumeration;
+    }
+
+    @Override
+    public int getValue()
+    {
+      return enumeration.getValue();
+    }
+
+    @Override
+    public String getDescription()
+    {
+      return enumeration.getDescription();
+    }
+
+    @Override
+    public Domain forValue(int value)
+    {
+      SupplyDomain d = SupplyDomain.getEnumForValue(value);
+      return (d == null) ? new Unknown(this, value) : INSTANCES[d.ordinal()];
+    }
+  }
+
+  /** Domain holding a value with no corresponding enumeration, as read from the network, so that it marshals unchanged */
+  public static final class Unknown extends Domain
+  {
+    private final Domain known;
+    private final int    value;
+
+    /**
+     * Constructor
+     * @param known Domain of the enumeration type the value was read as
+     * @param value raw value with no corresponding enumeration
+     */
+    private Unknown(Domain known, int value)
+    {
+      this.known = known;
+      this.value = value;
+    }
+
+    /** @return null, since no enumeration corresponds to this value */
+    @Override
+    public Enum<?> getEnumeration()
+    {
+      return null;
+    }
+
+    @Override
+    public int getValue()
+    {
+      return value;
+    }
+
+    @Override
+    public String getDescription()
+    {
+      return "unknown " + known.getEnumeration().getClass().getSimpleName() + " value " + value;
+    }
+
+    @Override
+    public Domain forValue(int value)
+    {
+      return known.forValue(value);
+    }
+
+    @Override
+    public boolean equalsImpl(Object obj)
+    {
+      final Unknown rhs = (Unknown) obj;
+      return (value == rhs.value) && (known.getClass() == rhs.known.getClass());
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return 31 * known.getClass().hashCode() + value;
+    }
   }
 }
@@ -5,6 +5,7 @@
 package edu.nps.moves.dis7.pdus;
 
 import java.io.*;
+import java.util.Objects;
 import edu.nps.moves.dis7.enumerations.*;
 
 /**
@@ -65,6 +66,61 @@ public class IntercomSignalPdu extends RadioCommunicationsFamilyPdu implements S
     setPduType(DisPduType.INTERCOM_SIGNAL);
   }
 
+  /**
+   * Restore initial values in place, without reallocating nested records, so that this object can be reused
+   */
+  @Override
+  public synchronized void reset()
+  {
+    super.reset();
+    intercomReferenceID.reset();
+    intercomNumber = 0;
+    encodingScheme = 0;
+    tdlType = SignalTDLType.values()[0];
+    sampleRate = 0;
+    dataLength = null;
+    samples = 0;
+    if (data.length != 1)
+        data = new byte[1];
+    else data[0] = 0;
+    if (padTo32.length != 0)
+        padTo32 = new byte[0];
+    setPduType(DisPduType.INTERCOM_SIGNAL);
+  }
+
+  /**
+   * Set attribute values of this object to deep copies of those of another object, reusing nested records where possible.
+   * Superclass attributes are copied by the superclass copyFrom() method.
+   * @param source object to copy from, which is not modified
+   * @return same object to permit progressive setters
+   */
+  public synchronized IntercomSignalPdu copyFrom(IntercomSignalPdu source)
+  {
+    super.copyFrom(source);
+    intercomReferenceID.copyFrom(source.intercomReferenceID);
+    intercomNumber = source.intercomNumber;
+    encodingScheme = source.encodingScheme;
+    tdlType = source.tdlType;
+    sampleRate = source.sampleRate;
+    dataLength = source.dataLength;
+    samples = source.samples;
+    data = (source.data == null) ? null : source.data.clone();
+    padTo32 = (source.padTo32 == null) ? null : source.padTo32.clone();
+    return this;
+  }
+
+  /**
+   * copy method creates a deep copy of current object by copying attribute values directly
+   * @return deep copy
+   */
+  @Override
+  public synchronized IntercomSignalPdu copy()
+  {
+    IntercomSignalPdu newCopy = new IntercomSignalPdu();
+    newCopy.copyFrom(this);
+    return newCopy;
+  }
+
   /**
    * Returns size of this serialized (marshalled) object in bytes
    * @see <a href="https://en.wikipedia.org/wiki/Marshalling_(computer_science)" target="_blank">https://en.wikipedia.org/wiki/Marshalling_(computer_science)</a>
@@ -82,7 +138,7 @@ public class IntercomSignalPdu extends RadioCommunicationsFamilyPdu implements S
     marshalSize += 2;  // dataLength
     marshalSize += 2;  // samples
     marshalSize += data.length;
-    marshalSize += padTo32.length;
+    marshalSize += (4 - marshalSize % 4) % 4; // padTo32
 
     return marshalSize;
   }
@@ -268,6 +324,7 @@ public class IntercomSignalPdu extends RadioCommunicationsFamilyPdu implements S
   @Override
   public synchronized void marshal(DataOutputStream dos) throws Exception
   {
+    int startSize = dos.size(); // padding is aligned relative to start of this record, as for ByteBuffer
     super.marshal(dos);
     try {
       intercomReferenceID.marshal(dos);
@@ -287,7 +344,7 @@ public class IntercomSignalPdu extends RadioCommunicationsFamilyPdu implements S
         dos.writeByte(data[idx]);
       }
 
-      padTo32 = new byte[Align.to32bits(dos)];
+      padTo32 = new byte[Align.to32bits(startSize, dos)];
     }
     catch (Exception e)
     {
@@ -350,6 +407,7 @@ public class IntercomSignalPdu extends RadioCommunicationsFamilyPdu implements S
   @Override
   public synchronized void marshal(java.nio.ByteBuffer byteBuffer) throws Exception
   {
+    int startPosition = byteBuffer.position();
     super.marshal(byteBuffer);
     intercomReferenceID.marshal(byteBuffer);
     byteBuffer.putShort(intercomNumber);
@@ -364,11 +422,8 @@ public class IntercomSignalPdu extends RadioCommunicationsFamilyPdu implements S
 
     byteBuffer.putShort(samples);
 
-    for (int idx = 0; idx < data.length; idx++) {
-      byteBuffer.put(data[idx]);
-    }
-    byteBuffer.flip(); // will cause BufferOverflowException if we don't flip here
-    padTo32 = new byte[Align.to32bits(byteBuffer)];
+    byteBuffer.put(data);
+    padTo32 = new byte[Align.to32bits(startPosition, byteBuffer)];
   }
 
   /**
@@ -384,6 +439,7 @@ public class IntercomSignalPdu extends RadioCommunicationsFamilyPdu implements S
   @Override
   public int unmarshal(java.nio.ByteBuffer byteBuffer) throws Exception
   {
+    int startPosition = byteBuffer.position();
     super.unmarshal(byteBuffer);
 
     intercomReferenceID.unmarshal(byteBuffer);
@@ -395,11 +451,8 @@ public class IntercomSignalPdu extends RadioCommunicationsFamilyPdu implements S
     int byteLength = (dataLength + 7) / 8;
     data = new byte[byteLength];
     samples = (short) (byteBuffer.getShort() & 0xFFFF);
-    for (int idx = 0; idx < byteLength; idx++) {
-      data[idx] = byteBuffer.get();
-    }
-    byteBuffer.flip(); // will cause BufferUnderflowException if we don't flip here
-    padTo32 = new byte[Align.from32bits(byteBuffer)];
+    byteBuffer.get(data);
+    padTo32 = new byte[Align.from32bits(startPosition, byteBuffer)];
     return getMarshalledSize();
   }
 
@@ -443,7 +496,7 @@ public class IntercomSignalPdu extends RadioCommunicationsFamilyPdu implements S
       ivarsEqual = false;
     if (!(sampleRate == rhs.sampleRate))
       ivarsEqual = false;
-    if (!(dataLength.equals(rhs.dataLength)))
+    if (!(Objects.equals(dataLength, rhs.dataLength)))
       ivarsEqual = false;
     if (!(samples == rhs.samples))
       ivarsEqual = false;
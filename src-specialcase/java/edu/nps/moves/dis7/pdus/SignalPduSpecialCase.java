@@ -5,6 +5,7 @@
 package edu.nps.moves.dis7.pdus;
 
 import java.io.*;
+import java.util.Objects;
 import edu.nps.moves.dis7.enumerations.*;
 
 /**
@@ -60,6 +61,59 @@ public class SignalPduSpecialCase extends RadioCommunicationsFamilyPdu implement
     setPduType(DisPduType.SIGNAL);
   }
 
+  /**
+   * Restore initial values in place, without reallocating nested records, so that this object can be reused
+   */
+  @Override
+  public synchronized void reset()
+  {
+    super.reset();
+    header.reset();
+    encodingScheme = 0;
+    tdlType = SignalTDLType.values()[0];
+    sampleRate = 0;
+    dataLength = null;
+    samples = 0;
+    if (data.length != 1)
+        data = new byte[1];
+    else data[0] = 0;
+    if (padTo32.length != 0)
+        padTo32 = new byte[0];
+    setPduType(DisPduType.SIGNAL);
+  }
+
+  /**
+   * Set attribute values of this object to deep copies of those of another object, reusing nested records where possible.
+   * Superclass attributes are copied by the superclass copyFrom() method.
+   * @param source object to copy from, which is not modified
+   * @return same object to permit progressive setters
+   */
+  public synchronized SignalPduSpecialCase copyFrom(SignalPduSpecialCase source)
+  {
+    super.copyFrom(source);
+    header.copyFrom(source.header);
+    encodingScheme = source.encodingScheme;
+    tdlType = source.tdlType;
+    sampleRate = source.sampleRate;
+    dataLength = source.dataLength;
+    samples = source.samples;
+    data = (source.data == null) ? null : source.data.clone();
+    padTo32 = (source.padTo32 == null) ? null : source.padTo32.clone();
+    return this;
+  }
+
+  /**
+   * copy method creates a deep copy of current object by copying attribute values directly
+   * @return deep copy
+   */
+  @Override
+  public synchronized SignalPduSpecialCase copy()
+  {
+    SignalPduSpecialCase newCopy = new SignalPduSpecialCase();
+    newCopy.copyFrom(this);
+    return newCopy;
+  }
+
   /**
    * Returns size of this serialized (marshalled) object in bytes
    * @see <a href="https://en.wikipedia.org/wiki/Marshalling_(computer_science)" target="_blank">https://en.wikipedia.org/wiki/Marshalling_(computer_science)</a>
@@ -76,7 +130,7 @@ public class SignalPduSpecialCase extends RadioCommunicationsFamilyPdu implement
     marshalSize += 2;  // dataLength
     marshalSize += 2;  // samples
     marshalSize += data.length;
-    marshalSize += padTo32.length;
+    marshalSize += (4 - marshalSize % 4) % 4; // padTo32
 
     return marshalSize;
   }
@@ -252,6 +306,7 @@ public class SignalPduSpecialCase extends RadioCommunicationsFamilyPdu implement
   @Override
   public synchronized void marshal(DataOutputStream dos) throws Exception
   {
+    int startSize = dos.size(); // padding is aligned relative to start of this record, as for ByteBuffer
     super.marshal(dos);
 
     header.marshal(dos);
@@ -268,7 +323,7 @@ public class SignalPduSpecialCase extends RadioCommunicationsFamilyPdu implement
     for (int idx = 0; idx < data.length; idx++) {
       dos.writeByte(data[idx]);
     }
-    padTo32 = new byte[Align.to32bits(dos)];
+    padTo32 = new byte[Align.to32bits(startSize, dos)];
 
   }
 
@@ -321,6 +376,7 @@ public class SignalPduSpecialCase extends RadioCommunicationsFamilyPdu implement
   @Override
   public synchronized void marshal(java.nio.ByteBuffer byteBuffer) throws Exception
   {
+    int startPosition = byteBuffer.position();
     super.marshal(byteBuffer);
     header.marshal(byteBuffer);
     byteBuffer.putShort(encodingScheme);
@@ -337,8 +393,7 @@ public class SignalPduSpecialCase extends RadioCommunicationsFamilyPdu implement
     for (int idx = 0; idx < data.length; idx++) {
       byteBuffer.put(data[idx]);
     }
-    byteBuffer.flip(); // will cause BufferOverflowException if we don't flip here
-    padTo32 = new byte[Align.to32bits(byteBuffer)];
+    padTo32 = new byte[Align.to32bits(startPosition, byteBuffer)];
   }
 
   /**
@@ -354,6 +409,7 @@ public class SignalPduSpecialCase extends RadioCommunicationsFamilyPdu implement
   @Override
   public synchronized int unmarshal(java.nio.ByteBuffer byteBuffer) throws Exception
   {
+    int startPosition = byteBuffer.position();
     super.unmarshal(byteBuffer);
 
     header.unmarshal(byteBuffer);
@@ -367,8 +423,7 @@ public class SignalPduSpecialCase extends RadioCommunicationsFamilyPdu implement
     for (int idx = 0; idx < byteLength; idx++) {
       data[idx] = byteBuffer.get();
     }
-    byteBuffer.flip(); // will cause BufferUnderflowException if we don't flip here
-    padTo32 = new byte[Align.from32bits(byteBuffer)];
+    padTo32 = new byte[Align.from32bits(startPosition, byteBuffer)];
     return getMarshalledSize();
   }
 
@@ -413,7 +468,7 @@ public class SignalPduSpecialCase extends RadioCommunicationsFamilyPdu implement
       ivarsEqual = false;
     if (!(sampleRate == rhs.sampleRate))
       ivarsEqual = false;
-    if (!(dataLength.equals(rhs.dataLength)))
+    if (!(Objects.equals(dataLength, rhs.dataLength)))
       ivarsEqual = false;
     if (!(samples == rhs.samples))
       ivarsEqual = false;
@@ -63,7 +63,7 @@ public class VariableDatum extends Object implements Serializable {
         marshalSize += variableDatumID.getMarshalledSize();
         marshalSize += 4;  // variableDatumLength
         marshalSize += variableDatumValue.length;
-        marshalSize += padding.length;
+        marshalSize += (8 - marshalSize % 8) % 8; // padding to 64-bit boundary
 
         return marshalSize;
     }
@@ -160,6 +160,29 @@ public class VariableDatum extends Object implements Serializable {
         return variableDatumValue;
     }
 
+    /**
+     * Set attribute values of this object to copies of those of another object
+     *
+     * @param source object to copy from, which is not modified
+     * @return same object to permit progressive setters
+     */
+    public synchronized VariableDatum copyFrom(VariableDatum source) {
+        variableDatumID = source.variableDatumID;
+        variableDatumLength = source.variableDatumLength;
+        variableDatumValue = (source.variableDatumValue == null) ? null : source.variableDatumValue.clone();
+        padding = (source.padding == null) ? null : source.padding.clone();
+        return this;
+    }
+
+    /**
+     * copy method creates a deep copy of current object
+     *
+     * @return deep copy
+     */
+    public synchronized VariableDatum copy() {
+        return new VariableDatum().copyFrom(this);
+    }
+
     /* *************************** */
     /* Marshal / unmarshal methods */
     /* *************************** */
@@ -172,6 +195,7 @@ public class VariableDatum extends Object implements Serializable {
      * @param dos The DataOutputStream
      */
     public synchronized void marshal(DataOutputStream dos) throws Exception {
+        int startSize = dos.size();
         try {
             variableDatumID.marshal(dos);
             if (variableDatumLength != null) {
@@ -184,7 +208,7 @@ public class VariableDatum extends Object implements Serializable {
                 dos.writeByte(variableDatumValue[idx]);
             }
 
-            padding = new byte[Align.to64bits(dos)];
+            padding = new byte[Align.to64bits(startSize, dos)];
         } catch (IOException e) {
             System.err.flush(); // ensure contiguous console outputs
             System.err.println(e);
@@ -214,7 +238,7 @@ public class VariableDatum extends Object implements Serializable {
             for (int idx = 0; idx < byteLength; idx++) {
                 variableDatumValue[idx] = dis.readByte();
             }
-            uPosition += variableDatumLength;
+            uPosition += byteLength; // variableDatumLength counts bits
             padding = new byte[Align.from64bits(uPosition, dis)];
             //uPosition += padding.length;
         } catch (Exception e) {
@@ -235,6 +259,7 @@ public class VariableDatum extends Object implements Serializable {
      * @throws Exception ByteBuffer-generated exception
      */
     public synchronized void marshal(java.nio.ByteBuffer byteBuffer) throws Exception {
+        int startPosition = byteBuffer.position();
         variableDatumID.marshal(byteBuffer);
 
         if (variableDatumLength != null) {
@@ -242,10 +267,8 @@ public class VariableDatum extends Object implements Serializable {
         } else {
             byteBuffer.putInt(variableDatumLength = calculateDatumLength());
         }
-        for (int idx = 0; idx < variableDatumValue.length; idx++) {
-            byteBuffer.put(variableDatumValue[idx]);
-        }
-        padding = new byte[Align.to64bits(byteBuffer)];
+        byteBuffer.put(variableDatumValue);
+        padding = new byte[Align.to64bits(startPosition, byteBuffer)];
     }
 
     /**
@@ -260,14 +283,13 @@ public class VariableDatum extends Object implements Serializable {
      * @throws Exception ByteBuffer-generated exception
      */
     public synchronized int unmarshal(java.nio.ByteBuffer byteBuffer) throws Exception {
+        int startPosition = byteBuffer.position();
         variableDatumID = VariableRecordType.unmarshalEnum(byteBuffer);
         variableDatumLength = byteBuffer.getInt();
         int byteLength = (variableDatumLength + 7) / 8;
         variableDatumValue = new byte[byteLength];
-        for (int idx = 0; idx < byteLength; idx++) {
-            variableDatumValue[idx] = byteBuffer.get();
-        }
-        padding = new byte[Align.from64bits(byteBuffer)];
+        byteBuffer.get(variableDatumValue);
+        padding = new byte[Align.from64bits(startPosition, byteBuffer)];
         return getMarshalledSize();
     }
 
@@ -51,8 +51,7 @@ public int getMarshalledSize()
    marshalSize += 4;  // variableDatumLength
    if (variableDatumValue != null)
        marshalSize += variableDatumValue.length * 1;
-   if (padding != null)
-       marshalSize += padding.length;
+   marshalSize += (8 - marshalSize % 8) % 8; // padding
 
    return marshalSize;
 }
@@ -114,6 +113,7 @@ public byte[] getVariableDatumValue()
  */
 public void marshal(DataOutputStream dos) throws Exception
 {
+    int startSize = dos.size(); // padding is aligned relative to start of this record, as for ByteBuffer
     try 
     {
        variableDatumID.marshal(dos);
@@ -122,7 +122,7 @@ public void marshal(DataOutputStream dos) throws Exception
        for (int idx = 0; idx < variableDatumValue.length; idx++)
            dos.writeByte(variableDatumValue[idx]);
 
-       padding = new byte[Align.to64bits(dos)];
+       padding = new byte[Align.to64bits(startSize, dos)];
     }
     catch(Exception e)
     {
@@ -170,13 +170,14 @@ public int unmarshal(DataInputStream dis) throws Exception
  */
 public void marshal(java.nio.ByteBuffer byteBuffer) throws Exception
 {
+   int startPosition = byteBuffer.position(); // padding is aligned relative to start of this record
    variableDatumID.marshal(byteBuffer);
    byteBuffer.putInt( (int)variableDatumLength);
 
    for (int idx = 0; idx < variableDatumValue.length; idx++)
        byteBuffer.put((byte)variableDatumValue[idx]);
 
-   padding = new byte[Align.to64bits(byteBuffer)];
+   padding = new byte[Align.to64bits(startPosition, byteBuffer)];
 }
 
 /**
@@ -190,6 +191,7 @@ public void marshal(java.nio.ByteBuffer byteBuffer) throws Exception
  */
 public int unmarshal(java.nio.ByteBuffer byteBuffer) throws Exception
 {
+    int startPosition = byteBuffer.position(); // padding is aligned relative to start of this record
     try
     {
         // attribute variableDatumID marked as not serialized
@@ -200,7 +202,7 @@ public int unmarshal(java.nio.ByteBuffer byteBuffer) throws Exception
         for (int idx = 0; idx < variableDatumValue.length; idx++)
             variableDatumValue[idx] = byteBuffer.get();
         // attribute padding marked as not serialized
-        padding = new byte[Align.from64bits(byteBuffer)];
+        padding = new byte[Align.from64bits(startPosition, byteBuffer)];
     }
     catch (java.nio.BufferUnderflowException bue)
     {
@@ -11,7 +11,8 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 
-// *** original source in opendis7-java/src/edu/nps/moves/dis7/utilities/DisTime.java
+// *** maintained here in opendis7-source-generator; build.xml target copy-generated-source-to-opendis7-java
+// *** copies it to opendis7-java/src/edu/nps/moves/dis7/utilities/DisTime.java
 
 /**
  * <p>This common shared class provides static code for timestamp configuration and conversion utilities,
@@ -148,13 +149,26 @@ public class DisTime
      * Distinct from Unix timestamp EPOCH.
      * <a href="https://en.wikipedia.org/wiki/Epoch_(computing)" target="_blank">https://en.wikipedia.org/wiki/Epoch_(computing)</a>.
      */
-    private static boolean     applyEpochLvc     = false;
+    private static volatile boolean applyEpochLvc = false;
     
     /** Reference starting time for current DIS timestamps, enabling time normalization of LVC streams.
      * Distinct from Unix timestamp EPOCH.
      * <a href="https://en.wikipedia.org/wiki/Epoch_(computing)" target="_blank">https://en.wikipedia.org/wiki/Epoch_(computing)</a>.
      */
-    private static Instant     epochLvc        = Instant.now(); // initialized at start
+    private static volatile EpochLvc epochLvc = new EpochLvc(Instant.now()); // initialized at start
+    
+    /** Source of current time, system clock by default.  A simulated or fixed clock can be substituted for repeatable runs. */
+    private static volatile InstantSource instantSource = InstantSource.system();
+    
+    /** Milliseconds per hour, the DIS timestamp rollover period */
+    private static final long MSEC_PER_HOUR = 3600L * 1000L;
+    
+    /** Cached top-of-hour interval containing the most recent timestamp, replaced once per hour.
+     * Held as a single immutable object so that readers always see a consistent pair of bounds without locking. */
+    private static volatile HourInterval currentHour = HourInterval.containing(System.currentTimeMillis());
+    
+    /** Cached start-of-year interval for deprecated YEAR timestamps, replaced once per year */
+    private static volatile YearInterval currentYear = YearInterval.containing(System.currentTimeMillis());
   
     /**
      * Default value is TimestampStyle.IEEE_ABSOLUTE.
@@ -166,7 +180,7 @@ public class DisTime
      * with the same timestamp as duplicates and may discard them.
      * Default value is TimestampStyle.IEEE_ABSOLUTE.
      */
-    private static TimestampStyle timestampStyle = TIMESTAMP_STYLE_DEFAULT;
+    private static volatile TimestampStyle timestampStyle = TIMESTAMP_STYLE_DEFAULT;
   
     /** mask for absolute timestamps */
     public static final int ABSOLUTE_TIMESTAMP_MASK = 0x00000001;
@@ -312,48 +326,110 @@ public class DisTime
         return conversionSuccessful;
     }
 
+    /** Immutable epochLvc Instant together with its milliseconds since 1970, so that timestamps avoid Duration arithmetic.
+     * Held as a single object so that readers never see the Instant of one epochLvc with the milliseconds of another. */
+    private static final class EpochLvc
+    {
+        final Instant instant;
+        final long    msec;
+
+        private EpochLvc(Instant instant)
+        {
+            this.instant = instant;
+            this.msec    = instant.toEpochMilli();
+        }
+    }
+
+    /** Immutable pair of local top-of-hour bounds in milliseconds since 1970 */
+    private static final class HourInterval
+    {
+        final long startMsec;
+        final long endMsec;
+
+        private HourInterval(long startMsec, long endMsec)
+        {
+            this.startMsec = startMsec;
+            this.endMsec   = endMsec;
+        }
+
+        /** Compute local hour containing given time, honoring time zones offset by fractional hours
+         * @param currentTimeMsec milliseconds since 1970
+         * @return interval from top of current hour until top of next hour */
+        static HourInterval containing(long currentTimeMsec)
+        {
+            ZonedDateTime topOfHour = Instant.ofEpochMilli(currentTimeMsec).atZone(ZoneId.systemDefault()).truncatedTo(ChronoUnit.HOURS);
+            return new HourInterval(topOfHour.toInstant().toEpochMilli(), topOfHour.plusHours(1).toInstant().toEpochMilli());
+        }
+    }
+
+    /** Immutable pair of local start-of-year bounds in milliseconds since 1970 */
+    private static final class YearInterval
+    {
+        final long startMsec;
+        final long endMsec;
+
+        private YearInterval(long startMsec, long endMsec)
+        {
+            this.startMsec = startMsec;
+            this.endMsec   = endMsec;
+        }
+
+        /** Compute local year containing given time
+         * @param currentTimeMsec milliseconds since 1970
+         * @return interval from start of current year until start of next year */
+        static YearInterval containing(long currentTimeMsec)
+        {
+            ZoneId        zoneId      = ZoneId.systemDefault();
+            ZonedDateTime startOfYear = Instant.ofEpochMilli(currentTimeMsec).atZone(zoneId).toLocalDate().withDayOfYear(1).atStartOfDay(zoneId);
+            return new YearInterval(startOfYear.toInstant().toEpochMilli(), startOfYear.plusYears(1).toInstant().toEpochMilli());
+        }
+    }
+
+    /**
+     * Milliseconds since local top of the hour.  The hour boundary is cached and only recomputed when
+     * the clock leaves the cached hour, so this method is lock-free and allocates nothing in the common case.
+     * Concurrent threads crossing the hour may each recompute the boundary, which is harmless since results are identical.
+     * @param currentTimeMsec milliseconds since 1970
+     * @return milliseconds since top of hour
+     */
+    private static long getMsecSinceTopOfHour(long currentTimeMsec)
+    {
+        HourInterval hour = currentHour;
+        if ((currentTimeMsec < hour.startMsec) || (currentTimeMsec >= hour.endMsec))
+        {
+            hour = HourInterval.containing(currentTimeMsec);
+            currentHour = hour;
+        }
+        return currentTimeMsec - hour.startMsec;
+    }
+
     /**
      * For current system time, returns the number of DIS time units since the top of the hour, or else
      * number of DIS time units since previously set epochLvc timestamp (for time-zero-based streams).
      * Note that there are 2^31-1 DIS time units per hour.
      * @return integer DIS time units since the start of the hour.
      */
-    private static synchronized int getCurrentDisTimeUnitsSinceTopOfHour()
+    private static int getCurrentDisTimeUnitsSinceTopOfHour()
     {
-        // set calendar object to current time
-        GregorianCalendar calendar = new GregorianCalendar();
-        long currentTime = System.currentTimeMillis(); // UTC milliseconds since 1970
-        calendar.setTimeInMillis(currentTime);
-
-        // Set calendar to top of the hour, then compute what the calendar object says was milliseconds since 1970
-        // at the top of the hour
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        long topOfHourMsec = calendar.getTimeInMillis();
+        long currentTime = instantSource.millis(); // UTC milliseconds since 1970
 
         // Milliseconds since the top of the hour
         long timeDifferenceMsec; // originally diff = currentTime - topOfHour;
 
-        // It turns out that Integer.MAX_VALUE is 2^31-1, which is the time unit value, ie there are
-        // 2^31-1 DIS time units in an hour. 3600 sec/hr X 1000 msec/sec divided into the number of
-        // msec since the start of the hour gives the percentage of DIS time units in the hour, times
-        // the number of DIS time units per hour, equals the time value
-        double differenceValue;
-        int    differenceTimestamp;
-        
-        if  (!hasEpochLvc())
+        if  (!applyEpochLvc)
         {
-            timeDifferenceMsec = currentTime - topOfHourMsec;
+            timeDifferenceMsec = getMsecSinceTopOfHour(currentTime);
         }
         else // normalized time reference having 00:00 at start
         {
-            Duration d = java.time.Duration.between(epochLvc, Instant.now());
-            timeDifferenceMsec = d.toMillis();
+            timeDifferenceMsec = currentTime - epochLvc.msec;
         }
-        differenceValue     = (timeDifferenceMsec / (3600.0 * 1000.0)) * Integer.MAX_VALUE;
-        differenceTimestamp = (int) differenceValue;
-        return differenceTimestamp;
+        // It turns out that Integer.MAX_VALUE is 2^31-1, which is the time unit value, ie there are
+        // 2^31-1 DIS time units in an hour. 3600 sec/hr X 1000 msec/sec divided into the number of
+        // msec since the start of the hour gives the percentage of DIS time units in the hour, times
+        // the number of DIS time units per hour, equals the time value
+        double differenceValue = ((double) timeDifferenceMsec / MSEC_PER_HOUR) * Integer.MAX_VALUE;
+        return (int) differenceValue;
     }
     
     /**
@@ -387,7 +463,7 @@ public class DisTime
      * @see <a href="https://en.wikipedia.org/wiki/Network_Time_Protocol" target="_blank">Wikipedia: Network Time Protocol (NTP)</a>
      * @return DIS time units, get absolute timestamp
      */
-    private static synchronized int getCurrentDisAbsoluteTimestamp()
+    private static int getCurrentDisAbsoluteTimestamp()
     {
         int value = getCurrentDisTimeUnitsSinceTopOfHour();
         value = (value << 1) | ABSOLUTE_TIMESTAMP_MASK; // always flip the lsb to 1
@@ -418,24 +494,18 @@ public class DisTime
      * @return a timestamp in hundredths of a second since the start of the year
      */
     @Deprecated
-    private static synchronized int getCurrentYearTimestamp()
-    {
-        // set calendar object to current time
-        GregorianCalendar calendar = new GregorianCalendar();
-        long currentTime = System.currentTimeMillis(); // UTC milliseconds since 1970
-        calendar.setTimeInMillis(currentTime);
-
-        // Set calendar to the start of the year
-        calendar.set(Calendar.MONTH, 0);
-        calendar.set(Calendar.DAY_OF_MONTH, 1);
-        calendar.set(Calendar.HOUR, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-        long startOfYear = calendar.getTimeInMillis();
+    private static int getCurrentYearTimestamp()
+    {
+        long currentTime = instantSource.millis(); // UTC milliseconds since 1970
 
-        // Milliseconds since the top of the hour
-        long diff = currentTime - startOfYear;
+        YearInterval year = currentYear;
+        if ((currentTime < year.startMsec) || (currentTime >= year.endMsec))
+        {
+            year = YearInterval.containing(currentTime);
+            currentYear = year;
+        }
+        // Milliseconds since the start of the year
+        long diff = currentTime - year.startMsec;
         diff /= 10; // milliseconds to hundredths of a second
 
         return (int) diff;
@@ -459,9 +529,9 @@ public class DisTime
      * Consult the Wikipedia page on <a href="https://en.wikipedia.org/wiki/Unix_time" target="_blank">Unix time</a> for the gory details
      * @return seconds since 1970
      */
-    private static synchronized int getCurrentUnixTimestamp()
+    private static int getCurrentUnixTimestamp()
     {
-        long t = System.currentTimeMillis();
+        long t = instantSource.millis();
         t /= 1000l;   // NB: integer division used to convert milliseconds to seconds
         return (int) t;
     }
@@ -627,8 +697,7 @@ public class DisTime
      */
     public static void setEpochLvcNow()
     {
-        applyEpochLvc = true;
-        setEpochLvc(Instant.now()); // getCurrentDisAbsoluteTimestamp());
+        setEpochLvc(instantSource.instant()); // getCurrentDisAbsoluteTimestamp());
     }
     
     /** Set Instant value as epochLvc for zero-based clock, meaning timestamps normalized to 0 at that initial starting time
@@ -636,8 +705,8 @@ public class DisTime
      */
     public static void setEpochLvc(java.time.Instant newEpochLvc)
     {
+        epochLvc      = new EpochLvc(newEpochLvc);
         applyEpochLvc = true;
-        epochLvc = newEpochLvc;
     }
     
     /**  Get initial timestamp for zero-based clock, meaning all timestamps are measured with respect to given starting time
@@ -645,7 +714,7 @@ public class DisTime
      */
     public static java.time.Instant getEpochLvc()
     {
-      return epochLvc;
+      return epochLvc.instant;
     }
     
     /** Whether epochLvc is currently applied
@@ -663,6 +732,23 @@ public class DisTime
         applyEpochLvc     = false;
     }
     
+    /** Set source of current time for all timestamps, for example a simulated clock or
+     * <code>Clock.fixed()</code> when repeatable timestamps are needed.
+     * @param newInstantSource time source to use, or null to restore the system clock
+     */
+    public static void setInstantSource(InstantSource newInstantSource)
+    {
+        instantSource = (newInstantSource != null) ? newInstantSource : InstantSource.system();
+    }
+    
+    /** Get source of current time for all timestamps
+     * @return current time source, system clock by default
+     */
+    public static InstantSource getInstantSource()
+    {
+      return instantSource;
+    }
+    
     /**
      * Return the static instance of the PduFactory
      * @return the static instance of the PduFactory
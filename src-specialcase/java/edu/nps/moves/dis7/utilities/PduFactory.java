@@ -9,14 +9,21 @@ import edu.nps.moves.dis7.pdus.*;
 import edu.nps.moves.dis7.utilities.DisTime.TimestampStyle;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
-// *** original source in opendis7-java/src/edu/nps/moves/dis7/utilities/PduFactory.java
+// *** maintained here in opendis7-source-generator; build.xml target copy-generated-source-to-opendis7-java
+// *** copies it to opendis7-java/src/edu/nps/moves/dis7/utilities/PduFactory.java
 
 /**
  * PduFactory.java created on Jun 14, 2019
@@ -45,6 +52,143 @@ public class PduFactory
    */
   private TimestampStyle timestampStyle;
 
+  /** Default maximum number of released Pdu objects retained per DisPduType, per thread */
+  public static final int POOL_SIZE_DEFAULT = 64;
+
+  /** Whether createPdu() reuses Pdu objects returned by release(), default false.
+   * @see #setPooled(boolean) */
+  private boolean pooled = false;
+
+  /** Maximum number of released Pdu objects retained per DisPduType, per thread */
+  private int poolSize = POOL_SIZE_DEFAULT;
+
+  /** Per-thread pools of released Pdu objects indexed by unsigned pduType value, so that pool access needs no locking */
+  @SuppressWarnings("unchecked")
+  private final ThreadLocal<ArrayDeque<Pdu>[]> pdusPools =
+          ThreadLocal.withInitial(() -> (ArrayDeque<Pdu>[]) new ArrayDeque<?>[PDU_TYPE_VALUE_COUNT]);
+
+  /** Registered pduType value of each Pdu class created in pooled mode, so that release() returns a Pdu of a custom
+   * registered type to the pool createPdu() takes from, even when its getPduType() reports another value or none */
+  private static final Map<Class<?>, Integer> pooledPduTypeValues = new ConcurrentHashMap<>();
+
+  /** Number of distinct pduType values, since the pduType header field is one unsigned byte */
+  public static final int PDU_TYPE_VALUE_COUNT = 256;
+
+  /**
+   * Decodes marshalled data into a newly constructed or pooled Pdu, registered per pduType value.
+   * The default decoder for every registered type is Pdu::unmarshal.
+   * @see #registerPduType(int, Supplier, PduDecoder)
+   */
+  @FunctionalInterface
+  public interface PduDecoder
+  {
+      /**
+       * Decode one Pdu
+       * @param pdu empty Pdu provided by the registered supplier, or reset by a pool
+       * @param byteBuffer buffer positioned at first byte of the Pdu
+       * @return number of bytes decoded
+       * @throws Exception if data cannot be decoded
+       */
+      int decode(Pdu pdu, ByteBuffer byteBuffer) throws Exception;
+  }
+
+  /** Immutable registry entry holding constructor and decoder for one pduType value */
+  private static final class PduRegistration
+  {
+      final Supplier<? extends Pdu> supplier;
+      final PduDecoder              decoder;
+
+      PduRegistration(Supplier<? extends Pdu> supplier, PduDecoder decoder)
+      {
+          this.supplier = supplier;
+          this.decoder  = decoder;
+      }
+  }
+
+  /** Registered PDU types shared by all factories, indexed by unsigned pduType value.
+   * Element reads are volatile, so lookup needs no locking while applications register further types. */
+  private static final AtomicReferenceArray<PduRegistration> pduRegistry = new AtomicReferenceArray<>(PDU_TYPE_VALUE_COUNT);
+
+  /** Count of received PDUs whose pduType value has no registration, indexed by unsigned pduType value */
+  private static final AtomicLongArray unknownPduTypeCounts = new AtomicLongArray(PDU_TYPE_VALUE_COUNT);
+
+  static
+  {
+      // NOTE: 'OTHER' is a valid pduTypeEnum, but has no corresponding object
+      registerPduType(DisPduType.ENTITY_STATE, EntityStatePdu::new);
+      registerPduType(DisPduType.FIRE, FirePdu::new);
+      registerPduType(DisPduType.DETONATION, DetonationPdu::new);
+      registerPduType(DisPduType.COLLISION, CollisionPdu::new);
+      registerPduType(DisPduType.SERVICE_REQUEST, ServiceRequestPdu::new);
+      registerPduType(DisPduType.RESUPPLY_OFFER, ResupplyOfferPdu::new);
+      registerPduType(DisPduType.RESUPPLY_RECEIVED, ResupplyReceivedPdu::new);
+      registerPduType(DisPduType.RESUPPLY_CANCEL, ResupplyCancelPdu::new);
+      registerPduType(DisPduType.REPAIR_COMPLETE, RepairCompletePdu::new);
+      registerPduType(DisPduType.REPAIR_RESPONSE, RepairResponsePdu::new);
+      registerPduType(DisPduType.CREATE_ENTITY, CreateEntityPdu::new);
+      registerPduType(DisPduType.REMOVE_ENTITY, RemoveEntityPdu::new);
+      registerPduType(DisPduType.START_RESUME, StartResumePdu::new);
+      registerPduType(DisPduType.STOP_FREEZE, StopFreezePdu::new);
+      registerPduType(DisPduType.ACKNOWLEDGE, AcknowledgePdu::new);
+      registerPduType(DisPduType.ACTION_REQUEST, ActionRequestPdu::new);
+      registerPduType(DisPduType.ACTION_RESPONSE, ActionResponsePdu::new);
+      registerPduType(DisPduType.DATA_QUERY, DataQueryPdu::new);
+      registerPduType(DisPduType.SET_DATA, SetDataPdu::new);
+      registerPduType(DisPduType.DATA, DataPdu::new);
+      registerPduType(DisPduType.EVENT_REPORT, EventReportPdu::new);
+      registerPduType(DisPduType.COMMENT, CommentPdu::new);
+      registerPduType(DisPduType.ELECTROMAGNETIC_EMISSION, ElectromagneticEmissionPdu::new);
+      registerPduType(DisPduType.DESIGNATOR, DesignatorPdu::new);
+      registerPduType(DisPduType.TRANSMITTER, TransmitterPdu::new);
+      registerPduType(DisPduType.SIGNAL, SignalPdu::new);
+      registerPduType(DisPduType.RECEIVER, ReceiverPdu::new);
+      registerPduType(DisPduType.IDENTIFICATION_FRIEND_OR_FOE, IFFPdu::new);
+      registerPduType(DisPduType.UNDERWATER_ACOUSTIC, UnderwaterAcousticPdu::new);
+      registerPduType(DisPduType.SUPPLEMENTAL_EMISSION_ENTITY_STATE, SEESPdu::new);
+      registerPduType(DisPduType.INTERCOM_SIGNAL, IntercomSignalPdu::new);
+      registerPduType(DisPduType.INTERCOM_CONTROL, IntercomControlPdu::new);
+      registerPduType(DisPduType.AGGREGATE_STATE, AggregateStatePdu::new);
+      registerPduType(DisPduType.ISGROUPOF, IsGroupOfPdu::new);
+      registerPduType(DisPduType.TRANSFER_OWNERSHIP, TransferOwnershipPdu::new);
+      registerPduType(DisPduType.ISPARTOF, IsPartOfPdu::new);
+      registerPduType(DisPduType.MINEFIELD_STATE, MinefieldStatePdu::new);
+      registerPduType(DisPduType.MINEFIELD_QUERY, MinefieldQueryPdu::new);
+      registerPduType(DisPduType.MINEFIELD_DATA, MinefieldDataPdu::new);
+      registerPduType(DisPduType.MINEFIELD_RESPONSE_NACK, MinefieldResponseNACKPdu::new);
+      registerPduType(DisPduType.ENVIRONMENTAL_PROCESS, EnvironmentalProcessPdu::new);
+      registerPduType(DisPduType.GRIDDED_DATA, GriddedDataPdu::new);
+      registerPduType(DisPduType.POINT_OBJECT_STATE, PointObjectStatePdu::new);
+      registerPduType(DisPduType.LINEAR_OBJECT_STATE, LinearObjectStatePdu::new);
+      registerPduType(DisPduType.AREAL_OBJECT_STATE, ArealObjectStatePdu::new);
+      registerPduType(DisPduType.TIME_SPACE_POSITION_INFORMATION, TSPIPdu::new);
+      registerPduType(DisPduType.APPEARANCE, AppearancePdu::new);
+      registerPduType(DisPduType.ARTICULATED_PARTS, ArticulatedPartsPdu::new);
+      registerPduType(DisPduType.LIVE_ENTITY_FIRE, LEFirePdu::new);
+      registerPduType(DisPduType.LIVE_ENTITY_DETONATION, LEDetonationPdu::new);
+      registerPduType(DisPduType.CREATE_ENTITY_RELIABLE, CreateEntityReliablePdu::new);
+      registerPduType(DisPduType.REMOVE_ENTITY_RELIABLE, RemoveEntityReliablePdu::new);
+      registerPduType(DisPduType.START_RESUME_RELIABLE, StartResumeReliablePdu::new);
+      registerPduType(DisPduType.STOP_FREEZE_RELIABLE, StopFreezeReliablePdu::new);
+      registerPduType(DisPduType.ACKNOWLEDGE_RELIABLE, AcknowledgeReliablePdu::new);
+      registerPduType(DisPduType.ACTION_REQUEST_RELIABLE, ActionRequestReliablePdu::new);
+      registerPduType(DisPduType.ACTION_RESPONSE_RELIABLE, ActionResponseReliablePdu::new);
+      registerPduType(DisPduType.DATA_QUERY_RELIABLE, DataQueryReliablePdu::new);
+      registerPduType(DisPduType.SET_DATA_RELIABLE, SetDataReliablePdu::new);
+      registerPduType(DisPduType.DATA_RELIABLE, DataReliablePdu::new);
+      registerPduType(DisPduType.EVENT_REPORT_RELIABLE, EventReportReliablePdu::new);
+      registerPduType(DisPduType.COMMENT_RELIABLE, CommentReliablePdu::new);
+      registerPduType(DisPduType.RECORD_RELIABLE, RecordReliablePdu::new);
+      registerPduType(DisPduType.SET_RECORD_RELIABLE, SetRecordReliablePdu::new);
+      registerPduType(DisPduType.RECORD_QUERY_RELIABLE, RecordQueryReliablePdu::new);
+      registerPduType(DisPduType.COLLISION_ELASTIC, CollisionElasticPdu::new);
+      registerPduType(DisPduType.ENTITY_STATE_UPDATE, EntityStateUpdatePdu::new);
+      registerPduType(DisPduType.DIRECTED_ENERGY_FIRE, DirectedEnergyFirePdu::new);
+      registerPduType(DisPduType.ENTITY_DAMAGE_STATUS, EntityDamageStatusPdu::new);
+      registerPduType(DisPduType.INFORMATION_OPERATIONS_ACTION, InformationOperationsActionPdu::new);
+      registerPduType(DisPduType.INFORMATION_OPERATIONS_REPORT, InformationOperationsReportPdu::new);
+      registerPduType(DisPduType.ATTRIBUTE, AttributePdu::new);
+  }
+
   /**
    * Create and add initial properties to a new PduFactory using defaults for country (USA), exerciseId (2),
    * application (3) and absolute timestamps.
@@ -109,6 +253,171 @@ public class PduFactory
       else timestampStyle = newTimestampStyle;
   }
 
+  /** accessor to report value
+     * @return whether createPdu() reuses Pdu objects returned by release() */
+  public boolean isPooled()
+  {
+      return pooled;
+  }
+
+  /** Enable or disable pooled mode. When pooled, createPdu() reuses Pdu objects previously returned
+   * to this factory by release() on the same thread, after resetting them, so that steady-state decoding
+   * avoids allocating a new Pdu and its nested records for every packet. A released Pdu must no longer be used
+   * by the caller.
+   * @param newPooled whether to reuse released Pdu objects
+   * @see #release(Pdu) */
+  public void setPooled(boolean newPooled)
+  {
+      pooled = newPooled;
+  }
+
+  /** accessor to report value
+     * @return maximum number of released Pdu objects retained per DisPduType, per thread */
+  public int getPoolSize()
+  {
+      return poolSize;
+  }
+
+  /** accessor to update value
+     * @param newPoolSize maximum number of released Pdu objects retained per DisPduType, per thread */
+  public void setPoolSize(int newPoolSize)
+  {
+      if (newPoolSize < 0)
+      {
+          System.err.println("[PduFactory] *** received setPoolSize(" + newPoolSize + "), reset using " + POOL_SIZE_DEFAULT);
+          poolSize = POOL_SIZE_DEFAULT;
+      }
+      else poolSize = newPoolSize;
+  }
+
+  /**
+   * Return a Pdu obtained from createPdu() to the current thread's pool for reuse, if pooled mode is enabled.
+   * The Pdu is reset immediately and must not be used afterwards by the caller.
+   * The pool is chosen by the pduType value under which the Pdu class was registered and created,
+   * so that PDUs of custom types added by registerPduType() are pooled as well.
+   * Has no effect if not pooled, or if the pool for this pduType value is already full.
+   * @param pdu Pdu no longer needed
+   * @see #setPooled(boolean)
+   * @see #registerPduType(int, Supplier, PduDecoder)
+   */
+  public void release(Pdu pdu)
+  {
+      if (!pooled || (pdu == null))
+          return;
+      Integer registeredValue = pooledPduTypeValues.get(pdu.getClass());
+      int pduTypeValue;
+      if (registeredValue != null)
+          pduTypeValue = registeredValue;
+      else if (pdu.getPduType() != null)
+          pduTypeValue = pdu.getPduType().getValue(); // not created by a pooled factory
+      else
+          return;
+      ArrayDeque<Pdu>[] pduPools = pdusPools.get();
+      if (pduPools[pduTypeValue] == null)
+          pduPools[pduTypeValue] = new ArrayDeque<>();
+      ArrayDeque<Pdu> pduPool = pduPools[pduTypeValue];
+      if (pduPool.size() < poolSize)
+      {
+          pdu.reset();
+          pduPool.push(pdu);
+      }
+  }
+
+  /**
+   * Register constructor for a pduType value, replacing any prior registration, decoded using Pdu::unmarshal.
+   * Applies to all PduFactory instances and may be invoked at any time, for example to add experimental PDU types.
+   * @param pduTypeValue unsigned pduType value, 0..255
+   * @param supplier constructor for empty Pdu objects of this type
+   */
+  public static void registerPduType(int pduTypeValue, Supplier<? extends Pdu> supplier)
+  {
+      registerPduType(pduTypeValue, supplier, Pdu::unmarshal);
+  }
+
+  /**
+   * Register constructor for a DisPduType, replacing any prior registration, decoded using Pdu::unmarshal.
+   * @param pduType PDU type of interest
+   * @param supplier constructor for empty Pdu objects of this type
+   */
+  public static void registerPduType(DisPduType pduType, Supplier<? extends Pdu> supplier)
+  {
+      registerPduType(pduType.getValue(), supplier, Pdu::unmarshal);
+  }
+
+  /**
+   * Register constructor and decoder for a pduType value, replacing any prior registration.
+   * Applies to all PduFactory instances and may be invoked at any time, for example to add experimental PDU types.
+   * @param pduTypeValue unsigned pduType value, 0..255
+   * @param supplier constructor for empty Pdu objects of this type
+   * @param decoder decoder filling a Pdu from marshalled data
+   */
+  public static void registerPduType(int pduTypeValue, Supplier<? extends Pdu> supplier, PduDecoder decoder)
+  {
+      checkPduTypeValue(pduTypeValue);
+      if ((supplier == null) || (decoder == null))
+          throw new IllegalArgumentException("[PduFactory] registerPduType(" + pduTypeValue + ") requires supplier and decoder");
+      pduRegistry.set(pduTypeValue, new PduRegistration(supplier, decoder));
+      pooledPduTypeValues.values().remove(pduTypeValue); // pool key learned again on next creation
+  }
+
+  /**
+   * Remove registration for a pduType value, so that such PDUs are counted as unknown
+   * @param pduTypeValue unsigned pduType value, 0..255
+   */
+  public static void unregisterPduType(int pduTypeValue)
+  {
+      checkPduTypeValue(pduTypeValue);
+      pduRegistry.set(pduTypeValue, null);
+      pooledPduTypeValues.values().remove(pduTypeValue);
+  }
+
+  /**
+   * Whether a pduType value has a registered constructor
+   * @param pduTypeValue unsigned pduType value, 0..255
+   * @return whether createPdu() can create this type
+   */
+  public static boolean isPduTypeRegistered(int pduTypeValue)
+  {
+      checkPduTypeValue(pduTypeValue);
+      return pduRegistry.get(pduTypeValue) != null;
+  }
+
+  /**
+   * Report how many PDUs with this pduType value were requested or received without a registration
+   * @param pduTypeValue unsigned pduType value, 0..255
+   * @return count since startup or last reset
+   */
+  public static long getUnknownPduTypeCount(int pduTypeValue)
+  {
+      checkPduTypeValue(pduTypeValue);
+      return unknownPduTypeCounts.get(pduTypeValue);
+  }
+
+  /**
+   * Report how many PDUs were requested or received without a registration for their pduType value
+   * @return total count since startup or last reset
+   */
+  public static long getUnknownPduTypeCount()
+  {
+      long total = 0;
+      for (int pduTypeValue = 0; pduTypeValue < PDU_TYPE_VALUE_COUNT; pduTypeValue++)
+          total += unknownPduTypeCounts.get(pduTypeValue);
+      return total;
+  }
+
+  /** Clear counts of PDUs without registration */
+  public static void resetUnknownPduTypeCounts()
+  {
+      for (int pduTypeValue = 0; pduTypeValue < PDU_TYPE_VALUE_COUNT; pduTypeValue++)
+          unknownPduTypeCounts.set(pduTypeValue, 0);
+  }
+
+  private static void checkPduTypeValue(int pduTypeValue)
+  {
+      if ((pduTypeValue < 0) || (pduTypeValue >= PDU_TYPE_VALUE_COUNT))
+          throw new IllegalArgumentException("[PduFactory] pduType value " + pduTypeValue + " is outside of unsigned byte range 0..255");
+  }
+
   /* ***************************************************/
  /* utility methods*/
   private PduBase addBoilerPlate(PduBase pdu)
@@ -1459,7 +1768,7 @@ public class PduFactory
    * @param data an array of PDU data
    * @return A PDU of the appropriate concrete subclass of PDU or null if there was an error
    */
-  public synchronized Pdu createPdu(byte data[])
+  public Pdu createPdu(byte data[])
   {
     if ((data == null) || (data.length == 0))
         System.err.println ("[PduFactory] createPdu(byte data[]) received null array, unable to determine pduType");
@@ -1468,45 +1777,34 @@ public class PduFactory
   }
 
   /**
-   * PDU builder. Pass in a data buffer, get the correct type of pdu back
-   * based on the PDU type field contained in the underlying array.
+   * PDU builder. Pass in a data buffer positioned at the start of a PDU, get the correct type of pdu back
+   * based on the PDU type field contained in the buffer. Any buffer type is supported, including direct
+   * and read-only buffers such as pooled DatagramChannel receive buffers, since only the bytes between
+   * position and limit are read, without access to a backing array. The buffer position is advanced past the PDU.
    *
    * @param byteBuffer the buffer containing PDU data to input
    * @return A PDU of the appropriate concrete subclass of PDU or null if there was an error
    */
-  public synchronized Pdu createPdu(ByteBuffer byteBuffer)
+  public Pdu createPdu(ByteBuffer byteBuffer)
   {
-    DisPduType pduType;
-    
-    if ((byteBuffer == null) || (byteBuffer.array().length == 0))
+    if ((byteBuffer == null) || (byteBuffer.remaining() <= PDU_TYPE_OFFSET))
     {
-        System.err.println ("[PduFactory] createPdu(ByteBuffer byteBuffer) received empty buffer, unable to determine pduType, using DisPduType.OTHER");
-        pduType = DisPduType.OTHER;
+        System.err.println ("[PduFactory] createPdu(ByteBuffer byteBuffer) received empty buffer, unable to determine pduType, returning null");
+        return null;
     }
-    else pduType = getTypeFromByteArray(byteBuffer.array());
-    
-    return createPdu(pduType, byteBuffer);
+    return createPdu(getTypeValue(byteBuffer), byteBuffer);
   }
 
   /**
-   * Return the enumerated pdu type from a byte array, typically received from the
-   * network.  Returns DisPduType.OTHER if no byteArray provided.
+   * Return the unsigned pduType value of the PDU at the current buffer position, typically received from the network.
+   * An absolute get is used, so that the buffer position is unchanged.
    *
-   * @param byteArray byte array
-   * @return the DisPduType
+   * @param byteBuffer buffer positioned at first byte of the PDU
+   * @return the pduType value, 3rd byte of the PDU header
    */
-  private DisPduType getTypeFromByteArray(byte[] byteArray)
+  private static int getTypeValue(ByteBuffer byteBuffer)
   {
-    DisPduType pduType;
-    
-    if ((byteArray == null) || (byteArray.length == 0))
-    {
-        System.err.println ("[PduFactory] getTypeFromByteArray(byte[] byteArray) received empty byteArray, unable to determine pduType, using DisPduType.OTHER");
-        pduType = DisPduType.OTHER;
-    }
-    else pduType = DisPduType.getEnumForValue(Byte.toUnsignedInt(byteArray[2])); // 3rd byte
-    
-    return pduType;
+    return Byte.toUnsignedInt(byteBuffer.get(byteBuffer.position() + PDU_TYPE_OFFSET)); // 3rd byte
   }
 
   /**
@@ -1514,327 +1812,155 @@ public class PduFactory
    * @param pduType PDU type to create
    * @return the empty pdu
    */
-  public synchronized Pdu createPdu(DisPduType pduType)
+  public Pdu createPdu(DisPduType pduType)
   {
-    return createPdu(pduType, null);
+    return createPdu(pduType.getValue(), null);
   }
 
-  private synchronized Pdu createPdu(DisPduType pduType, ByteBuffer byteBuffer)
+  /**
+   * Create an empty PDU of the given registered type, or one decoded from byteBuffer if provided.
+   * Lookup uses the registry without locking, and a type without registration is counted rather than logged.
+   * @param pduTypeValue unsigned pduType value
+   * @param byteBuffer buffer positioned at first byte of the PDU, or null
+   * @return the pdu, or null if pduTypeValue is not registered
+   */
+  private Pdu createPdu(int pduTypeValue, ByteBuffer byteBuffer)
   {
+    PduRegistration pduRegistration = pduRegistry.get(pduTypeValue);
+    if (pduRegistration == null)
+    {
+        unknownPduTypeCounts.incrementAndGet(pduTypeValue);
+        return null;
+    }
     Pdu aPdu = null;
-    switch (pduType)
+    if (pooled)
     {
-      case OTHER:
-        // NOTE: 'OTHER' is a valid pduTypeEnum, but has no corresponding object
-        System.err.println ("[PduFactory] (DisPduType pduType, ByteBuffer byteBuffer) received DisPduType.OTHER, which has no corresponding object, returning null");
-        break;
-          
-      case ENTITY_STATE:
-        // if the user has created the factory requesting that he get fast espdus back, give him those.
-        aPdu = new EntityStatePdu();
-        break;
-
-      case FIRE:
-        aPdu = new FirePdu();
-        break;
-
-      case DETONATION:
-        aPdu = new DetonationPdu();
-        break;
-
-      case COLLISION:
-        aPdu = new CollisionPdu();
-        break;
-
-      case SERVICE_REQUEST:
-        aPdu = new ServiceRequestPdu();
-        break;
-
-      case RESUPPLY_OFFER:
-        aPdu = new ResupplyOfferPdu();
-        break;
-
-      case RESUPPLY_RECEIVED:
-        aPdu = new ResupplyReceivedPdu();
-        break;
-
-      case RESUPPLY_CANCEL:
-        aPdu = new ResupplyCancelPdu();
-        break;
-
-      case REPAIR_COMPLETE:
-        aPdu = new RepairCompletePdu();
-        break;
-
-      case REPAIR_RESPONSE:
-        aPdu = new RepairResponsePdu();
-        break;
-
-      case CREATE_ENTITY:
-        aPdu = new CreateEntityPdu();
-        break;
-
-      case REMOVE_ENTITY:
-        aPdu = new RemoveEntityPdu();
-        break;
-
-      case START_RESUME:
-        aPdu = new StartResumePdu();
-        break;
-
-      case STOP_FREEZE:
-        aPdu = new StopFreezePdu();
-        break;
-
-      case ACKNOWLEDGE:
-        aPdu = new AcknowledgePdu();
-        break;
-
-      case ACTION_REQUEST:
-        aPdu = new ActionRequestPdu();
-        break;
-
-      case ACTION_RESPONSE:
-        aPdu = new ActionResponsePdu();
-        break;
-
-      case DATA_QUERY:
-        aPdu = new DataQueryPdu();
-        break;
-
-      case SET_DATA:
-        aPdu = new SetDataPdu();
-        break;
-
-      case DATA:
-        aPdu = new DataPdu();
-        break;
-
-      case EVENT_REPORT:
-        aPdu = new EventReportPdu();
-        break;
-
-      case COMMENT:
-        aPdu = new CommentPdu();
-        break;
-
-      case ELECTROMAGNETIC_EMISSION:
-        aPdu = new ElectromagneticEmissionPdu();
-        break;
-
-      case DESIGNATOR:
-        aPdu = new DesignatorPdu();
-        break;
-
-      case TRANSMITTER:
-        aPdu = new TransmitterPdu();
-        break;
-
-      case SIGNAL:
-        aPdu = new SignalPdu();
-        break;
-
-      case RECEIVER:
-        aPdu = new ReceiverPdu();
-        break;
-
-      case IDENTIFICATION_FRIEND_OR_FOE:
-        aPdu = new IFFPdu();
-        break;
-
-      case UNDERWATER_ACOUSTIC:
-        aPdu = new UnderwaterAcousticPdu();
-        break;
-
-      case SUPPLEMENTAL_EMISSION_ENTITY_STATE:
-        aPdu = new SEESPdu();
-        break;
-
-      case INTERCOM_SIGNAL:
-        aPdu = new IntercomSignalPdu();
-        break;
-
-      case INTERCOM_CONTROL:
-        aPdu = new IntercomControlPdu();
-        break;
-
-      case AGGREGATE_STATE:
-        aPdu = new AggregateStatePdu();
-        break;
-
-      case ISGROUPOF:
-        aPdu = new IsGroupOfPdu();
-        break;
-
-      case TRANSFER_OWNERSHIP:
-        aPdu = new TransferOwnershipPdu();
-        break;
-
-      case ISPARTOF:
-        aPdu = new IsPartOfPdu();
-        break;
-
-      case MINEFIELD_STATE:
-        aPdu = new MinefieldStatePdu();
-        break;
-
-      case MINEFIELD_QUERY:
-        aPdu = new MinefieldQueryPdu();
-        break;
-
-      case MINEFIELD_DATA:
-        aPdu = new MinefieldDataPdu();
-        break;
-
-      case MINEFIELD_RESPONSE_NACK:
-        aPdu = new MinefieldResponseNACKPdu();
-        break;
-
-      case ENVIRONMENTAL_PROCESS:
-        aPdu = new EnvironmentalProcessPdu();
-        break;
-
-      case GRIDDED_DATA:
-        aPdu = new GriddedDataPdu();
-        break;
+        ArrayDeque<Pdu> pduPool = pdusPools.get()[pduTypeValue];
+        if (pduPool != null)
+            aPdu = pduPool.poll(); // already reset by release()
+    }
+    if (aPdu == null)
+    {
+        aPdu = pduRegistration.supplier.get();
+        if (pooled)
+            pooledPduTypeValues.putIfAbsent(aPdu.getClass(), pduTypeValue); // pool key for release()
+    }
 
-      case POINT_OBJECT_STATE:
-        aPdu = new PointObjectStatePdu();
-        break;
+    if (byteBuffer != null) {
+        try {
+            aPdu.setLength(pduRegistration.decoder.decode(aPdu, byteBuffer));
+        } 
+        catch (Exception ex) {
+            Logger.getLogger(PduFactory.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+    return aPdu;
+  }
 
-      case LINEAR_OBJECT_STATE:
-        aPdu = new LinearObjectStatePdu();
-        break;
+    /** Size in bytes of the header common to all PDUs: protocol version, exercise ID, PDU type, protocol family,
+     * timestamp, length, PDU status and padding */
+    public static final int PDU_HEADER_SIZE = 12;
 
-      case AREAL_OBJECT_STATE:
-        aPdu = new ArealObjectStatePdu();
-        break;
+    /** Offset of the PDU type byte within the PDU header */
+    private static final int PDU_TYPE_OFFSET   = 2;
 
-      case TIME_SPACE_POSITION_INFORMATION:
-        aPdu = new TSPIPdu();
-        break;
+    /** Offset of the unsigned 16-bit PDU length field within the PDU header */
+    private static final int PDU_LENGTH_OFFSET = 8;
 
-      case APPEARANCE:
-        aPdu = new AppearancePdu();
-        break;
+    /**
+     * Callback receiving each PDU record found in a bundle, in place within the received buffer.
+     * Typically used to wrap a flyweight view such as EntityStatePduView without unmarshalling.
+     * @see edu.nps.moves.dis7.pdus.ByteBufferView
+     */
+    @FunctionalInterface
+    public interface PduRecordVisitor
+    {
+        /**
+         * Visit one PDU record
+         * @param pduTypeValue unsigned pduType value from record header
+         * @param byteBuffer buffer holding the bundle, position and limit unchanged
+         * @param offset index of first byte of the record within byteBuffer
+         * @param length record length in bytes, from the PDU header
+         */
+        void visit(int pduTypeValue, ByteBuffer byteBuffer, int offset, int length);
+    }
 
-      case ARTICULATED_PARTS:
-        aPdu = new ArticulatedPartsPdu();
-        break;
+    /**
+     * Provide length of the bundled PDU record starting at offset, as reported by its header.
+     * @param bundle buffer holding the bundle
+     * @param offset index of first byte of the record
+     * @param limit index following last byte of the bundle
+     * @return record length in bytes, or -1 if no complete record remains (trailing padding or truncated data)
+     */
+    private static int getBundledPduLength(ByteBuffer bundle, int offset, int limit)
+    {
+        if (limit - offset < PDU_HEADER_SIZE)
+            return -1; // too short for another PDU header, might simply be padding
+        int length = Short.toUnsignedInt(bundle.getShort(offset + PDU_LENGTH_OFFSET));
+        if ((length < PDU_HEADER_SIZE) || (length > limit - offset))
+            return -1; // zero padding, or corrupt or truncated record
+        return length;
+    }
 
-      case LIVE_ENTITY_FIRE:
-        aPdu = new LEFirePdu();
-        break;
+    /**
+     * Walk datagram contents with bundled PDUs, handing each record to the visitor in place.
+     * Records are stepped through using the length field of each PDU header, reading the
+     * buffer with absolute gets, so that nothing is copied or allocated and the buffer
+     * position and limit are left unchanged. Walking stops at the first incomplete record,
+     * which includes any trailing zero padding.
+     *
+     * @param bundle buffer holding one or more PDUs between its position and limit
+     * @param visitor callback receiving each record
+     * @return number of records visited
+     */
+    public int visitPdusInBundle(ByteBuffer bundle, PduRecordVisitor visitor)
+    {
+        int limit  = bundle.limit();
+        int offset = bundle.position();
+        int count  = 0;
+        int length;
+        while ((length = getBundledPduLength(bundle, offset, limit)) > 0)
+        {
+            int pduTypeValue = Byte.toUnsignedInt(bundle.get(offset + PDU_TYPE_OFFSET));
+            visitor.visit(pduTypeValue, bundle, offset, length);
+            offset += length;
+            count++;
+        }
+        return count;
+    }
 
-      case LIVE_ENTITY_DETONATION:
-        aPdu = new LEDetonationPdu();
-        break;
-
-      case CREATE_ENTITY_RELIABLE:
-        aPdu = new CreateEntityReliablePdu();
-        break;
-
-      case REMOVE_ENTITY_RELIABLE:
-        aPdu = new RemoveEntityReliablePdu();
-        break;
-
-      case START_RESUME_RELIABLE:
-        aPdu = new StartResumeReliablePdu();
-        break;
-
-      case STOP_FREEZE_RELIABLE:
-        aPdu = new StopFreezeReliablePdu();
-        break;
-
-      case ACKNOWLEDGE_RELIABLE:
-        aPdu = new AcknowledgeReliablePdu();
-        break;
-
-      case ACTION_REQUEST_RELIABLE:
-        aPdu = new ActionRequestReliablePdu();
-        break;
-
-      case ACTION_RESPONSE_RELIABLE:
-        aPdu = new ActionResponseReliablePdu();
-        break;
-
-      case DATA_QUERY_RELIABLE:
-        aPdu = new DataQueryReliablePdu();
-        break;
-
-      case SET_DATA_RELIABLE:
-        aPdu = new SetDataReliablePdu();
-        break;
-
-      case DATA_RELIABLE:
-        aPdu = new DataReliablePdu();
-        break;
-
-      case EVENT_REPORT_RELIABLE:
-        aPdu = new EventReportReliablePdu();
-        break;
-
-      case COMMENT_RELIABLE:
-        aPdu = new CommentReliablePdu();
-        break;
-
-      case RECORD_RELIABLE:
-        aPdu = new RecordReliablePdu();
-        break;
-
-      case SET_RECORD_RELIABLE:
-        aPdu = new SetRecordReliablePdu();
-        break;
-
-      case RECORD_QUERY_RELIABLE:
-        aPdu = new RecordQueryReliablePdu();
-        break;
-
-      case COLLISION_ELASTIC:
-        aPdu = new CollisionElasticPdu();
-        break;
-
-      case ENTITY_STATE_UPDATE:
-        aPdu = new EntityStateUpdatePdu();
-        break;
-
-      case DIRECTED_ENERGY_FIRE:
-        aPdu = new DirectedEnergyFirePdu();
-        break;
-
-      case ENTITY_DAMAGE_STATUS:
-        aPdu = new EntityDamageStatusPdu();
-        break;
-
-      case INFORMATION_OPERATIONS_ACTION:
-        aPdu = new InformationOperationsActionPdu();
-        break;
-
-      case INFORMATION_OPERATIONS_REPORT:
-        aPdu = new InformationOperationsReportPdu();
-        break;
-
-      case ATTRIBUTE:
-        aPdu = new AttributePdu();
-        break;
-
-      default:
-        System.err.println("[PduFactory] createPdu(DisPduType pduType, ByteBuffer byteBuffer) pduType " + pduType +
-                           " not implemented, returning null");
-    }   // end switch
-
-    if (aPdu != null) {
-      if (byteBuffer != null) {
-          try {
-              aPdu.setLength(aPdu.unmarshal(byteBuffer));
-          } 
-          catch (Exception ex) {
-              Logger.getLogger(PduFactory.class.getName()).log(Level.SEVERE, null, ex);
-          }
-      }
+    /**
+     * Decode datagram contents with bundled PDUs, handing each decoded PDU to the consumer.
+     * Each PDU is unmarshalled directly from the bundle by narrowing the position and limit of
+     * a single duplicate buffer to the record, so no intermediate arrays are created.
+     * Records are stepped through using the length field of each PDU header, thus a record of
+     * unregistered type is counted and skipped without preventing decoding of the records that follow it.
+     * The position and limit of the bundle are left unchanged.
+     *
+     * @param bundle buffer holding one or more PDUs between its position and limit
+     * @param consumer callback receiving each decoded PDU
+     * @return number of PDUs decoded
+     */
+    public int decodePdusFromBundle(ByteBuffer bundle, Consumer<? super Pdu> consumer)
+    {
+        ByteBuffer pduBuffer = bundle.duplicate();
+        int limit  = bundle.limit();
+        int offset = bundle.position();
+        int count  = 0;
+        int length;
+        while ((length = getBundledPduLength(bundle, offset, limit)) > 0)
+        {
+            pduBuffer.limit(offset + length).position(offset);
+            Pdu pdu = createPdu(Byte.toUnsignedInt(bundle.get(offset + PDU_TYPE_OFFSET)), pduBuffer);
+            if (pdu != null)
+            {
+                consumer.accept(pdu);
+                count++;
+            }
+            offset += length;
+        }
+        return count;
     }
-    return aPdu;
-  }
 
     /**
      * Decodes datagram contents with bundled PDUs. As a performance hack DIS may
@@ -1848,86 +1974,21 @@ public class PduFactory
      * @param data a large buffer filled with possible multiple PDUs
      * @param length the size of the multiple PDU buffer
      * @return List of decoded PDUs
+     * @see #decodePdusFromBundle(ByteBuffer, Consumer)
      */
-    public List<Pdu> getPdusFromBundle(byte data[], int length) {
-
+    public List<Pdu> getPdusFromBundle(byte data[], int length)
+    {
         // All the PDUs in this bundle we were able to decode
         List<Pdu> pdus = new ArrayList<>();
-
-        // The start point of a PDU in the data. We advance this by the size
-        // of each PDU as we read it.
-        int pduStartPointInData = 0;
-        byte remaining[];
-        Pdu pdu;
-        int pduLength;
-
-        while (true) {
-            // This is inefficient, but screw it. Give the GC a workout. Create a new
-            // data array from where the last PDU left off to the end of the original
-            // data array. This lets us reuse a bunch of old code.
-
-            remaining = Arrays.copyOfRange(data, pduStartPointInData, length);
-
-            try {
-                // first check remaining byte array for PDU bundle, might simply consist of additional padding
-                if (remaining.length <= 16)
-                {
-                    // remaining byte array is too short, smallest PDU is DisPduType 48 ARTICULATED_PARTS, size 17 bytes
-                    // TODO trace capability
-//                    System.out.println("pduBundle remaining byte array is too short for another PDU, length=" + remaining.length);
-                    break;
-                }
-                else
-                {
-                    boolean remainingNonZeroDataFound = false;
-                    for (byte nextByte : remaining)
-                    {
-                        if (nextByte != 0)
-                        {
-                            remainingNonZeroDataFound = true;
-//                            continue;
-                        }
-                    }
-                    if (!remainingNonZeroDataFound)
-                    {
-                    // TODO trace capability
-//                        System.out.println("pduBundle remaining byte array (length=" + remaining.length + ") is all zeros, ignored");
-                        break;
-                    }
-                }
-                // Decode one PDU
-                pdu = this.createPdu(remaining);
-
-                // If the read is muffed somehow, give up on decoding the rest of
-                // the data
-                if (pdu == null) {
-                    //System.out.println("Stopped reading bundled PDU due to bad PDU");
-                    break;
-                } else // otherwise add it to the list of PDUs we have decoded from this UDP packet
-                {
-                    pdus.add(pdu);
-                }
-
-                // Advance the index to the start of the next PDU
-                pduLength = pdu.getMarshalledSize();
-
-                pduStartPointInData = pduStartPointInData + pduLength;
-
-                //System.out.println("PDUStartPoint:" + pduStartPointInData + " data: " + length);
-                // Have we read all the data?
-                if (pduStartPointInData >= length) {
-                    //System.out.println("Out of data to read" + pduStartPointInData + " data length:" + length);
-                    break;
-                }
-
-            } catch (Exception e) {
-                System.err.println("Problems decoding multiple PDUs in datagram; decoded as may as possible");
-                break;
-            }
-        } // end while
-
+        try {
+            decodePdusFromBundle(ByteBuffer.wrap(data, 0, length), pdus::add);
+        }
+        catch (Exception e) {
+            System.err.println("Problems decoding multiple PDUs in datagram; decoded as may as possible");
+        }
         return pdus;
     }
+
     /**
      * If invoked, notify location of unit test (which is located outside of the jar distribution).
      * @param args none supported
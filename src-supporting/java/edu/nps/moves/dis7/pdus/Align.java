@@ -159,6 +159,123 @@ public class Align
       return pad;
   }
 
+  /* ******** Position-relative ByteBuffer alignment ************* */
+  /** Align bits to byteBuffer, relative to start of the record or Pdu being marshalled,
+   * so that results do not depend on where the record is placed within the buffer
+   * @param startPosition buffer position of first byte of the record
+   * @param byteBuffer output
+   * @return padded integer
+  */
+  static public int to16bits(int startPosition, ByteBuffer byteBuffer)
+  {
+      return putPadding(byteBuffer, (2 - (byteBuffer.position() - startPosition) % 2) % 2);
+  }
+
+  /** Align bits to byteBuffer, relative to start of the record or Pdu being marshalled
+   * @param startPosition buffer position of first byte of the record
+   * @param byteBuffer output
+   * @return padded integer
+  */
+  static public int to32bits(int startPosition, ByteBuffer byteBuffer)
+  {
+      return putPadding(byteBuffer, (4 - (byteBuffer.position() - startPosition) % 4) % 4);
+  }
+
+  /** Align bits to byteBuffer, relative to start of the record or Pdu being marshalled
+   * @param startPosition buffer position of first byte of the record
+   * @param byteBuffer output
+   * @return padded integer
+  */
+  static public int to64bits(int startPosition, ByteBuffer byteBuffer)
+  {
+      return putPadding(byteBuffer, (8 - (byteBuffer.position() - startPosition) % 8) % 8);
+  }
+
+  /** Align bits to DataOutputStream, relative to start of the record or Pdu being marshalled,
+   * matching to16bits(int, ByteBuffer) so that both marshal methods write the same bytes
+   * @param startSize dos.size() before first byte of the record
+   * @param dos DataOutputStream output
+   * @return padded integer
+  */
+  static public int to16bits(int startSize, DataOutputStream dos)
+  {
+      return writePadding(dos, (2 - (dos.size() - startSize) % 2) % 2);
+  }
+
+  /** Align bits to DataOutputStream, relative to start of the record or Pdu being marshalled
+   * @param startSize dos.size() before first byte of the record
+   * @param dos DataOutputStream output
+   * @return padded integer
+  */
+  static public int to32bits(int startSize, DataOutputStream dos)
+  {
+      return writePadding(dos, (4 - (dos.size() - startSize) % 4) % 4);
+  }
+
+  /** Align bits to DataOutputStream, relative to start of the record or Pdu being marshalled
+   * @param startSize dos.size() before first byte of the record
+   * @param dos DataOutputStream output
+   * @return padded integer
+  */
+  static public int to64bits(int startSize, DataOutputStream dos)
+  {
+      return writePadding(dos, (8 - (dos.size() - startSize) % 8) % 8);
+  }
+
+  /** Align bits from byteBuffer, relative to start of the record or Pdu being unmarshalled.
+   * Padding missing at the limit of the buffer is tolerated.
+   * @param startPosition buffer position of first byte of the record
+   * @param byteBuffer input
+   * @return padded integer
+  */
+  static public int from16bits(int startPosition, ByteBuffer byteBuffer)
+  {
+      return skipPadding(byteBuffer, (2 - (byteBuffer.position() - startPosition) % 2) % 2);
+  }
+
+  /** Align bits from byteBuffer, relative to start of the record or Pdu being unmarshalled.
+   * Padding missing at the limit of the buffer is tolerated.
+   * @param startPosition buffer position of first byte of the record
+   * @param byteBuffer input
+   * @return padded integer
+  */
+  static public int from32bits(int startPosition, ByteBuffer byteBuffer)
+  {
+      return skipPadding(byteBuffer, (4 - (byteBuffer.position() - startPosition) % 4) % 4);
+  }
+
+  /** Align bits from byteBuffer, relative to start of the record or Pdu being unmarshalled.
+   * Padding missing at the limit of the buffer is tolerated.
+   * @param startPosition buffer position of first byte of the record
+   * @param byteBuffer input
+   * @return padded integer
+  */
+  static public int from64bits(int startPosition, ByteBuffer byteBuffer)
+  {
+      return skipPadding(byteBuffer, (8 - (byteBuffer.position() - startPosition) % 8) % 8);
+  }
+
+  static private int putPadding(ByteBuffer byteBuffer, int pad)
+  {
+      for (int i = 0; i < pad; i++)
+          byteBuffer.put((byte)0);
+      return pad;
+  }
+
+  static private int writePadding(DataOutputStream dos, int pad)
+  {
+      for (int i = 0; i < pad; i++)
+          dosWrite(dos);
+      return pad;
+  }
+
+  static private int skipPadding(ByteBuffer byteBuffer, int pad)
+  {
+      pad = Math.min(pad, byteBuffer.remaining());
+      byteBuffer.position(byteBuffer.position() + pad);
+      return pad;
+  }
+
   static private void disRead(DataInputStream dis)
   {
       try {
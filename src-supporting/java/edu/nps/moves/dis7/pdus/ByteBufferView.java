@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.pdus;
+
+import java.nio.ByteBuffer;
+
+/**
+ * ByteBufferView is the superclass of autogenerated flyweight view classes, such as EntityStatePduView.
+ * A view wraps marshalled bytes at a given offset and reads fields directly from their wire offsets,
+ * without unmarshalling or allocating a Pdu object graph. Absolute reads are used, so the position
+ * of the wrapped ByteBuffer is never changed. DIS is big-endian, which is the ByteBuffer default byte order.
+ * A view instance is not thread safe, but it can be rewrapped and reused for each received packet.
+ */
+public abstract class ByteBufferView
+{
+    /** wrapped buffer, or null if not yet wrapped */
+    protected ByteBuffer byteBuffer;
+
+    /** index of first byte of the wrapped record or Pdu within byteBuffer */
+    protected int offset;
+
+    /** default constructor */
+    protected ByteBufferView()
+    {
+    }
+
+    /**
+     * Point this view at marshalled data
+     * @param byteBuffer buffer containing marshalled data
+     * @param offset index of first byte of the record or Pdu within byteBuffer
+     * @return same object to permit progressive setters
+     */
+    public ByteBufferView wrap(ByteBuffer byteBuffer, int offset)
+    {
+        this.byteBuffer = byteBuffer;
+        this.offset     = offset;
+        return this;
+    }
+
+    /**
+     * Provide wrapped buffer
+     * @return wrapped buffer, or null if not yet wrapped
+     */
+    public ByteBuffer getByteBuffer()
+    {
+        return byteBuffer;
+    }
+
+    /**
+     * Provide offset of wrapped data
+     * @return index of first byte of the record or Pdu within wrapped buffer
+     */
+    public int getOffset()
+    {
+        return offset;
+    }
+
+    /**
+     * Read an unsigned enumeration or bitfield value of 1, 2 or 4 bytes
+     * @param fieldOffset offset of field relative to start of wrapped data
+     * @param size marshalled size of field in bytes
+     * @return unsigned value, or raw bit pattern for 4-byte fields
+     */
+    protected int readUnsigned(int fieldOffset, int size)
+    {
+        switch (size)
+        {
+            case 1:
+                return byteBuffer.get(offset + fieldOffset) & 0xFF;
+            case 2:
+                return byteBuffer.getShort(offset + fieldOffset) & 0xFFFF;
+            default:
+                return byteBuffer.getInt(offset + fieldOffset);
+        }
+    }
+}
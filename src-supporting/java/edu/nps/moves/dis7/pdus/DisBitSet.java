@@ -8,21 +8,30 @@ package edu.nps.moves.dis7.pdus;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.Serializable;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 import java.util.BitSet;
+import java.util.stream.IntStream;
 
 /**
-  * This class is backed by a Java library class, {@link java.util.BitSet}.  That class exports its
-  * byte array contents in little-endian order (least significant byte first).  The DIS spec requires
-  * the opposite, which is the default for "network byte order".
+  * This class is the superclass of autogenerated DIS bitfield classes, such as appearance and capabilities records.
+  * Bits are held in a single primitive long, with bit position 0 as least significant bit, so that
+  * marshalling and unmarshalling are a single big-endian ("network byte order") read or write of 1, 2, 4 or 8 bytes
+  * and do not allocate. The public methods of {@link java.util.BitSet}, which previously backed this class, are provided
+  * with the same names and semantics, except that a bitfield holds at most bit length bits: setting or flipping a bit
+  * at or beyond bit length throws IndexOutOfBoundsException, and bits of other sets beyond bit length are ignored.
+  * Use toBitSet() where a java.util.BitSet is required.
 */
-public abstract class DisBitSet extends BitSet implements Marshaller
+public abstract class DisBitSet implements Marshaller, Cloneable, Serializable
 {
     /** size parameter */
     private final int  bitLength;
     /** size parameter */
     private final int byteLength;
+    /** mask of bits within bitLength */
+    private final long lengthMask;
+    /** bit values, bit position 0 is least significant bit */
+    private long value;
 
     /**
      * Constructor
@@ -30,9 +39,9 @@ public abstract class DisBitSet extends BitSet implements Marshaller
      */
     public DisBitSet(int length)
     {
-        super(length); // length from bitfield element
-        bitLength = length;
+        bitLength = length; // length from bitfield element
         byteLength = (bitLength + Byte.SIZE - 1) / Byte.SIZE;
+        lengthMask = calculateLongMask(0, bitLength);
     }
 
     /**
@@ -43,11 +52,7 @@ public abstract class DisBitSet extends BitSet implements Marshaller
      */
     protected static int calculateMask(int position, int length)
     {
-        int result = 0;
-        for (int i = position; i < position + length; i++) {
-            result |= (1 << i);
-        }
-        return result;
+        return (int) calculateLongMask(position, length);
     }
 
     /**
@@ -57,11 +62,13 @@ public abstract class DisBitSet extends BitSet implements Marshaller
      */
     protected static int calculateMask(int length)
     {
-        int ret = 0;
-        for (int i = 0; i < length; i++) {
-            ret |= 1 << i;
-        }
-        return ret;
+        return (int) calculateLongMask(0, length);
+    }
+
+    private static long calculateLongMask(int position, int length)
+    {
+        long mask = (length >= Long.SIZE) ? -1L : ((1L << length) - 1);
+        return mask << position;
     }
 
     /**
@@ -72,15 +79,425 @@ public abstract class DisBitSet extends BitSet implements Marshaller
      */
     protected void setbits(int position, int length, int value)
     {
-        try {
-            for (int i = position, j = 0; i < position + length; i++, j++) {
-                boolean isset = (value & (1 << j)) != 0;
-                set(i, i + 1, isset); // BitSet class
-            }
-        }
-        catch (Throwable t) {
-            showError(t);
-        }
+        long mask = calculateLongMask(position, length);
+        this.value = ((this.value & ~mask) | (((long) value << position) & mask)) & lengthMask;
+    }
+
+    /**
+     * Accessor method to get bits
+     * @param position in this DisBitSet
+     * @param length number of bits
+     * @return unsigned value of bits
+     */
+    protected int getbits(int position, int length)
+    {
+        return (int) ((value & calculateLongMask(position, length)) >>> position);
+    }
+
+    /**
+     * Accessor method to get all bits
+     * @return bit values, bit position 0 is least significant bit
+     */
+    public long getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Accessor method to set all bits
+     * @param newValue bit values, bit position 0 is least significant bit, bits beyond bit length are ignored
+     */
+    public void setValue(long newValue)
+    {
+        value = newValue & lengthMask;
+    }
+
+    /**
+     * Number of bits in this bitfield
+     * @return bit length from bitfield element
+     */
+    public int getBitLength()
+    {
+        return bitLength;
+    }
+
+    /**
+     * Get value of bit
+     * @param bitIndex bit position
+     * @return whether set, false at or beyond bit length
+     * @throws IndexOutOfBoundsException if bitIndex is negative
+     */
+    public boolean get(int bitIndex)
+    {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+        return (bitIndex < Long.SIZE) && ((value & (1L << bitIndex)) != 0);
+    }
+
+    /**
+     * Get values of a range of bits
+     * @param fromIndex first bit position
+     * @param toIndex bit position after last bit
+     * @return new BitSet holding bits fromIndex (inclusive) to toIndex (exclusive) at positions starting from 0
+     * @throws IndexOutOfBoundsException if fromIndex is negative or larger than toIndex
+     */
+    public BitSet get(int fromIndex, int toIndex)
+    {
+        return BitSet.valueOf(new long[] { (value & rangeMask(fromIndex, toIndex)) >>> Math.min(fromIndex, Long.SIZE - 1) });
+    }
+
+    /**
+     * Set bit to true
+     * @param bitIndex bit position
+     * @throws IndexOutOfBoundsException if bitIndex is negative, or not less than bit length
+     */
+    public void set(int bitIndex)
+    {
+        set(bitIndex, true);
+    }
+
+    /**
+     * Set bit to given value
+     * @param bitIndex bit position
+     * @param bitValue new value
+     * @throws IndexOutOfBoundsException if bitIndex is negative, or not less than bit length
+     */
+    public void set(int bitIndex, boolean bitValue)
+    {
+        checkIndex(bitIndex);
+        setbits(bitIndex, 1, bitValue ? 1 : 0);
+    }
+
+    /**
+     * Set a range of bits to true
+     * @param fromIndex first bit position
+     * @param toIndex bit position after last bit
+     * @throws IndexOutOfBoundsException if fromIndex is negative or larger than toIndex, or toIndex is larger than bit length
+     */
+    public void set(int fromIndex, int toIndex)
+    {
+        set(fromIndex, toIndex, true);
+    }
+
+    /**
+     * Set a range of bits to given value
+     * @param fromIndex first bit position
+     * @param toIndex bit position after last bit
+     * @param bitValue new value
+     * @throws IndexOutOfBoundsException if fromIndex is negative or larger than toIndex, or toIndex is larger than bit length
+     */
+    public void set(int fromIndex, int toIndex, boolean bitValue)
+    {
+        checkRange(fromIndex, toIndex);
+        long mask = rangeMask(fromIndex, toIndex);
+        value = bitValue ? (value | mask) : (value & ~mask);
+    }
+
+    /**
+     * Set bit to false
+     * @param bitIndex bit position, no effect at or beyond bit length
+     * @throws IndexOutOfBoundsException if bitIndex is negative
+     */
+    public void clear(int bitIndex)
+    {
+        if (bitIndex < 0)
+            throw new IndexOutOfBoundsException("bitIndex < 0: " + bitIndex);
+        if (bitIndex < bitLength)
+            set(bitIndex, false);
+    }
+
+    /**
+     * Set a range of bits to false
+     * @param fromIndex first bit position
+     * @param toIndex bit position after last bit, bits at or beyond bit length are not affected
+     * @throws IndexOutOfBoundsException if fromIndex is negative or larger than toIndex
+     */
+    public void clear(int fromIndex, int toIndex)
+    {
+        value &= ~rangeMask(fromIndex, toIndex);
+    }
+
+    /** Set all bits to false */
+    public void clear()
+    {
+        value = 0L;
+    }
+
+    /**
+     * Set bit to its complement
+     * @param bitIndex bit position
+     * @throws IndexOutOfBoundsException if bitIndex is negative, or not less than bit length
+     */
+    public void flip(int bitIndex)
+    {
+        checkIndex(bitIndex);
+        value ^= 1L << bitIndex;
+    }
+
+    /**
+     * Set a range of bits to their complement
+     * @param fromIndex first bit position
+     * @param toIndex bit position after last bit
+     * @throws IndexOutOfBoundsException if fromIndex is negative or larger than toIndex, or toIndex is larger than bit length
+     */
+    public void flip(int fromIndex, int toIndex)
+    {
+        checkRange(fromIndex, toIndex);
+        value ^= rangeMask(fromIndex, toIndex);
+    }
+
+    /**
+     * Logical AND of this bitfield with another
+     * @param set bits to AND with
+     */
+    public void and(DisBitSet set)
+    {
+        value &= set.value;
+    }
+
+    /**
+     * Logical AND of this bitfield with a BitSet
+     * @param set bits to AND with
+     */
+    public void and(BitSet set)
+    {
+        value &= firstWord(set);
+    }
+
+    /**
+     * Logical OR of this bitfield with another
+     * @param set bits to OR with, bits beyond bit length are ignored
+     */
+    public void or(DisBitSet set)
+    {
+        setValue(value | set.value);
+    }
+
+    /**
+     * Logical OR of this bitfield with a BitSet
+     * @param set bits to OR with, bits beyond bit length are ignored
+     */
+    public void or(BitSet set)
+    {
+        setValue(value | firstWord(set));
+    }
+
+    /**
+     * Logical XOR of this bitfield with another
+     * @param set bits to XOR with, bits beyond bit length are ignored
+     */
+    public void xor(DisBitSet set)
+    {
+        setValue(value ^ set.value);
+    }
+
+    /**
+     * Logical XOR of this bitfield with a BitSet
+     * @param set bits to XOR with, bits beyond bit length are ignored
+     */
+    public void xor(BitSet set)
+    {
+        setValue(value ^ firstWord(set));
+    }
+
+    /**
+     * Clear all bits of this bitfield that are set in another
+     * @param set bits to clear
+     */
+    public void andNot(DisBitSet set)
+    {
+        value &= ~set.value;
+    }
+
+    /**
+     * Clear all bits of this bitfield that are set in a BitSet
+     * @param set bits to clear
+     */
+    public void andNot(BitSet set)
+    {
+        value &= ~firstWord(set);
+    }
+
+    /**
+     * Whether any bit set in this bitfield is also set in another
+     * @param set bits to test
+     * @return true if this bitfield intersects set
+     */
+    public boolean intersects(DisBitSet set)
+    {
+        return (value & set.value) != 0L;
+    }
+
+    /**
+     * Whether any bit set in this bitfield is also set in a BitSet
+     * @param set bits to test
+     * @return true if this bitfield intersects set
+     */
+    public boolean intersects(BitSet set)
+    {
+        return (value & firstWord(set)) != 0L;
+    }
+
+    /**
+     * Whether no bits are set
+     * @return true if all bits are false
+     */
+    public boolean isEmpty()
+    {
+        return value == 0L;
+    }
+
+    /**
+     * Number of bits set to true
+     * @return count of set bits
+     */
+    public int cardinality()
+    {
+        return Long.bitCount(value);
+    }
+
+    /**
+     * Logical size, as for BitSet
+     * @return index of highest set bit plus one, or zero if no bits are set
+     */
+    public int length()
+    {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Number of bits of space actually in use to represent bit values, which for a bitfield is its bit length
+     * @return bit length from bitfield element
+     */
+    public int size()
+    {
+        return bitLength;
+    }
+
+    /**
+     * Find first bit set to true at or after a bit position
+     * @param fromIndex bit position to start from
+     * @return index of next set bit, or -1 if there is none
+     * @throws IndexOutOfBoundsException if fromIndex is negative
+     */
+    public int nextSetBit(int fromIndex)
+    {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        long bits = (fromIndex < Long.SIZE) ? (value & (-1L << fromIndex)) : 0L;
+        return (bits == 0L) ? -1 : Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Find first bit set to false at or after a bit position
+     * @param fromIndex bit position to start from
+     * @return index of next clear bit, which may be at or beyond bit length
+     * @throws IndexOutOfBoundsException if fromIndex is negative
+     */
+    public int nextClearBit(int fromIndex)
+    {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        if (fromIndex >= Long.SIZE)
+            return fromIndex;
+        long bits = ~value & (-1L << fromIndex);
+        return (bits == 0L) ? Long.SIZE : Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Find nearest bit set to true at or before a bit position
+     * @param fromIndex bit position to start from
+     * @return index of previous set bit, or -1 if there is none
+     * @throws IndexOutOfBoundsException if fromIndex is less than -1
+     */
+    public int previousSetBit(int fromIndex)
+    {
+        if (fromIndex < -1)
+            throw new IndexOutOfBoundsException("fromIndex < -1: " + fromIndex);
+        long bits = value & calculateLongMask(0, Math.min(fromIndex + 1, Long.SIZE));
+        return (bits == 0L) ? -1 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(bits));
+    }
+
+    /**
+     * Find nearest bit set to false at or before a bit position
+     * @param fromIndex bit position to start from
+     * @return index of previous clear bit, or -1 if there is none
+     * @throws IndexOutOfBoundsException if fromIndex is less than -1
+     */
+    public int previousClearBit(int fromIndex)
+    {
+        if (fromIndex < -1)
+            throw new IndexOutOfBoundsException("fromIndex < -1: " + fromIndex);
+        if (fromIndex >= Long.SIZE)
+            return fromIndex;
+        long bits = ~value & calculateLongMask(0, fromIndex + 1);
+        return (bits == 0L) ? -1 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(bits));
+    }
+
+    /**
+     * Stream of indices of set bits, in increasing order
+     * @return indices of bits set to true
+     */
+    public IntStream stream()
+    {
+        return IntStream.iterate(nextSetBit(0), bitIndex -> bitIndex >= 0, bitIndex -> nextSetBit(bitIndex + 1));
+    }
+
+    /**
+     * Bits as little-endian array of bytes, as BitSet.toByteArray() provides; marshallCommon() provides wire order
+     * @return bytes up to highest set bit
+     */
+    public byte[] toByteArray()
+    {
+        return toBitSet().toByteArray();
+    }
+
+    /**
+     * Bits as array of longs, as BitSet.toLongArray() provides
+     * @return empty array if no bits are set, otherwise a single long equal to getValue()
+     */
+    public long[] toLongArray()
+    {
+        return (value == 0L) ? new long[0] : new long[] { value };
+    }
+
+    /**
+     * Copy bits into a new BitSet, for use where a java.util.BitSet is required
+     * @return new BitSet with the same bits set
+     */
+    public BitSet toBitSet()
+    {
+        return BitSet.valueOf(new long[] { value });
+    }
+
+    private void checkIndex(int bitIndex)
+    {
+        if ((bitIndex < 0) || (bitIndex >= bitLength))
+            throw new IndexOutOfBoundsException("bitIndex " + bitIndex + " outside bit length " + bitLength);
+    }
+
+    private void checkRange(int fromIndex, int toIndex)
+    {
+        if (toIndex > bitLength)
+            throw new IndexOutOfBoundsException("toIndex " + toIndex + " beyond bit length " + bitLength);
+    }
+
+    /** Mask of bits fromIndex (inclusive) to toIndex (exclusive) within bit length */
+    private long rangeMask(int fromIndex, int toIndex)
+    {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        if (fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + " > toIndex: " + toIndex);
+        int from = Math.min(fromIndex, Long.SIZE);
+        return calculateLongMask(from, Math.min(toIndex, Long.SIZE) - from) & lengthMask;
+    }
+
+    /** Bits 0 to 63 of a BitSet */
+    private static long firstWord(BitSet set)
+    {
+        long[] words = set.toLongArray();
+        return (words.length == 0) ? 0L : words[0];
     }
 
   /**
@@ -101,7 +518,23 @@ public abstract class DisBitSet extends BitSet implements Marshaller
     public void marshal(DataOutputStream dos)
     {
         try {
-            dos.write(marshallCommon());
+            switch (byteLength)
+            {
+                case 1:
+                    dos.writeByte((int) value);
+                    break;
+                case 2:
+                    dos.writeShort((int) value);
+                    break;
+                case 4:
+                    dos.writeInt((int) value);
+                    break;
+                case 8:
+                    dos.writeLong(value);
+                    break;
+                default:
+                    dos.write(marshallCommon());
+            }
         }
         catch (IOException ex) {
             System.out.println(ex.getClass().getSimpleName() + ": " + ex.getMessage());
@@ -114,22 +547,35 @@ public abstract class DisBitSet extends BitSet implements Marshaller
     @Override
     public void marshal(ByteBuffer byteBuffer)
     {
-        byteBuffer.put(marshallCommon());
+        switch (byteLength)
+        {
+            case 1:
+                byteBuffer.put((byte) value);
+                break;
+            case 2:
+                byteBuffer.putShort((short) value);
+                break;
+            case 4:
+                byteBuffer.putInt((int) value);
+                break;
+            case 8:
+                byteBuffer.putLong(value);
+                break;
+            default:
+                byteBuffer.put(marshallCommon());
+        }
     }
 
-    /** Marshal value to ByteBuffer
+    /** Marshal value to byte array
      * @see <a href="https://en.wikipedia.org/wiki/Marshalling_(computer_science)" target="_blank">https://en.wikipedia.org/wiki/Marshalling_(computer_science)</a>
      * @see <a href="https://en.wikipedia.org/wiki/Endianness" target="_blank">https://en.wikipedia.org/wiki/Endianness</a>
-     * @return Little-Endian byte array, network byte order requires reverse */
+     * @return Big-Endian byte array in network byte order */
     public byte[] marshallCommon()
     {
-        byte[] byteArray = toByteArray();
-        // BitSet does not return an array equal in size to that passed to the constructor--it may be smaller.
-        // This will put 0's at the end
-        if (byteArray.length < byteLength)
-            byteArray = Arrays.copyOf(byteArray, byteLength);
-
-        return reverse(byteArray); // BitSet will return Little-Endian array, network byte order requires reverse
+        byte[] byteArray = new byte[byteLength];
+        for (int i = 0; i < byteLength; i++)
+            byteArray[byteLength - 1 - i] = (byte) (value >>> (i * Byte.SIZE));
+        return byteArray;
     }
 
     /**
@@ -143,9 +589,25 @@ public abstract class DisBitSet extends BitSet implements Marshaller
     public int unmarshal(DataInputStream dis)
     {
         try {
-            byte[] ba = new byte[byteLength];
-            dis.readFully(ba);
-            unmarshalCommon(ba);
+            switch (byteLength)
+            {
+                case 1:
+                    setValue(dis.readUnsignedByte());
+                    break;
+                case 2:
+                    setValue(dis.readUnsignedShort());
+                    break;
+                case 4:
+                    setValue(Integer.toUnsignedLong(dis.readInt()));
+                    break;
+                case 8:
+                    setValue(dis.readLong());
+                    break;
+                default:
+                    byte[] ba = new byte[byteLength];
+                    dis.readFully(ba);
+                    unmarshalCommon(ba);
+            }
         }
         catch (IOException ex) {
             showError(ex);
@@ -162,43 +624,91 @@ public abstract class DisBitSet extends BitSet implements Marshaller
     @Override
     public int unmarshal(ByteBuffer byteBuffer)
     {
-        byte[] ba = new byte[byteLength];
-        byteBuffer.get(ba);
-        unmarshalCommon(ba);
-        
+        switch (byteLength)
+        {
+            case 1:
+                setValue(Byte.toUnsignedLong(byteBuffer.get()));
+                break;
+            case 2:
+                setValue(Short.toUnsignedLong(byteBuffer.getShort()));
+                break;
+            case 4:
+                setValue(Integer.toUnsignedLong(byteBuffer.getInt()));
+                break;
+            case 8:
+                setValue(byteBuffer.getLong());
+                break;
+            default:
+                byte[] ba = new byte[byteLength];
+                byteBuffer.get(ba);
+                unmarshalCommon(ba);
+        }
         return getMarshalledSize();
     }
 
     /** Deserializes an object from a byte array
      * @see <a href="https://en.wikipedia.org/wiki/Marshalling_(computer_science)" target="_blank">https://en.wikipedia.org/wiki/Marshalling_(computer_science)</a>
      * @see <a href="https://en.wikipedia.org/wiki/Endianness" target="_blank">https://en.wikipedia.org/wiki/Endianness</a>
-     * @param ba byte array of interest */
+     * @param ba Big-Endian byte array of interest */
     private void unmarshalCommon(byte[] ba)
     {
-        reverse(ba); // big endian to little
+        long newValue = 0L;
+        for (byte b : ba)
+            newValue = (newValue << Byte.SIZE) | Byte.toUnsignedLong(b);
+        setValue(newValue);
+    }
 
-        int bitnum = 0;
-        for (int i = 0; i < ba.length; i++) {
-            for (int j = 0; j < Byte.SIZE; j++) {
-                set(bitnum++, isBitSet(ba[i], j));
-            }
+    /**
+     * Create a copy of this object
+     * @return new object of the same class with the same bit values
+     */
+    @Override
+    public DisBitSet clone()
+    {
+        try {
+            return (DisBitSet) super.clone();
+        }
+        catch (CloneNotSupportedException ex) {
+            throw new IllegalStateException(ex); // cannot happen, Cloneable
         }
     }
 
-    private boolean isBitSet(byte b, int bit)
+    /**
+     * Object equality comparison
+     * @param obj object to compare
+     * @return whether same class with same bit values
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+        return (obj != null) && (obj.getClass() == getClass()) && (((DisBitSet) obj).value == value);
+    }
+
+    /**
+     * Provide hash code consistent with equals()
+     * @return hash code
+     */
+    @Override
+    public int hashCode()
     {
-        return (b & (1 << bit)) != 0;
+        return Long.hashCode(value);
     }
 
-    private byte[] reverse(byte[] ba)
+    /**
+     * Provide string representation listing indices of set bits, matching {@link java.util.BitSet#toString()}
+     * @return string representation
+     */
+    @Override
+    public String toString()
     {
-        int len = ba.length;
-        for (int i = 0; i < len / 2; i++) {
-            byte b = ba[i];
-            ba[i] = ba[len - 1 - i];
-            ba[len - 1 - i] = b;
+        StringBuilder sb = new StringBuilder("{");
+        for (long remaining = value; remaining != 0; remaining &= remaining - 1)
+        {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(Long.numberOfTrailingZeros(remaining));
         }
-        return ba;
+        return sb.append('}').toString();
     }
 
     private void showError(Throwable ex)
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.pdus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * PduEncoder provides reusable scratch streams for DataOutputStream marshalling, one instance per thread,
+ * so that Pdu objects do not need to carry their own ByteArrayOutputStream and DataOutputStream.
+ * Each call to begin() discards prior contents, so an encoder must not be used again on the same thread
+ * until the bytes of interest have been retrieved.
+ */
+public final class PduEncoder
+{
+    /** Initial buffer size in bytes, typical maximum size of a Pdu within one Ethernet frame */
+    public static final int INITIAL_BUFFER_SIZE = 1500;
+
+    private static final ThreadLocal<PduEncoder> threadEncoders = ThreadLocal.withInitial(PduEncoder::new);
+
+    private final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+    private final DataOutputStream      dataOutputStream      = new DataOutputStream(byteArrayOutputStream);
+
+    private PduEncoder()
+    {
+    }
+
+    /**
+     * Provide encoder for current thread
+     * @return encoder owned by current thread
+     */
+    public static PduEncoder get()
+    {
+        return threadEncoders.get();
+    }
+
+    /**
+     * Discard prior contents and provide stream for marshalling
+     * @return empty DataOutputStream
+     */
+    public DataOutputStream begin()
+    {
+        byteArrayOutputStream.reset();
+        return dataOutputStream;
+    }
+
+    /**
+     * Number of bytes marshalled since begin()
+     * @return size in bytes
+     */
+    public int size()
+    {
+        return byteArrayOutputStream.size();
+    }
+
+    /**
+     * Provide copy of bytes marshalled since begin()
+     * @return marshalled data
+     */
+    public byte[] toByteArray()
+    {
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Provide bytes marshalled since begin(), ready for unmarshalling
+     * @return ByteBuffer wrapping a copy of marshalled data
+     */
+    public ByteBuffer toByteBuffer()
+    {
+        return ByteBuffer.wrap(byteArrayOutputStream.toByteArray());
+    }
+}
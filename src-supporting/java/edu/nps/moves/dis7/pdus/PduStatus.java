@@ -125,6 +125,23 @@ public class PduStatus
       return value;
     }
 
+    /**
+     * Restore initial value in place, so that the containing Pdu can be reused
+     */
+    public void reset()
+    {
+      value = 0;
+    }
+
+    /**
+     * Create a copy of this object
+     * @return new PduStatus with the same value
+     */
+    public PduStatus copy()
+    {
+      return new PduStatus(value);
+    }
+
   /**
    * Returns size of this serialized (marshalled) object in bytes
    * @see <a href="https://en.wikipedia.org/wiki/Marshalling_(computer_science)" target="_blank">https://en.wikipedia.org/wiki/Marshalling_(computer_science)</a>
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.pdus;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * SynchronizedPdu is a thread-safe wrapper for a Pdu instance shared between threads.
+ * Pdu classes generated with xmlpg.synchronized=false do not lock, since they are normally
+ * owned by a single thread; wrap a Pdu here if it really must be shared.
+ * All access through this wrapper is guarded by a single monitor, which also covers nested records.
+ * @param <T> Pdu type of interest
+ */
+public class SynchronizedPdu<T extends Pdu> implements Marshaller
+{
+    private final T pdu;
+
+    /**
+     * Constructor
+     * @param pdu the shared Pdu instance, which must not be accessed directly afterwards
+     */
+    public SynchronizedPdu(T pdu)
+    {
+        if (pdu == null)
+            throw new IllegalArgumentException("SynchronizedPdu requires non-null pdu");
+        this.pdu = pdu;
+    }
+
+    /**
+     * Read one or more values from the wrapped Pdu while holding the lock
+     * @param <R> result type
+     * @param reader function applied to the wrapped Pdu
+     * @return result of reader
+     */
+    public synchronized <R> R read(Function<? super T, R> reader)
+    {
+        return reader.apply(pdu);
+    }
+
+    /**
+     * Modify the wrapped Pdu while holding the lock
+     * @param writer operation applied to the wrapped Pdu
+     */
+    public synchronized void update(Consumer<? super T> writer)
+    {
+        writer.accept(pdu);
+    }
+
+    @Override
+    public synchronized int getMarshalledSize()
+    {
+        return pdu.getMarshalledSize();
+    }
+
+    @Override
+    public synchronized void marshal(DataOutputStream dos) throws Exception
+    {
+        pdu.marshal(dos);
+    }
+
+    @Override
+    public synchronized int unmarshal(DataInputStream dis) throws Exception
+    {
+        return pdu.unmarshal(dis);
+    }
+
+    @Override
+    public synchronized void marshal(ByteBuffer byteBuffer) throws Exception
+    {
+        pdu.marshal(byteBuffer);
+    }
+
+    @Override
+    public synchronized int unmarshal(ByteBuffer byteBuffer) throws Exception
+    {
+        return pdu.unmarshal(byteBuffer);
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return pdu.toString();
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.pdus;
+
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark of generated copy(), which copies attribute values directly, against the marshal/unmarshal round trips
+ * it replaced: copyByteBuffer(), and copyDataOutputStream() which was the previous copy() implementation.
+ * Run by build.xml target benchmark.pdus against build/classes; results of past runs are kept in PduCopyBenchmarkResults.txt.
+ * Each operation is timed over a number of rounds, the first third of which are discarded as warmup,
+ * and the median of the remaining rounds is reported in nanoseconds per operation.
+ */
+public class PduCopyBenchmark
+{
+    /** Keeps results reachable so that the JIT compiler cannot eliminate the work being timed */
+    static volatile Object sink;
+
+    /** Operation being timed */
+    interface Operation
+    {
+        void run() throws Exception;
+    }
+
+    /** Command-line invocation (CLI)
+     * @param args optional iterations per round, default 200000, and rounds, default 12
+     * @throws Exception if a PDU operation fails */
+    public static void main(String[] args) throws Exception
+    {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : 200_000;
+        int rounds     = (args.length > 1) ? Integer.parseInt(args[1]) : 12;
+
+        EntityStatePdu             entityStatePdu = new EntityStatePdu();
+        FirePdu                    firePdu        = new FirePdu();
+        DetonationPdu              detonationPdu  = new DetonationPdu();
+        TransmitterPdu             transmitterPdu = new TransmitterPdu();
+        ElectromagneticEmissionPdu emissionPdu    = new ElectromagneticEmissionPdu();
+        entityStatePdu.setMarking("BENCH");
+        entityStatePdu.getEntityLocation().setX(1.0).setY(2.0).setZ(3.0);
+        // constructors, copyByteBuffer() and copyDataOutputStream() are declared by each concrete class, so are called directly per class
+        Object[][] cases = {
+            { entityStatePdu, (Supplier<Pdu>) EntityStatePdu::new,
+              (Operation) () -> sink = entityStatePdu.copyByteBuffer(), (Operation) () -> sink = entityStatePdu.copyDataOutputStream() },
+            { firePdu,        (Supplier<Pdu>) FirePdu::new,
+              (Operation) () -> sink = firePdu.copyByteBuffer(),        (Operation) () -> sink = firePdu.copyDataOutputStream() },
+            { detonationPdu,  (Supplier<Pdu>) DetonationPdu::new,
+              (Operation) () -> sink = detonationPdu.copyByteBuffer(),  (Operation) () -> sink = detonationPdu.copyDataOutputStream() },
+            { transmitterPdu, (Supplier<Pdu>) TransmitterPdu::new,
+              (Operation) () -> sink = transmitterPdu.copyByteBuffer(), (Operation) () -> sink = transmitterPdu.copyDataOutputStream() },
+            { emissionPdu,    (Supplier<Pdu>) ElectromagneticEmissionPdu::new,
+              (Operation) () -> sink = emissionPdu.copyByteBuffer(),    (Operation) () -> sink = emissionPdu.copyDataOutputStream() } };
+
+        System.out.println("PduCopyBenchmark: " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version") + ", " +
+                           Runtime.getRuntime().availableProcessors() + " processors, " + iterations + " iterations x " + rounds + " rounds, " +
+                           (Modifier.isSynchronized(EntityStatePdu.class.getMethod("copy").getModifiers()) ? "synchronized" : "unsynchronized") +
+                           " pdu classes");
+        System.out.printf("%-28s %6s %10s %20s %26s %22s%n", "pdu", "bytes", "copy() ns", "copyByteBuffer() ns", "copyDataOutputStream() ns", "marshal+unmarshal ns");
+        ByteBuffer byteBuffer = ByteBuffer.allocate(8192);
+        for (Object[] benchmarkCase : cases)
+        {
+            Pdu pdu = (Pdu) benchmarkCase[0];
+            @SuppressWarnings("unchecked")
+            Supplier<Pdu> constructor = (Supplier<Pdu>) benchmarkCase[1];
+            double copy                 = median(time(() -> sink = pdu.copy(), iterations, rounds));
+            double copyByteBuffer       = median(time((Operation) benchmarkCase[2], iterations, rounds));
+            double copyDataOutputStream = median(time((Operation) benchmarkCase[3], iterations, rounds));
+            double roundTrip            = median(time(() ->
+            {
+                byteBuffer.clear();
+                pdu.marshal(byteBuffer);
+                byteBuffer.flip();
+                Pdu received = constructor.get(); // allocation included, as for copy()
+                received.unmarshal(byteBuffer);
+                sink = received;
+            }, iterations, rounds));
+            System.out.printf("%-28s %6d %10.1f %20.1f %26.1f %22.1f%n", pdu.getClass().getSimpleName(), pdu.getMarshalledSize(),
+                              copy, copyByteBuffer, copyDataOutputStream, roundTrip);
+        }
+    }
+
+    /** @return nanoseconds per operation for each round */
+    static double[] time(Operation operation, int iterations, int rounds) throws Exception
+    {
+        double[] results = new double[rounds];
+        for (int round = 0; round < rounds; round++)
+        {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                operation.run();
+            results[round] = (System.nanoTime() - start) / (double) iterations;
+        }
+        return results;
+    }
+
+    /** @return median of rounds after discarding the first third as warmup */
+    static double median(double[] results)
+    {
+        double[] measured = Arrays.copyOfRange(results, results.length / 3, results.length);
+        Arrays.sort(measured);
+        return measured[measured.length / 2];
+    }
+}
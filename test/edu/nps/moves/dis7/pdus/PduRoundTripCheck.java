@@ -0,0 +1,371 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.pdus;
+
+import edu.nps.moves.dis7.utilities.PduFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Round-trip smoke check over every generated PDU and record class in package edu.nps.moves.dis7.pdus that has
+ * a public no-argument constructor and the marshal(), unmarshal() and getMarshalledSize() methods of Marshaller, run by build.xml target check.pdus after the generated sources compile.
+ * Each object is checked with default values and again after every public primitive and enumeration setter is set:
+ * <ul>
+ *   <li>ByteBuffer marshal then unmarshal into a new object gives an equal object, consuming getMarshalledSize() bytes,</li>
+ *   <li>DataOutputStream marshal writes the same bytes as ByteBuffer marshal, and DataInputStream unmarshal gives an equal object,</li>
+ *   <li>marshalling at a nonzero buffer position writes the same bytes, since padding is relative to the object start,</li>
+ *   <li>MARSHALLED_SIZE, where declared, equals getMarshalledSize(),</li>
+ *   <li>copy() gives an equal, distinct object, and reset() gives an object equal to a newly constructed one,</li>
+ *   <li>PDUs decoded by a pooled PduFactory after release() equal the original, and interned EntityType unmarshal is equal,</li>
+ *   <li>if generated entities are compiled, EntityTypeIndex finds every packed key, and sampled entity classes marshal to
+ *       their packed key and intern to an equal shared EntityType.</li>
+ * </ul>
+ * Exits with status 1 listing each failure, so that a broken template fails the build rather than a downstream user.
+ * Named ...Check rather than ...Test so that NetBeans JUnit batchtest does not pick it up.
+ */
+public class PduRoundTripCheck
+{
+    /** Offset used to check that marshalled bytes do not depend on buffer position */
+    private static final int OFFSET = 3;
+
+    /** Approximate number of generated entity classes loaded by checkEntityTypeIndex(), out of many thousands */
+    private static final int ENTITY_SAMPLE_SIZE = 500;
+
+    private final List<String> failures = new ArrayList<>();
+    private int checkedCount = 0;
+    private int pduCount = 0;
+    private int entityCount = 0;
+
+    /** Command-line invocation (CLI)
+     * @param args optional class names to check, default is all classes found alongside Pdu.class
+     * @throws Exception if class discovery fails */
+    public static void main(String[] args) throws Exception
+    {
+        PduRoundTripCheck check = new PduRoundTripCheck();
+        List<String> classNames = (args.length > 0) ? Arrays.asList(args) : findClassNames();
+        for (String className : classNames)
+        {
+            check.checkClass(Class.forName(className));
+        }
+        check.checkEntityTypeIndex();
+        System.out.println("PduRoundTripCheck: " + check.checkedCount + " classes checked (" + check.pduCount + " PDUs), " +
+                           check.entityCount + " entity types checked, " + check.failures.size() + " failures");
+        for (String failure : check.failures)
+        {
+            System.err.println("  *** " + failure);
+        }
+        if (!check.failures.isEmpty())
+            System.exit(1);
+    }
+
+    /** Names of all top-level classes in the directory or jar holding Pdu.class, in package edu.nps.moves.dis7.pdus */
+    private static List<String> findClassNames() throws Exception
+    {
+        String packagePath = Pdu.class.getPackage().getName().replace('.', '/');
+        URI location = Pdu.class.getProtectionDomain().getCodeSource().getLocation().toURI();
+        File root = new File(location);
+        TreeSet<String> names = new TreeSet<>();
+        if (root.isDirectory())
+        {
+            String[] files = new File(root, packagePath).list();
+            if (files != null)
+                for (String fileName : files)
+                    if (fileName.endsWith(".class") && !fileName.contains("$"))
+                        names.add(packagePath.replace('/', '.') + "." + fileName.substring(0, fileName.length() - ".class".length()));
+        }
+        else try (JarFile jarFile = new JarFile(root))
+        {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements())
+            {
+                String entryName = entries.nextElement().getName();
+                if (entryName.startsWith(packagePath + "/") && entryName.endsWith(".class") && !entryName.contains("$") &&
+                    entryName.indexOf('/', packagePath.length() + 1) < 0)
+                    names.add(entryName.substring(0, entryName.length() - ".class".length()).replace('/', '.'));
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    private void checkClass(Class<?> clazz)
+    {
+        if (clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers()) || !Modifier.isPublic(clazz.getModifiers()))
+            return;
+        try
+        {
+            clazz.getConstructor();
+            clazz.getMethod("getMarshalledSize");
+            clazz.getMethod("marshal",   ByteBuffer.class);
+            clazz.getMethod("unmarshal", ByteBuffer.class);
+            clazz.getMethod("marshal",   DataOutputStream.class);
+            clazz.getMethod("unmarshal", DataInputStream.class);
+        }
+        catch (NoSuchMethodException e)
+        {
+            return;
+        }
+        checkedCount++;
+        if (Pdu.class.isAssignableFrom(clazz))
+            pduCount++;
+        String name = clazz.getSimpleName();
+        try
+        {
+            checkObject(name + " (default values)", newInstance(clazz));
+            Object populated = newInstance(clazz);
+            populate(populated);
+            checkObject(name + " (populated)", populated);
+        }
+        catch (Throwable t)
+        {
+            failures.add(name + ": " + t);
+        }
+    }
+
+    private void checkObject(String label, Object original) throws Exception
+    {
+        int size = (Integer) invoke(original, "getMarshalledSize", null, null);
+        byte[] bytes = marshalByteBuffer(original, 0, size);
+        check(label, "ByteBuffer marshal wrote getMarshalledSize() " + size + " bytes", bytes != null);
+        if (bytes == null)
+            return;
+        check(label, "marshal at buffer offset " + OFFSET + " writes identical bytes", Arrays.equals(bytes, marshalByteBuffer(original, OFFSET, size)));
+
+        try
+        {
+            Field field = original.getClass().getField("MARSHALLED_SIZE");
+            if (Modifier.isStatic(field.getModifiers()))
+                check(label, "MARSHALLED_SIZE " + field.getInt(null) + " equals getMarshalledSize() " + size, field.getInt(null) == size);
+        }
+        catch (NoSuchFieldException e)
+        {
+            // variable-length type, no constant size
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        dos.write(new byte[OFFSET]);
+        invoke(original, "marshal", DataOutputStream.class, dos);
+        dos.flush();
+        byte[] streamBytes = Arrays.copyOfRange(baos.toByteArray(), OFFSET, baos.size());
+        check(label, "DataOutputStream marshal matches ByteBuffer marshal", Arrays.equals(bytes, streamBytes));
+
+        Object fromBuffer = newInstance(original.getClass());
+        ByteBuffer byteBuffer = ByteBuffer.allocate(OFFSET + size);
+        byteBuffer.position(OFFSET);
+        byteBuffer.put(bytes);
+        byteBuffer.position(OFFSET);
+        invoke(fromBuffer, "unmarshal", ByteBuffer.class, byteBuffer);
+        check(label, "ByteBuffer unmarshal consumes getMarshalledSize() bytes", byteBuffer.position() == OFFSET + size);
+        check(label, "ByteBuffer marshal, unmarshal equals original", original.equals(fromBuffer));
+
+        Object fromStream = newInstance(original.getClass());
+        invoke(fromStream, "unmarshal", DataInputStream.class, new DataInputStream(new ByteArrayInputStream(bytes)));
+        check(label, "DataOutputStream marshal, DataInputStream unmarshal equals original", original.equals(fromStream));
+
+        Method copyMethod = findMethod(original.getClass(), "copy");
+        if (copyMethod != null)
+        {
+            Object copy = copyMethod.invoke(original);
+            check(label, "copy() equals original", original.equals(copy) && (copy != original));
+            check(label, "copy() marshals identically", Arrays.equals(bytes, marshalByteBuffer(copy, 0, size)));
+        }
+        Method resetMethod = findMethod(original.getClass(), "reset");
+        if ((resetMethod != null) && (copyMethod != null))
+        {
+            Object copy = copyMethod.invoke(original);
+            resetMethod.invoke(copy);
+            check(label, "reset() equals newly constructed object", newInstance(original.getClass()).equals(copy));
+        }
+
+        if (original instanceof Pdu)
+            checkPduFactory(label, (Pdu) original, bytes);
+        if (original instanceof EntityType)
+        {
+            boolean internOnUnmarshal = EntityType.isInternOnUnmarshal();
+            try
+            {
+                EntityType.setInternOnUnmarshal(true);
+                EntityType interned = new EntityType();
+                interned.unmarshal(ByteBuffer.wrap(bytes));
+                check(label, "interned EntityType unmarshal equals original", original.equals(interned));
+            }
+            finally
+            {
+                EntityType.setInternOnUnmarshal(internOnUnmarshal);
+            }
+        }
+    }
+
+    /** Check generated EntityTypeIndex, if compiled into this classpath, found by reflection since entity
+     * source is not generated when entity jars are compiled directly */
+    private void checkEntityTypeIndex() throws Exception
+    {
+        Class<?> index;
+        try
+        {
+            index = Class.forName("edu.nps.moves.dis7.entities.EntityTypeIndex");
+        }
+        catch (ClassNotFoundException e)
+        {
+            return;
+        }
+        int size = (Integer) index.getMethod("size").invoke(null);
+        Method getPackedType = index.getMethod("getPackedType", int.class);
+        Method indexOf       = index.getMethod("indexOf", long.class);
+        Method getEntityClass = index.getMethod("getEntityClass", long.class);
+        Method packBuffer    = index.getMethod("pack", ByteBuffer.class, int.class);
+        int step = Math.max(1, size / ENTITY_SAMPLE_SIZE);
+        for (int i = 0; i < size; i++)
+        {
+            long packedType = (Long) getPackedType.invoke(null, i);
+            int found = (Integer) indexOf.invoke(null, packedType);
+            check("EntityTypeIndex", "indexOf() finds record " + i + " packed type " + Long.toHexString(packedType),
+                  (found >= 0) && ((Long) getPackedType.invoke(null, found) == packedType));
+            if ((i % step) != 0)
+                continue;
+            Class<?> entityClass = (Class<?>) getEntityClass.invoke(null, packedType);
+            if (entityClass == null)
+                continue; // entity jar not on classpath
+            String label = entityClass.getSimpleName();
+            EntityType entityType = (EntityType) entityClass.getMethod("createInstance").invoke(null);
+            ByteBuffer byteBuffer = ByteBuffer.allocate(entityType.getMarshalledSize());
+            entityType.marshal(byteBuffer);
+            check(label, "marshalled entity type packs to its EntityTypeIndex key", (Long) packBuffer.invoke(null, byteBuffer, 0) == packedType);
+            EntityType interned = EntityType.intern(entityType);
+            check(label, "intern() gives an equal plain EntityType", (interned.getClass() == EntityType.class) && interned.equals(entityType));
+            entityCount++;
+        }
+    }
+
+    /** Decode with a pooled PduFactory twice, releasing the first result, so the second decode reuses a pooled object.
+     * PduFactory sets the length field to the decoded size, so the expected PDU carries that length as well. */
+    private void checkPduFactory(String label, Pdu original, byte[] bytes) throws Exception
+    {
+        Pdu expected = (Pdu) newInstance(original.getClass());
+        expected.unmarshal(ByteBuffer.wrap(bytes));
+        expected.setLength((short) bytes.length);
+        if ((original.getPduType() == null) || (PduFactory.isPduTypeRegistered(original.getPduType().getValue()) == false))
+            return;
+        PduFactory pduFactory = new PduFactory();
+        pduFactory.setPooled(true);
+        Pdu first = pduFactory.createPdu(ByteBuffer.wrap(bytes));
+        if ((first == null) || (first.getClass() != original.getClass()))
+            return; // another class, such as a special case, is registered for this pduType
+        check(label, "PduFactory createPdu() equals original", expected.equals(first));
+        pduFactory.release(first);
+        Pdu second = pduFactory.createPdu(ByteBuffer.wrap(bytes));
+        check(label, "pooled PduFactory createPdu() after release() equals original", expected.equals(second));
+    }
+
+    /** Sets every public single-argument setter taking a primitive or an enumeration to a distinct nonzero value,
+     * other than those for the pduType and protocolFamily that identify the PDU class when decoding,
+     * and those for counts and lengths that must match the variable-length content they describe */
+    private static void populate(Object marshaller)
+    {
+        int value = 1;
+        Method[] methods = marshaller.getClass().getMethods();
+        Arrays.sort(methods, (a, b) -> a.getName().compareTo(b.getName()));
+        for (Method method : methods)
+        {
+            if (!method.getName().startsWith("set") || (method.getParameterCount() != 1) || Modifier.isStatic(method.getModifiers()) ||
+                method.getName().equals("setPduType") || method.getName().equals("setProtocolFamily") ||
+                method.getName().startsWith("setNumberOf") || method.getName().contains("Length"))
+                continue;
+            Class<?> type = method.getParameterTypes()[0];
+            Object argument;
+            if      (type == byte.class)   argument = (byte) value;
+            else if (type == short.class)  argument = (short) value;
+            else if (type == int.class)    argument = value;
+            else if (type == long.class)   argument = (long) value;
+            else if (type == float.class)  argument = value + 0.5f;
+            else if (type == double.class) argument = value + 0.25;
+            else if (type.isEnum() && (type.getEnumConstants().length > 0))
+            {
+                Object[] constants = type.getEnumConstants();
+                argument = constants[value % constants.length];
+            }
+            else continue;
+            try
+            {
+                method.invoke(marshaller, argument);
+                value++;
+            }
+            catch (ReflectiveOperationException | RuntimeException e)
+            {
+                // setter rejects this value, keep the default
+            }
+        }
+    }
+
+    /** @return marshalled bytes, or null if marshalling did not write exactly size bytes */
+    private static byte[] marshalByteBuffer(Object marshaller, int offset, int size) throws Exception
+    {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(offset + size + 64);
+        byteBuffer.position(offset);
+        invoke(marshaller, "marshal", ByteBuffer.class, byteBuffer);
+        if (byteBuffer.position() != offset + size)
+            return null;
+        return Arrays.copyOfRange(byteBuffer.array(), offset, offset + size);
+    }
+
+    private static Method findMethod(Class<?> clazz, String name)
+    {
+        try
+        {
+            return clazz.getMethod(name);
+        }
+        catch (NoSuchMethodException e)
+        {
+            return null;
+        }
+    }
+
+    private static Object newInstance(Class<?> clazz) throws ReflectiveOperationException
+    {
+        return clazz.getConstructor().newInstance();
+    }
+
+    /** Invoke a public method with no or one parameter, records having the methods of Marshaller without implementing it
+     * @return method result
+     * @throws Exception thrown by the method itself */
+    private static Object invoke(Object target, String methodName, Class<?> parameterType, Object argument) throws Exception
+    {
+        try
+        {
+            if (parameterType == null)
+                return target.getClass().getMethod(methodName).invoke(target);
+            return target.getClass().getMethod(methodName, parameterType).invoke(target, argument);
+        }
+        catch (InvocationTargetException e)
+        {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    private void check(String label, String description, boolean passed)
+    {
+        if (!passed)
+            failures.add(label + ": " + description);
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2008-2023, MOVES Institute, Naval Postgraduate School (NPS). All rights reserved.
+ * This work is provided under a BSD open-source license, see project license.html and license.txt
+ */
+
+package edu.nps.moves.dis7.pdus;
+
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+
+/**
+ * Benchmark of single-threaded EntityStatePdu operations, run once against PDU classes generated with
+ * xmlpg.synchronized=true and once against classes generated with xmlpg.synchronized=false, to measure the cost of
+ * uncontended locking in the default synchronized classes. Run by build.xml target benchmark.pdus against build/classes;
+ * results of past runs are kept in PduSynchronizationBenchmarkResults.txt.
+ * Timing follows PduCopyBenchmark: median nanoseconds per operation, after discarding the first third of rounds as warmup.
+ */
+public class PduSynchronizationBenchmark
+{
+    /** Command-line invocation (CLI)
+     * @param args optional iterations per round, default 1000000, and rounds, default 15
+     * @throws Exception if a PDU operation fails */
+    public static void main(String[] args) throws Exception
+    {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds     = (args.length > 1) ? Integer.parseInt(args[1]) : 15;
+
+        EntityStatePdu pdu = new EntityStatePdu();
+        pdu.setMarking("BENCH");
+        EntityStatePdu received = new EntityStatePdu();
+        ByteBuffer byteBuffer = ByteBuffer.allocate(1500);
+        pdu.marshal(byteBuffer);
+
+        int[] ticks = { 0 };
+        String[] names = { "update", "marshal", "unmarshal", "copy", "roundtrip" };
+        PduCopyBenchmark.Operation[] operations = {
+            () -> // typical per-tick changes by a simulation; the volatile sink store keeps each tick's stores from being merged
+            {
+                int tick = ++ticks[0];
+                pdu.getEntityLocation().setX(tick).setY(tick + 1).setZ(tick + 2);
+                pdu.getEntityLinearVelocity().setX(tick).setY(1.0f).setZ(2.0f);
+                pdu.getEntityOrientation().setPsi(tick).setTheta(1.0f).setPhi(2.0f);
+                pdu.getEntityID().setEntityID(tick & 0x7FFF);
+                PduCopyBenchmark.sink = pdu;
+            },
+            () ->
+            {
+                byteBuffer.clear();
+                pdu.marshal(byteBuffer);
+            },
+            () ->
+            {
+                byteBuffer.position(0);
+                received.unmarshal(byteBuffer);
+            },
+            () -> PduCopyBenchmark.sink = pdu.copy(),
+            () ->
+            {
+                byteBuffer.clear();
+                pdu.marshal(byteBuffer);
+                byteBuffer.flip();
+                EntityStatePdu newPdu = new EntityStatePdu();
+                newPdu.unmarshal(byteBuffer);
+                PduCopyBenchmark.sink = newPdu;
+            } };
+
+        System.out.println("PduSynchronizationBenchmark: " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version") + ", " +
+                           Runtime.getRuntime().availableProcessors() + " processors, " + iterations + " iterations x " + rounds + " rounds, " +
+                           (Modifier.isSynchronized(EntityStatePdu.class.getMethod("copy").getModifiers()) ? "synchronized" : "unsynchronized") +
+                           " pdu classes");
+        for (int index = 0; index < operations.length; index++)
+        {
+            if (names[index].equals("unmarshal")) // marshalled bytes for unmarshal to read
+            {
+                byteBuffer.clear();
+                pdu.marshal(byteBuffer);
+            }
+            System.out.printf("%-10s %7.1f ns/op%n", names[index], PduCopyBenchmark.median(PduCopyBenchmark.time(operations[index], iterations, rounds)));
+        }
+    }
+}